@@ -0,0 +1,142 @@
+package org.pojomatic.benchmark;
+
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.HashStrategy;
+import org.pojomatic.annotations.PojoHash;
+import org.pojomatic.annotations.Property;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import com.google.caliper.runner.CaliperMain;
+
+/**
+ * Compares the {@link HashStrategy hash strategies} for a POJO made of small integers and booleans. Before running the
+ * throughput benchmark, reports for each strategy how many distinct hash codes, and how many occupied buckets in a
+ * {@code HashMap} sized for them, a dense grid of such POJOs produces.
+ */
+public class HashStrategies {
+  public static void main(String[] args) throws Exception {
+    PrintWriter out = new PrintWriter(System.out, true);
+    reportCollisions(out);
+    String[] fullArgs = new String[args.length + 1];
+    fullArgs[0] = HashStrategies.class.getName();
+    System.arraycopy(args, 0, fullArgs, 1, args.length);
+    CaliperMain.exitlessMain(
+      fullArgs,
+      out,
+      new PrintWriter(System.err, true));
+  }
+
+  private static final int MAX_SMALL = 64;
+  private static final int MAX_TINY = 8;
+
+  public static abstract class SmallValuesBean {
+    @Property int small1;
+    @Property int small2;
+    @Property byte tiny;
+    @Property boolean flag;
+
+    void setValues(int small1, int small2, int tiny, boolean flag) {
+      this.small1 = small1;
+      this.small2 = small2;
+      this.tiny = (byte) tiny;
+      this.flag = flag;
+    }
+  }
+
+  public static class StandardBean extends SmallValuesBean {}
+
+  @PojoHash(HashStrategy.MURMUR3)
+  public static class Murmur3Bean extends SmallValuesBean {}
+
+  @PojoHash(HashStrategy.XXHASH)
+  public static class XxHashBean extends SmallValuesBean {}
+
+  @Param
+  private Strategy strategy;
+
+  private SmallValuesBean[] beans;
+
+  @BeforeExperiment
+  public void setUp() {
+    beans = strategy.makeBeans();
+  }
+
+  @Benchmark
+  public int hashCode(int reps) {
+    return strategy.hashCode(beans, reps);
+  }
+
+  private static void reportCollisions(PrintWriter out) {
+    for (Strategy strategy: Strategy.values()) {
+      SmallValuesBean[] beans = strategy.makeBeans();
+      int buckets = Integer.highestOneBit(beans.length * 4 / 3) * 2;
+      Set<Integer> hashCodes = new HashSet<>();
+      boolean[] occupied = new boolean[buckets];
+      int occupiedCount = 0;
+      for (SmallValuesBean bean: beans) {
+        int hashCode = strategy.pojomator.doHashCode(bean);
+        hashCodes.add(hashCode);
+        // HashMap's bucket selection
+        int bucket = (hashCode ^ (hashCode >>> 16)) & (buckets - 1);
+        if (!occupied[bucket]) {
+          occupied[bucket] = true;
+          occupiedCount++;
+        }
+      }
+      out.printf(
+        "%s: %d beans, %d distinct hash codes, %d of %d buckets occupied%n",
+        strategy, beans.length, hashCodes.size(), occupiedCount, buckets);
+    }
+  }
+
+  public static enum Strategy {
+    STANDARD(StandardBean.class), MURMUR3(Murmur3Bean.class), XXHASH(XxHashBean.class);
+
+    public int hashCode(SmallValuesBean[] beans, int reps) {
+      int result = 0;
+      for (int rep = 0; rep < reps; rep++) {
+        for (SmallValuesBean bean: beans) {
+          result += pojomator.doHashCode(bean);
+        }
+      }
+      return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Strategy(Class<? extends SmallValuesBean> beanClass) {
+      pojomator = (Pojomator<SmallValuesBean>) Pojomatic.pojomator(beanClass);
+      this.beanClass = beanClass;
+    }
+    private final Pojomator<SmallValuesBean> pojomator;
+    private final Class<? extends SmallValuesBean> beanClass;
+
+    public SmallValuesBean[] makeBeans() {
+      SmallValuesBean[] beans = new SmallValuesBean[MAX_SMALL * MAX_SMALL * MAX_TINY * 2];
+      int index = 0;
+      try {
+        for (int small1 = 0; small1 < MAX_SMALL; small1++) {
+          for (int small2 = 0; small2 < MAX_SMALL; small2++) {
+            for (int tiny = 0; tiny < MAX_TINY; tiny++) {
+              for (boolean flag: new boolean[] { false, true }) {
+                SmallValuesBean bean = beanClass.newInstance();
+                bean.setValues(small1, small2, tiny, flag);
+                beans[index++] = bean;
+              }
+            }
+          }
+        }
+      }
+      catch (InstantiationException | IllegalAccessException e) {
+        throw new RuntimeException(e);
+      }
+      return beans;
+    }
+  }
+}
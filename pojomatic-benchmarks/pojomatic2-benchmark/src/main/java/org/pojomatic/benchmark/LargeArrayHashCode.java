@@ -0,0 +1,111 @@
+package org.pojomatic.benchmark;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.ArrayStrategy;
+import org.pojomatic.annotations.Property;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import com.google.caliper.runner.CaliperMain;
+
+/**
+ * Compares {@link ArrayStrategy#STANDARD} and {@link ArrayStrategy#VECTOR} hashing of large primitive array
+ * properties.
+ */
+public class LargeArrayHashCode {
+  public static void main(String[] args) throws Exception {
+    String[] fullArgs = new String[args.length + 1];
+    fullArgs[0] = LargeArrayHashCode.class.getName();
+    System.arraycopy(args, 0, fullArgs, 1, args.length);
+    CaliperMain.exitlessMain(
+      fullArgs,
+      new PrintWriter(System.out, true),
+      new PrintWriter(System.err, true));
+  }
+
+  private final static Random rand = new Random();
+
+  public interface ArrayBean {
+    void setValues(double[] doubles, long[] longs);
+  }
+
+  public static class StandardBean implements ArrayBean {
+    @Property double[] doubles;
+    @Property long[] longs;
+
+    @Override
+    public void setValues(double[] doubles, long[] longs) {
+      this.doubles = doubles;
+      this.longs = longs;
+    }
+  }
+
+  public static class VectorBean implements ArrayBean {
+    @Property(arrayStrategy = ArrayStrategy.VECTOR) double[] doubles;
+    @Property(arrayStrategy = ArrayStrategy.VECTOR) long[] longs;
+
+    @Override
+    public void setValues(double[] doubles, long[] longs) {
+      this.doubles = doubles;
+      this.longs = longs;
+    }
+  }
+
+  @Param({ "16", "256", "4096", "65536", "1048576" })
+  private int size;
+
+  @Param({ "STANDARD", "VECTOR" })
+  private Strategy strategy;
+
+  private ArrayBean bean;
+
+  @BeforeExperiment
+  public void setUp() {
+    double[] doubles = new double[size];
+    long[] longs = new long[size];
+    for (int i = 0; i < size; i++) {
+      doubles[i] = rand.nextDouble();
+      longs[i] = rand.nextLong();
+    }
+    bean = strategy.makeBean();
+    bean.setValues(doubles, longs);
+  }
+
+  @Benchmark
+  public int hashCode(int reps) {
+    return strategy.hashCode(bean, reps);
+  }
+
+  public static enum Strategy {
+    STANDARD(StandardBean.class), VECTOR(VectorBean.class);
+
+    public int hashCode(ArrayBean bean, int reps) {
+      int result = 0;
+      for (int rep = 0; rep < reps; rep++) {
+        result += pojomator.doHashCode(bean);
+      }
+      return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Strategy(Class<? extends ArrayBean> beanClass) {
+      pojomator = (Pojomator<ArrayBean>) Pojomatic.pojomator(beanClass);
+      this.beanClass = beanClass;
+    }
+    private final Pojomator<ArrayBean> pojomator;
+    private final Class<? extends ArrayBean> beanClass;
+
+    public ArrayBean makeBean() {
+      try {
+        return beanClass.newInstance();
+      } catch (InstantiationException | IllegalAccessException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,196 @@
+package org.pojomatic.benchmark;
+
+import java.io.PrintWriter;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import com.google.caliper.runner.CaliperMain;
+
+/**
+ * Compares {@code toString} of wide POJOs using a {@code StringBuilder} sized from previous {@code toString} lengths,
+ * as {@link Pojomator#doToString(Object)} does, with using a default sized {@code StringBuilder}. Before running the
+ * benchmark, reports how many times each approach has to grow its buffer; run with {@code -i allocation} to see the
+ * difference in allocations.
+ */
+public class WideToString {
+  public static void main(String[] args) throws Exception {
+    PrintWriter out = new PrintWriter(System.out, true);
+    reportResizes(out);
+    String[] fullArgs = new String[args.length + 1];
+    fullArgs[0] = WideToString.class.getName();
+    System.arraycopy(args, 0, fullArgs, 1, args.length);
+    CaliperMain.exitlessMain(
+      fullArgs,
+      out,
+      new PrintWriter(System.err, true));
+  }
+
+  @AutoProperty
+  public static class Bean20 {
+    int property01 = 1000;
+    String property02 = "value 2";
+    int property03 = 3000;
+    String property04 = "value 4";
+    int property05 = 5000;
+    String property06 = "value 6";
+    int property07 = 7000;
+    String property08 = "value 8";
+    int property09 = 9000;
+    String property10 = "value 10";
+    int property11 = 11000;
+    String property12 = "value 12";
+    int property13 = 13000;
+    String property14 = "value 14";
+    int property15 = 15000;
+    String property16 = "value 16";
+    int property17 = 17000;
+    String property18 = "value 18";
+    int property19 = 19000;
+    String property20 = "value 20";
+  }
+
+  @AutoProperty
+  public static class Bean50 {
+    int property01 = 1000;
+    String property02 = "value 2";
+    int property03 = 3000;
+    String property04 = "value 4";
+    int property05 = 5000;
+    String property06 = "value 6";
+    int property07 = 7000;
+    String property08 = "value 8";
+    int property09 = 9000;
+    String property10 = "value 10";
+    int property11 = 11000;
+    String property12 = "value 12";
+    int property13 = 13000;
+    String property14 = "value 14";
+    int property15 = 15000;
+    String property16 = "value 16";
+    int property17 = 17000;
+    String property18 = "value 18";
+    int property19 = 19000;
+    String property20 = "value 20";
+    int property21 = 21000;
+    String property22 = "value 22";
+    int property23 = 23000;
+    String property24 = "value 24";
+    int property25 = 25000;
+    String property26 = "value 26";
+    int property27 = 27000;
+    String property28 = "value 28";
+    int property29 = 29000;
+    String property30 = "value 30";
+    int property31 = 31000;
+    String property32 = "value 32";
+    int property33 = 33000;
+    String property34 = "value 34";
+    int property35 = 35000;
+    String property36 = "value 36";
+    int property37 = 37000;
+    String property38 = "value 38";
+    int property39 = 39000;
+    String property40 = "value 40";
+    int property41 = 41000;
+    String property42 = "value 42";
+    int property43 = 43000;
+    String property44 = "value 44";
+    int property45 = 45000;
+    String property46 = "value 46";
+    int property47 = 47000;
+    String property48 = "value 48";
+    int property49 = 49000;
+    String property50 = "value 50";
+  }
+
+  @Param
+  private Width width;
+
+  private Object bean;
+
+  @BeforeExperiment
+  public void setUp() {
+    bean = width.makeBean();
+  }
+
+  @Benchmark
+  public int adaptiveBuilder(int reps) {
+    return width.adaptiveBuilder(bean, reps);
+  }
+
+  @Benchmark
+  public int defaultBuilder(int reps) {
+    return width.defaultBuilder(bean, reps);
+  }
+
+  private static void reportResizes(PrintWriter out) {
+    for (Width width: Width.values()) {
+      Object bean = width.makeBean();
+      StringBuilder defaultBuilder = new StringBuilder();
+      width.pojomator.doAppendTo(bean, defaultBuilder);
+      int length = defaultBuilder.length();
+      // the capacity doToString starts with once it has seen a representation of this length
+      StringBuilder adaptiveBuilder = new StringBuilder(width.pojomator.doToString(bean).length());
+      width.pojomator.doAppendTo(bean, adaptiveBuilder);
+      out.printf(
+        "%s: %d characters, %d resizes with a default builder, %d with an adaptively sized builder%n",
+        width, length, resizes(16, defaultBuilder.capacity()), resizes(length, adaptiveBuilder.capacity()));
+    }
+  }
+
+  /**
+   * The number of times a {@code StringBuilder} grows from {@code initialCapacity} to {@code finalCapacity}, given that
+   * each time it grows, its capacity at least doubles.
+   */
+  private static int resizes(int initialCapacity, int finalCapacity) {
+    int resizes = 0;
+    for (long capacity = initialCapacity; capacity < finalCapacity; capacity = 2 * capacity + 2) {
+      resizes++;
+    }
+    return resizes;
+  }
+
+  public static enum Width {
+    WIDTH_20(Bean20.class), WIDTH_50(Bean50.class);
+
+    public int adaptiveBuilder(Object bean, int reps) {
+      int result = 0;
+      for (int rep = 0; rep < reps; rep++) {
+        result += pojomator.doToString(bean).length();
+      }
+      return result;
+    }
+
+    public int defaultBuilder(Object bean, int reps) {
+      int result = 0;
+      for (int rep = 0; rep < reps; rep++) {
+        StringBuilder builder = new StringBuilder();
+        pojomator.doAppendTo(bean, builder);
+        result += builder.toString().length();
+      }
+      return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Width(Class<?> beanClass) {
+      pojomator = (Pojomator<Object>) Pojomatic.pojomator(beanClass);
+      this.beanClass = beanClass;
+    }
+    private final Pojomator<Object> pojomator;
+    private final Class<?> beanClass;
+
+    public Object makeBean() {
+      try {
+        return beanClass.newInstance();
+      }
+      catch (InstantiationException | IllegalAccessException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+}
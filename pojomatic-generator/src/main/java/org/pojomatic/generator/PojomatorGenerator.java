@@ -0,0 +1,176 @@
+package org.pojomatic.generator;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pojomatic.NoPojomaticPropertiesException;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.internal.PojomatorFactory;
+
+/**
+ * Generates Pojomator classes ahead of time. For each class found in a directory of compiled classes which has
+ * properties annotated for use with Pojomatic, a Pojomator class is written alongside it. When
+ * {@link Pojomatic#pojomator(Class)} is first called for such a class, the prebuilt Pojomator class will be loaded
+ * instead of generating byte code at runtime, provided that the class has not changed since the Pojomator class was
+ * generated.
+ * <p>
+ * A typical way to run the generator is with the {@code exec-maven-plugin}, during the {@code process-classes} phase:
+ * <pre>
+ * &lt;plugin&gt;
+ *   &lt;groupId&gt;org.codehaus.mojo&lt;/groupId&gt;
+ *   &lt;artifactId&gt;exec-maven-plugin&lt;/artifactId&gt;
+ *   &lt;executions&gt;
+ *     &lt;execution&gt;
+ *       &lt;phase&gt;process-classes&lt;/phase&gt;
+ *       &lt;goals&gt;&lt;goal&gt;java&lt;/goal&gt;&lt;/goals&gt;
+ *       &lt;configuration&gt;
+ *         &lt;mainClass&gt;org.pojomatic.generator.PojomatorGenerator&lt;/mainClass&gt;
+ *         &lt;arguments&gt;&lt;argument&gt;${project.build.outputDirectory}&lt;/argument&gt;&lt;/arguments&gt;
+ *       &lt;/configuration&gt;
+ *     &lt;/execution&gt;
+ *   &lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ * with {@code pojomatic-generator} added as a dependency of the plugin.
+ */
+public class PojomatorGenerator {
+  private static final String CLASS_FILE_SUFFIX = ".class";
+
+  private final File classesDirectory;
+  private final File outputDirectory;
+  private final Map<String, Throwable> skippedClasses = new LinkedHashMap<>();
+
+  /**
+   * Create a generator.
+   * @param classesDirectory the directory containing the compiled classes to generate Pojomators for
+   * @param outputDirectory the directory to write the generated Pojomator classes to
+   */
+  public PojomatorGenerator(File classesDirectory, File outputDirectory) {
+    this.classesDirectory = classesDirectory;
+    this.outputDirectory = outputDirectory;
+  }
+
+  /**
+   * Generate Pojomator classes.
+   * @param args the directory containing compiled classes, optionally followed by the directory to write generated
+   * classes to. If the latter is not provided, generated classes are written to the directory of compiled classes.
+   * @throws IOException if a class file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println("Usage: " + PojomatorGenerator.class.getName() + " classesDirectory [outputDirectory]");
+      System.exit(1);
+    }
+    File classesDirectory = new File(args[0]);
+    File outputDirectory = args.length > 1 ? new File(args[1]) : classesDirectory;
+    PojomatorGenerator generator = new PojomatorGenerator(classesDirectory, outputDirectory);
+    List<String> generated = generator.generate();
+    System.out.println("Generated " + generated.size() + " Pojomator classes in " + outputDirectory);
+    if (!generator.getSkippedClasses().isEmpty()) {
+      for (Map.Entry<String, Throwable> entry: generator.getSkippedClasses().entrySet()) {
+        System.err.println("Unable to generate a Pojomator class for " + entry.getKey() + ": " + entry.getValue());
+      }
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Generate a Pojomator class for each class in the classes directory which has properties annotated for use with
+   * Pojomatic. Classes which cannot be loaded, whose properties are annotated incorrectly, or whose properties cannot be
+   * resolved, are skipped, and reported by {@link #getSkippedClasses()}.
+   * @return the names of the classes for which a Pojomator class was generated
+   * @throws IOException if a class file cannot be written
+   */
+  public List<String> generate() throws IOException {
+    skippedClasses.clear();
+    List<String> classNames = new ArrayList<>();
+    findClassNames(classesDirectory, "", classNames);
+    List<String> generated = new ArrayList<>();
+    try (URLClassLoader classLoader = new URLClassLoader(
+      new URL[] { classesDirectory.toURI().toURL() }, PojomatorGenerator.class.getClassLoader())) {
+      for (String className: classNames) {
+        Class<?> pojoClass;
+        try {
+          pojoClass = Class.forName(className, false, classLoader);
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+          skippedClasses.put(className, e);
+          continue;
+        }
+        byte[] classBytes;
+        try {
+          classBytes = PojomatorFactory.makePrebuiltPojomatorClassBytes(pojoClass);
+        }
+        catch (NoPojomaticPropertiesException e) {
+          continue;
+        }
+        catch (RuntimeException | LinkageError e) {
+          skippedClasses.put(className, e);
+          continue;
+        }
+        writeClass(PojomatorFactory.prebuiltPojomatorClassName(pojoClass), classBytes);
+        generated.add(className);
+      }
+    }
+    return generated;
+  }
+
+  /**
+   * Get the classes skipped by the last call to {@link #generate()} because they could not be loaded, or because their
+   * properties were annotated incorrectly or could not be resolved. Classes which simply have no properties annotated
+   * for use with Pojomatic are not included.
+   * @return the names of the skipped classes, mapped to the error which caused each to be skipped
+   */
+  public Map<String, Throwable> getSkippedClasses() {
+    return Collections.unmodifiableMap(skippedClasses);
+  }
+
+  private static void findClassNames(File directory, String packagePrefix, List<String> classNames) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file: files) {
+      String name = file.getName();
+      if (file.isDirectory()) {
+        findClassNames(file, packagePrefix + name + ".", classNames);
+      }
+      else if (name.endsWith(CLASS_FILE_SUFFIX) && !name.equals("package-info.class")) {
+        String className = packagePrefix + name.substring(0, name.length() - CLASS_FILE_SUFFIX.length());
+        if (!className.endsWith("$$Pojomator")) {
+          classNames.add(className);
+        }
+      }
+    }
+  }
+
+  private void writeClass(String className, byte[] classBytes) throws IOException {
+    File classFile = new File(outputDirectory, className.replace('.', File.separatorChar) + CLASS_FILE_SUFFIX);
+    File parent = classFile.getParentFile();
+    if (!parent.isDirectory() && !parent.mkdirs()) {
+      throw new IOException("Unable to create directory " + parent);
+    }
+    // Write to a temporary file first, so that a failure part way through does not leave a truncated class file
+    File tempFile = File.createTempFile(classFile.getName(), ".tmp", parent);
+    try {
+      try (OutputStream out = new FileOutputStream(tempFile)) {
+        out.write(classBytes);
+      }
+      Files.move(tempFile.toPath(), classFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    finally {
+      Files.deleteIfExists(tempFile.toPath());
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package org.pojomatic.generator;
+
+import org.pojomatic.annotations.Property;
+
+public class Misannotated {
+  @Property
+  static int x;
+}
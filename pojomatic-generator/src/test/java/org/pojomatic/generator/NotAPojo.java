@@ -0,0 +1,5 @@
+package org.pojomatic.generator;
+
+public class NotAPojo {
+  int x;
+}
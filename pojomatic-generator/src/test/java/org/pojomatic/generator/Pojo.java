@@ -0,0 +1,7 @@
+package org.pojomatic.generator;
+
+import org.pojomatic.annotations.Property;
+
+public class Pojo {
+  @Property int x = 3;
+}
@@ -0,0 +1,110 @@
+package org.pojomatic.generator;
+
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.internal.PojomatorFactory;
+import org.testng.annotations.Test;
+
+public class PojomatorGeneratorTest {
+  /**
+   * A class loader which loads {@link Pojo} from a given directory, rather than delegating to its parent.
+   */
+  private static class ChildFirstClassLoader extends URLClassLoader {
+    ChildFirstClassLoader(File classesDirectory) throws IOException {
+      super(new URL[] { classesDirectory.toURI().toURL() }, PojomatorGeneratorTest.class.getClassLoader());
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (name.startsWith(Pojo.class.getName())) {
+        Class<?> clazz = findLoadedClass(name);
+        return clazz != null ? clazz : findClass(name);
+      }
+      return super.loadClass(name, resolve);
+    }
+  }
+
+  @Test
+  public void testGenerate() throws Exception {
+    File classesDirectory = Files.createTempDirectory("classes").toFile();
+    copyClassFile(Pojo.class, classesDirectory);
+    copyClassFile(NotAPojo.class, classesDirectory);
+
+    PojomatorGenerator generator = new PojomatorGenerator(classesDirectory, classesDirectory);
+    List<String> generated = generator.generate();
+    assertEquals(generated, Arrays.asList(Pojo.class.getName()));
+    assertTrue(generator.getSkippedClasses().isEmpty());
+    String pojomatorClassName = PojomatorFactory.prebuiltPojomatorClassName(Pojo.class);
+    assertTrue(classFile(classesDirectory, pojomatorClassName).isFile());
+
+    try (URLClassLoader classLoader = new ChildFirstClassLoader(classesDirectory)) {
+      Class<?> pojoClass = classLoader.loadClass(Pojo.class.getName());
+      assertNotSame(pojoClass, Pojo.class);
+      assertEquals(Pojomatic.pojomator(pojoClass).getClass().getName(), pojomatorClassName);
+      assertEquals(Pojomatic.toString(pojoClass.newInstance()), "Pojo{x: {3}}");
+    }
+  }
+
+  @Test
+  public void testUnloadableClassReported() throws Exception {
+    File classesDirectory = Files.createTempDirectory("classes").toFile();
+    copyClassFile(Pojo.class, classesDirectory);
+    // A class file whose name does not match its path fails to load with a NoClassDefFoundError
+    String brokenClassName = Pojo.class.getPackage().getName() + ".Broken";
+    Files.copy(
+      classFile(classesDirectory, Pojo.class.getName()).toPath(),
+      classFile(classesDirectory, brokenClassName).toPath());
+
+    PojomatorGenerator generator = new PojomatorGenerator(classesDirectory, classesDirectory);
+    assertEquals(generator.generate(), Arrays.asList(Pojo.class.getName()));
+    assertEquals(generator.getSkippedClasses().keySet(), Collections.singleton(brokenClassName));
+    assertTrue(generator.getSkippedClasses().get(brokenClassName) instanceof LinkageError);
+  }
+
+  @Test
+  public void testMisannotatedClassReported() throws Exception {
+    File classesDirectory = Files.createTempDirectory("classes").toFile();
+    copyClassFile(Misannotated.class, classesDirectory);
+    copyClassFile(Pojo.class, classesDirectory);
+
+    PojomatorGenerator generator = new PojomatorGenerator(classesDirectory, classesDirectory);
+    assertEquals(generator.generate(), Arrays.asList(Pojo.class.getName()));
+    assertEquals(generator.getSkippedClasses().keySet(), Collections.singleton(Misannotated.class.getName()));
+    assertTrue(generator.getSkippedClasses().get(Misannotated.class.getName()) instanceof IllegalArgumentException);
+    assertFalse(
+      classFile(classesDirectory, Misannotated.class.getName() + "$$Pojomator").exists(),
+      "no Pojomator class should be written for a misannotated class");
+    assertTrue(classFile(classesDirectory, PojomatorFactory.prebuiltPojomatorClassName(Pojo.class)).isFile());
+  }
+
+  @Test
+  public void testGenerateIsRepeatable() throws Exception {
+    File classesDirectory = Files.createTempDirectory("classes").toFile();
+    copyClassFile(Pojo.class, classesDirectory);
+    assertEquals(new PojomatorGenerator(classesDirectory, classesDirectory).generate().size(), 1);
+    assertEquals(new PojomatorGenerator(classesDirectory, classesDirectory).generate().size(), 1);
+  }
+
+  private static void copyClassFile(Class<?> clazz, File classesDirectory) throws IOException {
+    File target = classFile(classesDirectory, clazz.getName());
+    assertTrue(target.getParentFile().mkdirs() || target.getParentFile().isDirectory());
+    try (InputStream in = clazz.getClassLoader().getResourceAsStream(clazz.getName().replace('.', '/') + ".class")) {
+      Files.copy(in, target.toPath());
+    }
+  }
+
+  private static File classFile(File classesDirectory, String className) {
+    return new File(classesDirectory, className.replace('.', File.separatorChar) + ".class");
+  }
+}
@@ -0,0 +1,43 @@
+package org.pojomatic;
+
+/**
+ * A destination for the values of the properties of a POJO, as fed to it by
+ * {@link Pojomator#doHash(Object, HashSink)}. Typically, an implementation passes the values on to a hash function or
+ * message digest, to compute a fingerprint of the POJO without first building its {@code String} representation.
+ * <p>
+ * Pojomatic precedes each {@code String} and array with its length, and each property value which may be
+ * {@code null} with a presence flag, so an implementation need not delimit values itself: feeding the bytes of each
+ * value into a digest, in order, is enough for different sequences of values to give different input to the digest.
+ *
+ * @see Pojomator#doHash(Object, HashSink)
+ */
+public interface HashSink {
+  void putBoolean(boolean value);
+
+  void putByte(byte value);
+
+  void putChar(char value);
+
+  void putShort(short value);
+
+  void putInt(int value);
+
+  void putLong(long value);
+
+  void putFloat(float value);
+
+  void putDouble(double value);
+
+  /**
+   * Accept the contents of a byte array. Pojomatic does not modify the array, and the implementation must not either.
+   * @param bytes the bytes
+   */
+  void putBytes(byte[] bytes);
+
+  /**
+   * Accept the characters of a {@code String}. How the characters are encoded, if at all, is up to the
+   * implementation.
+   * @param string the string
+   */
+  void putString(String string);
+}
@@ -1,8 +1,19 @@
 package org.pojomatic;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+
+import org.pojomatic.diagnostics.PojomatorCreationListener;
 import org.pojomatic.diff.Differences;
+import org.pojomatic.internal.CreationListeners;
+import org.pojomatic.internal.PojoClassScanner;
+import org.pojomatic.internal.PojomatorClassCache;
 import org.pojomatic.internal.PojomatorFactory;
-import org.pojomatic.internal.SelfPopulatingMap;
+import org.pojomatic.internal.Preloader;
+import org.pojomatic.internal.SelfPopulatingClassMap;
 
 /**
  * <style>
@@ -71,8 +82,8 @@ import org.pojomatic.internal.SelfPopulatingMap;
  */
 public class Pojomatic {
 
-  private final static SelfPopulatingMap<Class<?>, Pojomator<?>> POJOMATORS =
-    new SelfPopulatingMap<Class<?>, Pojomator<?>>() {
+  private final static SelfPopulatingClassMap<Pojomator<?>> POJOMATORS =
+    new SelfPopulatingClassMap<Pojomator<?>>() {
       @Override
       // compiler does not know that the type parameter to Pojomator is the same as the type
       // parameter to Class
@@ -96,6 +107,33 @@ public class Pojomatic {
     return pojomator(getClass(pojo)).doToString(pojo);
   }
 
+  /**
+   * Append the {@code toString} representation for a POJO to a {@link StringBuilder}.
+   * @param <T> the type of the POJO
+   * @param pojo the POJO - must not be null
+   * @param builder the builder to append to - must not be null
+   * @throws NoPojomaticPropertiesException if {@code pojo}'s class has no properties annotated for
+   * use with Pojomatic
+   * @see Pojomator#doAppendTo(Object, StringBuilder)
+   */
+  public static <T> void appendTo(T pojo, StringBuilder builder) throws NoPojomaticPropertiesException {
+    pojomator(getClass(pojo)).doAppendTo(pojo, builder);
+  }
+
+  /**
+   * Write a JSON representation of a POJO.
+   * @param <T> the type of the POJO
+   * @param pojo the POJO - must not be null
+   * @param out where to write the JSON - must not be null
+   * @throws IOException if {@code out} throws one
+   * @throws NoPojomaticPropertiesException if {@code pojo}'s class has no properties annotated for
+   * use with Pojomatic
+   * @see Pojomator#doWriteJson(Object, Appendable)
+   */
+  public static <T> void writeJson(T pojo, Appendable out) throws IOException, NoPojomaticPropertiesException {
+    pojomator(getClass(pojo)).doWriteJson(pojo, out);
+  }
+
   /**
    * Compute the {@code hashCode} for a POJO.
    * @param <T> the type of the POJO
@@ -109,6 +147,32 @@ public class Pojomatic {
     return pojomator(getClass(pojo)).doHashCode(pojo);
   }
 
+  /**
+   * Compute a 64 bit hash code for a POJO.
+   * @param <T> the type of the POJO
+   * @param pojo the POJO - must not be null
+   * @return the 64 bit hash code for {@code pojo}.
+   * @throws NoPojomaticPropertiesException if {@code pojo}'s class has no properties annotated for
+   * use with Pojomatic
+   * @see Pojomator#doHashCode64(Object)
+   */
+  public static <T> long hashCode64(T pojo) throws NoPojomaticPropertiesException {
+    return pojomator(getClass(pojo)).doHashCode64(pojo);
+  }
+
+  /**
+   * Feed the property values of a POJO into a {@link HashSink}.
+   * @param <T> the type of the POJO
+   * @param pojo the POJO - must not be null
+   * @param sink the sink to feed the property values into - must not be null
+   * @throws NoPojomaticPropertiesException if {@code pojo}'s class has no properties annotated for
+   * use with Pojomatic
+   * @see Pojomator#doHash(Object, HashSink)
+   */
+  public static <T> void hash(T pojo, HashSink sink) throws NoPojomaticPropertiesException {
+    pojomator(getClass(pojo)).doHash(pojo, sink);
+  }
+
   /**
    * Compute whether {@code pojo} and {@code other} are equal to each other in the sense of
    * {@code Object}'s {@code equals} method.
@@ -165,10 +229,29 @@ public class Pojomatic {
   }
 
   /**
-   * Get the {@code Pojomator} for {@code pojoClass}. While the same instance will be returned every time
-   * for a given value of {@code pojoClass}, highly performance-sensitive applications may want to cache the value
-   * returned in a static variable on the class in question. Note that a static Pojomator for a parent class
-   * will miss any additional properties when used on a child class.
+   * Get a {@code Comparator} for instances of {@code pojoClass}, which compares them by their properties.
+   * @param <T> the type represented by {@code pojoClass}
+   * @param pojoClass the class to get a comparator for
+   * @return a {@code Comparator} which delegates to {@link Pojomator#doCompare(Object, Object)}
+   * @throws NoPojomaticPropertiesException if {@code pojoClass} has no properties annotated for use
+   * with Pojomatic
+   */
+  public static <T> Comparator<T> comparator(Class<T> pojoClass) throws NoPojomaticPropertiesException {
+    final Pojomator<T> pojomator = pojomator(pojoClass);
+    return new Comparator<T>() {
+      @Override
+      public int compare(T instance, T other) {
+        return pojomator.doCompare(instance, other);
+      }
+    };
+  }
+
+  /**
+   * Get the {@code Pojomator} for {@code pojoClass}. The same instance will be returned every time for a given value
+   * of {@code pojoClass}; once created, it is found via a single {@link ClassValue} lookup. Highly
+   * performance-sensitive applications may still want to cache the value returned in a static variable on the class in
+   * question. Note that a static Pojomator for a parent class will miss any additional properties when used on a child
+   * class.
    * @param <T> the type represented by {@code pojoClass}
    * @param pojoClass the class to create a {@code Pojomator} for.
    * @return a {@code Pojomator<T>}
@@ -181,6 +264,69 @@ public class Pojomatic {
     return (Pojomator<T>) POJOMATORS.get(pojoClass);
   }
 
+  /**
+   * Create the {@code Pojomator}s for a number of classes ahead of their first use, in parallel. This avoids paying
+   * the cost of creating each {@code Pojomator} on the first call to {@link #equals(Object, Object)},
+   * {@link #hashCode(Object)} or {@link #toString(Object)} for the class in question.
+   * @param pojoClasses the classes to create {@code Pojomator}s for
+   * @return for each class, in the order given, the time in nanoseconds taken to create its {@code Pojomator} (or to
+   * find it, if it had already been created).
+   * @throws NoPojomaticPropertiesException if any of {@code pojoClasses} has no properties annotated for use with
+   * Pojomatic. {@code Pojomator}s for the other classes will still have been created.
+   */
+  public static Map<Class<?>, Long> preload(Collection<? extends Class<?>> pojoClasses)
+  throws NoPojomaticPropertiesException {
+    return Preloader.preload(POJOMATORS, pojoClasses);
+  }
+
+  /**
+   * Create the {@code Pojomator}s for all classes in a package (or any of its subpackages) which are annotated with
+   * {@link org.pojomatic.annotations.AutoProperty AutoProperty}, or which declare a field or method annotated with
+   * {@link org.pojomatic.annotations.Property Property}. Classes are found in directories and jar files on the class
+   * path of {@code classLoader} (jar files must include entries for their directories, as those built by the usual
+   * tools do); other locations are ignored.
+   * @param packageName the name of the package to search
+   * @param classLoader the class loader to search for classes
+   * @return for each class found, the time in nanoseconds taken to create its {@code Pojomator}
+   * @throws IOException if a directory or jar file on the class path cannot be read
+   * @see #preload(Collection)
+   */
+  public static Map<Class<?>, Long> preload(String packageName, ClassLoader classLoader) throws IOException {
+    return preload(PojoClassScanner.findPojoClasses(packageName, classLoader));
+  }
+
+  /**
+   * Register a listener to be notified of the time spent creating {@code Pojomator}s. Until a listener is
+   * registered, no timings are taken.
+   * @param listener the listener to register
+   * @see org.pojomatic.diagnostics.PojomatorCreationStatistics
+   */
+  public static void addPojomatorCreationListener(PojomatorCreationListener listener) {
+    CreationListeners.add(listener);
+  }
+
+  /**
+   * Unregister a listener previously registered with
+   * {@link #addPojomatorCreationListener(PojomatorCreationListener)}.
+   * @param listener the listener to unregister
+   */
+  public static void removePojomatorCreationListener(PojomatorCreationListener listener) {
+    CreationListeners.remove(listener);
+  }
+
+  /**
+   * Keep the byte code of generated {@code Pojomator} classes in a directory, so that later runs of the JVM can define
+   * them without generating them again. Entries are keyed by the class files of each POJO class and its superclasses,
+   * and by the version of Pojomatic, so a changed class is never given a stale {@code Pojomator}. Several JVMs may
+   * safely share the same directory. Classes whose class files cannot be read as resources from their class loader
+   * are not cached. Caching is disabled by default.
+   * @param directory the directory to use, which will be created if necessary, or {@code null} to disable caching
+   * @throws IOException if {@code directory} does not exist and cannot be created
+   */
+  public static void setPojomatorCacheDirectory(File directory) throws IOException {
+    PojomatorClassCache.setDirectory(directory == null ? null : directory.toPath());
+  }
+
   @SuppressWarnings("unchecked") // Since Object.getClass returns Class<?>
   private static <T> Class<T> getClass(T pojo) {
     return (Class<T>) pojo.getClass();
@@ -1,5 +1,6 @@
 package org.pojomatic;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
@@ -45,6 +46,65 @@ public interface Pojomator<T> {
    */
   int doHashCode(T instance);
 
+  /**
+   * Compute a 64 bit hash code for a given instance of {@code T}, for use where the 32 bits of {@link #doHashCode}
+   * are too few, such as in sharded stores or probabilistic data structures with very many keys.
+   * This uses the same properties as {@link #doHashCode(Object)}, but the hash code of each property is itself
+   * 64 bits wide:
+   * <ul>
+   *   <li>{@code long} and {@code double} values (primitive or boxed) contribute all 64 bits, the latter via
+   *   {@link Double#doubleToLongBits(double)}</li>
+   *   <li>other primitive values, and their boxed equivalents, contribute their {@code hashCode}</li>
+   *   <li>{@code String}s contribute a 64 bit polynomial hash of their characters, and enums that of their name</li>
+   *   <li>arrays and {@link List}s contribute a 64 bit polynomial hash of the 64 bit hash codes of their elements,
+   *   {@link java.util.Set Set}s the sum of those of their elements, and {@link java.util.Map Map}s the sum over their
+   *   entries of the exclusive or of those of the key and value</li>
+   *   <li>instances of classes with properties for Pojomatic contribute their own 64 bit hash code, as computed by
+   *   their {@code Pojomator}</li>
+   *   <li>{@code null} values contribute 0, and all other objects contribute their {@code hashCode}</li>
+   * </ul>
+   * These are combined using the round and avalanche steps of the 64 bit xxHash function. If every property value,
+   * and every value nested within one, is of one of the types listed above other than the last, the result does not
+   * depend on identity hash codes, and so is the same in every JVM. Neither
+   * {@link org.pojomatic.annotations.CacheHashCode @CacheHashCode} nor
+   * {@link org.pojomatic.annotations.PojoHash @PojoHash} affects this method.
+   *
+   * @param instance the instance to compute the hash code for - must not be {@code null}
+   * @return the 64 bit hash code of {@code instance}
+   * @throws NullPointerException if {@code instance} is {@code null}
+   */
+  long doHashCode64(T instance);
+
+  /**
+   * Feed the values of the properties of a given instance of {@code T} into a {@link HashSink}, to compute a
+   * fingerprint of it without allocating. The same properties are used as by {@link #doHashCode(Object)}, in the same
+   * order. Each property value is fed as follows:
+   * <ul>
+   *   <li>a primitive value is passed to the {@code put} method for its type</li>
+   *   <li>for any other value, {@code putBoolean(false)} is called if the value is {@code null}; otherwise
+   *   {@code putBoolean(true)} is called, followed by:
+   *   <ul>
+   *     <li>for a boxed primitive, the {@code put} method for its primitive type</li>
+   *     <li>for a {@code String}, {@code putInt} with its length, then {@code putString}; an enum is fed as the
+   *     {@code String} of its name</li>
+   *     <li>for a {@code byte[]}, {@code putInt} with its length, then {@code putBytes}</li>
+   *     <li>for any other array, or a {@link java.util.List}, {@code putInt} with its length, then each element in
+   *     turn, in the same way as a non-primitive property value</li>
+   *     <li>for an instance of a class with properties for Pojomatic, the result of calling {@code doHash} on that
+   *     instance with its own {@code Pojomator}</li>
+   *     <li>for any other value, {@code putInt} with its {@code hashCode()}</li>
+   *   </ul></li>
+   * </ul>
+   * Values are not tagged with their type, so for example an {@code Object} property holding the {@code Integer}
+   * {@code 1} feeds the same as one holding the {@code Float} with the same bits. Cyclic object graphs are not
+   * detected.
+   *
+   * @param instance the instance to hash - must not be {@code null}
+   * @param sink the sink to feed the property values into - must not be {@code null}
+   * @throws NullPointerException if {@code instance} or {@code sink} is {@code null}
+   */
+  void doHash(T instance, HashSink sink);
+
   /**
    * Compute the {@code toString} representation for a given instance of {@code T}.
    * <p>
@@ -62,9 +122,9 @@ public interface Pojomator<T> {
    * </p>
    * <p>
    * For a non-null {@code Person} instance, the {@code String} representation will be created by
-   * creating an instance of {@code DefaultEnhancedPojoFormatter} for the {@code Person} class (referred to
-   * here as {@code personFormatter}), a {@link StringBuilder} (referred to here as builder), and then invoking the
-   * following methods in order:
+   * obtaining an instance of {@code DefaultEnhancedPojoFormatter} for the {@code Person} class (referred to
+   * here as {@code personFormatter}), creating a {@link StringBuilder} (referred to here as builder), and then invoking
+   * the following methods in order:
    * <ul>
    *   <li>{@link DefaultEnhancedPojoFormatter#appendToStringPrefix(StringBuilder, Class) personFormatter.appendToStringPrefix(builder, Person.class)}</li>
    *   <li>{@link DefaultEnhancedPojoFormatter#appendPropertyPrefix(StringBuilder, PropertyElement) personFormatter.appendPropertyPrefix(builder, nameProperty)}</li>
@@ -77,6 +137,13 @@ public interface Pojomator<T> {
    *   <li>builder.toString()</li>
    * </ul>
    * </p>
+   * <p>
+   * A new pojo formatter is constructed for each call, unless its class is annotated with
+   * {@link org.pojomatic.annotations.StatelessFormatter StatelessFormatter} or has no instance fields, in which case a
+   * single instance is shared by all calls. For the default pojo formatter, and those annotated with
+   * {@code @StatelessFormatter(constant = true)}, the text the methods above append is instead computed once, when the
+   * Pojomator is created, and the result is the same as if they had been called.
+   * </p>
    *
    * @param instance the instance to compute the {@code toString} representation for - must not be {@code null}
    * @return the {@code toString} representation of {@code instance}
@@ -86,6 +153,48 @@ public interface Pojomator<T> {
    */
   String doToString(T instance);
 
+  /**
+   * Append the {@code toString} representation for a given instance of {@code T} to a {@link StringBuilder}. The
+   * characters appended are the same as those of {@link #doToString(Object)}, but no intermediate
+   * {@code StringBuilder} or {@code String} is created, so that callers which already have a buffer, such as a
+   * logging framework, can write into it directly.
+   *
+   * @param instance the instance to append the {@code toString} representation of - must not be {@code null}
+   * @param builder the builder to append to - must not be {@code null}
+   * @throws NullPointerException if {@code instance} or {@code builder} is {@code null}
+   * @see #doToString(Object)
+   */
+  void doAppendTo(T instance, StringBuilder builder);
+
+  /**
+   * Write a JSON object representing a given instance of {@code T}. The object has a member for each property
+   * included in the {@code toString} representation, in the same order, named by {@link PropertyElement#getName()}.
+   * The value of each member is:
+   * <ul>
+   *   <li>for a property with a {@link org.pojomatic.annotations.PropertyFormat PropertyFormat}, a string holding the
+   *   property value as formatted for {@link #doToString(Object)}, so that formatters which mask values take effect
+   *   </li>
+   *   <li>{@code null} for a {@code null} value</li>
+   *   <li>a number for a value which is a primitive or boxed integer, {@code BigInteger} or {@code BigDecimal}, or a
+   *   finite {@code float} or {@code double}; an infinite or NaN value is written as a string</li>
+   *   <li>{@code true} or {@code false} for a {@code boolean}</li>
+   *   <li>a string for a {@code String} or {@code char}, or the name of an enum</li>
+   *   <li>an array for an array or an {@link Iterable}, and an object for a {@link java.util.Map}, with the elements
+   *   or values written in the same way as property values, and the keys converted with
+   *   {@link String#valueOf(Object)}</li>
+   *   <li>for an instance of a class with properties for Pojomatic, the result of calling {@code doWriteJson} on that
+   *   instance with its own {@code Pojomator}</li>
+   *   <li>a string holding the value's {@code toString()} for any other value</li>
+   * </ul>
+   * Primitive property values are written without being boxed. Cyclic object graphs are not detected.
+   *
+   * @param instance the instance to write - must not be {@code null}
+   * @param out where to write the JSON - must not be {@code null}
+   * @throws IOException if {@code out} throws one
+   * @throws NullPointerException if {@code instance} or {@code out} is {@code null}
+   */
+  void doWriteJson(T instance, Appendable out) throws IOException;
+
   /**
    * Compute whether {@code instance} and {@code other} are equal to each other in the sense of
    * {@code Object}'s {@link Object#equals(Object) equals} method. For two instances to be
@@ -174,6 +283,29 @@ public interface Pojomator<T> {
    */
   Differences doDiff(T instance, T other);
 
+  /**
+   * Compare two instances of {@code T}, in the sense of {@link java.util.Comparator#compare(Object, Object)}.
+   * The properties examined by {@link #doEquals(Object, Object)} are compared one at a time, and the result of the
+   * first comparison which does not find them equal is returned; if all are equal, {@code 0} is returned. Properties
+   * are compared in order of their {@link org.pojomatic.annotations.Property#compareOrder() compareOrder}, and then in
+   * declaration order.
+   * <p>
+   * Properties of primitive type are compared as their wrapper class's {@code compare} method does. Among other
+   * properties, {@code null} comes before any other value; arrays are compared lexicographically, element by element,
+   * looking into nested arrays, with a shorter array coming before any longer array which it is a prefix of; and all
+   * other values are compared using {@link Comparable#compareTo(Object)}.
+   *
+   * @param instance the first instance to compare - must not be {@code null}
+   * @param other the second instance to compare - must not be {@code null}
+   * @return a negative integer, zero, or a positive integer as {@code instance} is less than, equal to, or greater
+   * than {@code other}
+   * @throws NullPointerException if {@code instance} or {@code other} is {@code null}
+   * @throws ClassCastException if a property value which is compared is neither {@code null}, an array, nor
+   * {@code Comparable}, or if the values of a property are arrays of different types
+   * @see org.pojomatic.Pojomatic#comparator(Class)
+   */
+  int doCompare(T instance, T other);
+
   /**
    * Return a simple String representation of this Pojomator. This is meant to aid in debugging
    * which properties are being used for which purposes. The contents and format of this
@@ -0,0 +1,25 @@
+package org.pojomatic.annotations;
+
+/**
+ * How Pojomatic should compute the hash code of a property whose declared type is a one-dimensional array of a
+ * primitive type, such as {@code double[]} or {@code long[]}. This is set per property using
+ * {@link Property#arrayStrategy()}. For properties of any other type, the strategy has no effect.
+ * <p>
+ * Array properties are always compared for equality using {@link java.util.Arrays#equals(long[], long[])} and its
+ * overloads, which recent JVMs already implement with vectorized intrinsics.
+ */
+public enum ArrayStrategy {
+  /**
+   * Hash the array as {@link java.util.Arrays#hashCode(long[])} and its overloads do.
+   */
+  STANDARD,
+
+  /**
+   * Hash the array four elements at a time, so that the processor can work on several elements at once instead of
+   * waiting on each multiplication in turn. The hash code is the same as that computed by {@code Arrays.hashCode};
+   * only the order of the arithmetic differs. Whether this is faster depends on the element type, the size of the
+   * array and the JVM; some JVMs already use vectorized intrinsics for {@code Arrays.hashCode} on some element types.
+   * It is intended for large arrays, and should be chosen based on measurements.
+   */
+  VECTOR
+}
@@ -0,0 +1,42 @@
+package org.pojomatic.annotations;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.TYPE;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.pojomatic.Pojomator;
+
+/**
+ * Declares that the hash code of instances of a class should be computed only once, and then remembered. This is only
+ * appropriate for immutable classes, since changes to properties made after the hash code is first computed will not
+ * be reflected in it.
+ * <p>
+ * The hash code can be remembered in one of two places:
+ * <ul>
+ * <li>If a non-static, non-final {@code int} field of the class (or of one of its superclasses) is annotated with
+ * {@code @CacheHashCode}, the hash code is stored in that field. The field is never treated as a property, and should
+ * be left to Pojomatic; a value of {@code 0} means that the hash code has not yet been computed. As with
+ * {@link String#hashCode()}, an instance whose hash code is {@code 0} will have it recomputed each time.</li>
+ * <li>Otherwise, if the class itself is annotated with {@code @CacheHashCode}, the hash code is stored in a table
+ * keyed by instance identity, which does not prevent instances from being garbage collected. This is slower than
+ * using a field, but does not require changes to the layout of the class.</li>
+ * </ul>
+ * At most one field in a class hierarchy may be annotated with {@code @CacheHashCode}.
+ * <p>
+ * When the hash code is stored in a field, and both instances being compared for equality already have their hash codes
+ * remembered, and these differ, {@code equals} returns {@code false} without comparing any properties. This is not done
+ * for hash codes stored in a table, since looking them up costs more than comparing the properties typically does.
+ *
+ * @see Pojomator#doHashCode(Object)
+ */
+@Documented
+@Inherited
+@Target({TYPE, FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheHashCode {
+}
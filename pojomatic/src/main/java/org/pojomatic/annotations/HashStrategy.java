@@ -0,0 +1,33 @@
+package org.pojomatic.annotations;
+
+/**
+ * How Pojomatic combines the hash codes of the properties of a POJO into the hash code of the POJO itself. The hash
+ * code of each property is computed in the same way regardless of strategy; only the way in which they are combined
+ * differs.
+ *
+ * @see PojoHash
+ */
+public enum HashStrategy {
+  /**
+   * Combine property hash codes as {@link java.util.Arrays#hashCode(Object[])} does: starting with {@code 1}, the hash
+   * code so far is multiplied by {@code 31}, and the hash code of the next property added. This is the default, and
+   * gives the same hash codes as earlier versions of Pojomatic, and as most hand written {@code hashCode} methods.
+   * It is cheap to compute, but POJOs whose properties are small integers or booleans get hash codes which are close
+   * together, and so tend to cluster in hash tables which use the low bits of the hash code.
+   */
+  STANDARD,
+
+  /**
+   * Combine property hash codes with the mixing steps of the 32 bit MurmurHash3 function, treating the hash code of
+   * each property as one four byte block, and finish with its avalanche step. The result is well distributed in all
+   * bits, at the cost of a few more multiplications per property.
+   */
+  MURMUR3,
+
+  /**
+   * Combine property hash codes with the mixing steps of the 32 bit xxHash function for inputs shorter than 16 bytes,
+   * treating the hash code of each property as one four byte block, and finish with its avalanche step. This is
+   * typically slightly cheaper than {@link #MURMUR3}, and similarly well distributed.
+   */
+  XXHASH
+}
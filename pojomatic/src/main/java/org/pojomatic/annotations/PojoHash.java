@@ -0,0 +1,32 @@
+package org.pojomatic.annotations;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Specifies how the hash codes of the properties of a POJO are combined into the hash code of the POJO. Classes which
+ * are not annotated use {@link HashStrategy#STANDARD}.
+ * <p>
+ * Since instances of a class and of its subclasses may be equal to each other, this annotation is inherited. A
+ * subclass should not specify a different strategy than its parent class unless instances of the two can never be
+ * equal, for example because the subclass has different properties for {@code equals}, or is annotated with
+ * {@link OverridesEquals}.
+ *
+ * @see HashStrategy
+ */
+@Inherited
+@Target(TYPE)
+@Retention(RUNTIME)
+@Documented
+public @interface PojoHash {
+
+  /**
+   * The strategy to use for combining property hash codes.
+   */
+  public HashStrategy value();
+}
@@ -35,4 +35,28 @@ public @interface Property {
    * the method is used.
    */
   public String name() default "";
+
+  /**
+   * A hint as to when this property should be compared by {@code equals}, relative to the other properties of the
+   * class. Properties with a lower {@code equalsOrder} are compared first. Among properties with the same
+   * {@code equalsOrder}, those which are cheaper to compare (primitives first, then enums, boxed primitives, strings,
+   * other objects, collections and finally arrays) are compared first, and properties which are equally cheap are
+   * compared in declaration order. Since {@code equals} returns as soon as it finds a property which differs, giving a
+   * property which is likely to differ a negative {@code equalsOrder} can speed up comparisons of unequal instances.
+   */
+  public int equalsOrder() default 0;
+
+  /**
+   * The position of this property in the ordering imposed by {@link org.pojomatic.Pojomator#doCompare(Object, Object)}
+   * and {@link org.pojomatic.Pojomatic#comparator(Class)}, relative to the other properties of the class. Properties
+   * with a lower {@code compareOrder} are compared first, so that they take precedence; properties with the same
+   * {@code compareOrder} are compared in declaration order.
+   */
+  public int compareOrder() default 0;
+
+  /**
+   * How to compute the hash code of this property, if it is a one-dimensional array of a primitive type.
+   * @see ArrayStrategy
+   */
+  public ArrayStrategy arrayStrategy() default ArrayStrategy.STANDARD;
 }
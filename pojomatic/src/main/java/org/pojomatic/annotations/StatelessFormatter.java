@@ -0,0 +1,37 @@
+package org.pojomatic.annotations;
+
+import static java.lang.annotation.ElementType.TYPE;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.pojomatic.formatter.EnhancedPojoFormatter;
+
+/**
+ * Declares that a pojo formatter keeps no state from one {@code toString} call to the next, and is safe to use from
+ * several threads at once. A single instance of such a formatter is shared by all {@code toString} calls for a POJO
+ * class, instead of a new instance being constructed for each call. If the text it appends is also
+ * {@link #constant() constant}, it is not called when formatting at all.
+ * <p>
+ * A formatter class which has no instance fields (including in its superclasses) is treated this way without being
+ * annotated. Note that {@link org.pojomatic.formatter.DefaultEnhancedPojoFormatter DefaultEnhancedPojoFormatter}
+ * does have state, so subclasses of it must not be annotated with {@code @StatelessFormatter}.
+ *
+ * @see PojoFormat
+ * @see EnhancedPojoFormatter
+ */
+@Target(TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface StatelessFormatter {
+
+  /**
+   * Whether the text the formatter appends depends on nothing but the POJO class or property passed to each method,
+   * and on what the formatter itself appended earlier in the same {@code toString} representation. If so, the text
+   * is computed once, when the Pojomator for a POJO class is created, and appended as constant strings, without
+   * calling the formatter at all.
+   */
+  boolean constant() default false;
+}
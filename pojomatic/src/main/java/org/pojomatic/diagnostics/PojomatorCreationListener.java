@@ -0,0 +1,29 @@
+package org.pojomatic.diagnostics;
+
+import org.pojomatic.Pojomatic;
+
+/**
+ * A listener which is notified of the time spent creating {@link org.pojomatic.Pojomator Pojomator}s. Listeners are
+ * registered with {@link Pojomatic#addPojomatorCreationListener(PojomatorCreationListener)}; when none are
+ * registered, no timings are taken.
+ * <p>
+ * Implementations must be thread safe, as Pojomators may be created concurrently, and should return quickly.
+ *
+ * @see PojomatorCreationStatistics
+ */
+public interface PojomatorCreationListener {
+  /**
+   * Note that a phase of work has completed for a class.
+   * @param pojoClass the class the work was done for
+   * @param phase the phase of work
+   * @param nanos the time spent, in nanoseconds
+   */
+  void phaseCompleted(Class<?> pojoClass, PojomatorCreationPhase phase, long nanos);
+
+  /**
+   * Note that a Pojomator class has been generated for a class.
+   * @param pojoClass the class the Pojomator class was generated for
+   * @param classSize the size, in bytes, of the generated class file
+   */
+  void pojomatorClassGenerated(Class<?> pojoClass, int classSize);
+}
@@ -0,0 +1,34 @@
+package org.pojomatic.diagnostics;
+
+/**
+ * The phases of work involved in creating a {@link org.pojomatic.Pojomator Pojomator}.
+ */
+public enum PojomatorCreationPhase {
+  /**
+   * Finding the properties of a class via reflection, including {@link #CLASS_SCAN scanning} any classes in its
+   * hierarchy which have not yet been scanned.
+   */
+  CLASS_PROPERTIES,
+
+  /**
+   * Reading the class file of a class to determine the declaration order of its members. This is reported for each
+   * class in the hierarchy of a POJO class, the first time it is examined.
+   */
+  CLASS_SCAN,
+
+  /**
+   * Generating the byte code for a Pojomator class.
+   */
+  BYTE_CODE_GENERATION,
+
+  /**
+   * Finding a prebuilt Pojomator class, or defining a generated one, and initializing it.
+   */
+  CLASS_DEFINITION,
+
+  /**
+   * Linking the call site used by a Pojomator to access a single property. This happens the first time the property
+   * is accessed, rather than when the Pojomator is created.
+   */
+  CALL_SITE_LINKING
+}
@@ -0,0 +1,165 @@
+package org.pojomatic.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link PojomatorCreationListener} which accumulates the time spent in each phase of Pojomator creation for each
+ * class, along with the size of any generated Pojomator class. Classes are identified by name, so that statistics do
+ * not prevent classes from being unloaded. For example:
+ * <pre>
+ * PojomatorCreationStatistics statistics = new PojomatorCreationStatistics();
+ * Pojomatic.addPojomatorCreationListener(statistics);
+ * // ... start up ...
+ * Pojomatic.removePojomatorCreationListener(statistics);
+ * System.out.println(statistics.summary());
+ * </pre>
+ */
+public class PojomatorCreationStatistics implements PojomatorCreationListener {
+  private static final PojomatorCreationPhase[] PHASES = PojomatorCreationPhase.values();
+
+  private static final class ClassStatistics {
+    final String className;
+    final AtomicLongArray nanos = new AtomicLongArray(PHASES.length);
+    final AtomicInteger classSize = new AtomicInteger();
+
+    ClassStatistics(String className) {
+      this.className = className;
+    }
+
+    long totalNanos() {
+      return PojomatorCreationStatistics.totalNanos(nanos);
+    }
+  }
+
+  private final ConcurrentMap<String, ClassStatistics> statistics = new ConcurrentHashMap<>();
+
+  @Override
+  public void phaseCompleted(Class<?> pojoClass, PojomatorCreationPhase phase, long nanos) {
+    getClassStatistics(pojoClass.getName()).nanos.addAndGet(phase.ordinal(), nanos);
+  }
+
+  @Override
+  public void pojomatorClassGenerated(Class<?> pojoClass, int classSize) {
+    getClassStatistics(pojoClass.getName()).classSize.set(classSize);
+  }
+
+  /**
+   * Get the total time spent in a phase for a class.
+   * @param className the name of the class
+   * @param phase the phase
+   * @return the time spent, in nanoseconds
+   */
+  public long getNanos(String className, PojomatorCreationPhase phase) {
+    ClassStatistics classStatistics = statistics.get(className);
+    return classStatistics == null ? 0 : classStatistics.nanos.get(phase.ordinal());
+  }
+
+  /**
+   * Get the total time spent in a phase, over all classes.
+   * @param phase the phase
+   * @return the time spent, in nanoseconds
+   */
+  public long getTotalNanos(PojomatorCreationPhase phase) {
+    long total = 0;
+    for (ClassStatistics classStatistics: statistics.values()) {
+      total += classStatistics.nanos.get(phase.ordinal());
+    }
+    return total;
+  }
+
+  /**
+   * Get the size of the Pojomator class generated for a class.
+   * @param className the name of the class
+   * @return the size, in bytes, of the generated class file, or 0 if none was generated (for example, because a
+   * prebuilt Pojomator class was used).
+   */
+  public int getClassSize(String className) {
+    ClassStatistics classStatistics = statistics.get(className);
+    return classStatistics == null ? 0 : classStatistics.classSize.get();
+  }
+
+  /**
+   * Discard all statistics gathered so far.
+   */
+  public void reset() {
+    statistics.clear();
+  }
+
+  /**
+   * Summarize the statistics gathered so far, as a tab-separated table with one row per class, most expensive first,
+   * followed by a row of totals. Times are in microseconds. Since scanning a class is part of finding its properties,
+   * the {@code TOTAL} column does not count {@link PojomatorCreationPhase#CLASS_SCAN CLASS_SCAN} separately.
+   * @return a summary of the statistics
+   */
+  public String summary() {
+    List<ClassStatistics> rows = new ArrayList<>(statistics.values());
+    Collections.sort(rows, new Comparator<ClassStatistics>() {
+      @Override
+      public int compare(ClassStatistics first, ClassStatistics second) {
+        long firstTotal = first.totalNanos();
+        long secondTotal = second.totalNanos();
+        return firstTotal < secondTotal ? 1 : firstTotal == secondTotal ? 0 : -1;
+      }
+    });
+
+    StringBuilder summary = new StringBuilder("class");
+    for (PojomatorCreationPhase phase: PHASES) {
+      summary.append('\t').append(phase);
+    }
+    summary.append("\tTOTAL\tCLASS_SIZE\n");
+    AtomicLongArray totals = new AtomicLongArray(PHASES.length);
+    for (ClassStatistics row: rows) {
+      summary.append(row.className);
+      for (int i = 0; i < PHASES.length; i++) {
+        long nanos = row.nanos.get(i);
+        totals.addAndGet(i, nanos);
+        summary.append('\t').append(nanos / 1000);
+      }
+      summary.append('\t').append(row.totalNanos() / 1000).append('\t').append(row.classSize.get()).append('\n');
+    }
+    summary.append("TOTAL");
+    for (int i = 0; i < PHASES.length; i++) {
+      summary.append('\t').append(totals.get(i) / 1000);
+    }
+    summary.append('\t').append(totalNanos(totals) / 1000).append('\n');
+    return summary.toString();
+  }
+
+  @Override
+  public String toString() {
+    return summary();
+  }
+
+  /**
+   * Sum the time spent in each phase, other than {@link PojomatorCreationPhase#CLASS_SCAN CLASS_SCAN}, which is
+   * already included in {@link PojomatorCreationPhase#CLASS_PROPERTIES CLASS_PROPERTIES}.
+   */
+  private static long totalNanos(AtomicLongArray nanos) {
+    long total = 0;
+    for (PojomatorCreationPhase phase: PHASES) {
+      if (phase != PojomatorCreationPhase.CLASS_SCAN) {
+        total += nanos.get(phase.ordinal());
+      }
+    }
+    return total;
+  }
+
+  private ClassStatistics getClassStatistics(String className) {
+    ClassStatistics classStatistics = statistics.get(className);
+    if (classStatistics == null) {
+      ClassStatistics newStatistics = new ClassStatistics(className);
+      classStatistics = statistics.putIfAbsent(className, newStatistics);
+      if (classStatistics == null) {
+        classStatistics = newStatistics;
+      }
+    }
+    return classStatistics;
+  }
+}
@@ -0,0 +1,6 @@
+/**
+ * Opt-in instrumentation of the work Pojomatic does to create {@link org.pojomatic.Pojomator Pojomator}s, to help
+ * decide which classes are worth {@link org.pojomatic.Pojomatic#preload(java.util.Collection) preloading} or
+ * generating ahead of time.
+ */
+package org.pojomatic.diagnostics;
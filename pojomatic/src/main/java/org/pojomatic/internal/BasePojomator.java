@@ -1,28 +1,71 @@
 package org.pojomatic.internal;
 
+import java.io.IOException;
 import java.lang.invoke.CallSite;
 import java.lang.invoke.ConstantCallSite;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
+import org.pojomatic.HashSink;
+import org.pojomatic.NoPojomaticPropertiesException;
+import org.pojomatic.Pojomatic;
 import org.pojomatic.Pojomator;
 import org.pojomatic.PropertyElement;
 
 public abstract class BasePojomator<T> implements Pojomator<T> {
+  /**
+   * The prefix of the names of dynamic methods which compare values of a property using the Pojomator of the
+   * property's type.
+   */
+  static final String NESTED_EQUALS_PREFIX = "neq_";
+
+  /**
+   * The prefix of the names of dynamic methods which hash values of a property using the Pojomator of the property's
+   * type.
+   */
+  static final String NESTED_HASH_CODE_PREFIX = "nhc_";
+
+  /**
+   * The capacity of the first {@code StringBuilder} created by {@code doToString}, before any lengths are known.
+   */
+  static final int INITIAL_TO_STRING_CAPACITY = 16;
+
+  /**
+   * The largest capacity {@code doToString} will give a new {@code StringBuilder}, so that one very long
+   * {@code toString} representation does not make every later call allocate a large buffer.
+   */
+  static final int MAX_TO_STRING_CAPACITY = 8192;
+
   private final Class<?> pojoClass;
   private final ClassProperties classProperties;
+  private final HashCodeCache hashCodeCache;
+
+  /**
+   * The capacity to give the next {@code StringBuilder} created by {@code doToString}. This rises immediately to the
+   * length of any longer {@code toString} representation, and decays slowly towards the length of shorter ones. It is
+   * read and written without synchronization, since a lost update costs no more than a resize.
+   */
+  private int toStringCapacity = INITIAL_TO_STRING_CAPACITY;
 
   protected BasePojomator(Class<?> pojoClass, ClassProperties classProperties) {
     this.pojoClass = pojoClass;
     this.classProperties = classProperties;
+    this.hashCodeCache = HashCodeCache.forClass(classProperties);
   }
 
   @Override
@@ -57,6 +100,77 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
     builder.append("}");
   }
 
+  /**
+   * Compute the hash code of an instance, without consulting any cache. For a class whose hash codes are cached, the
+   * generated Pojomator implements this method to do the work usually done by {@link #doHashCode(Object)}, and
+   * implements {@code doHashCode} by calling {@link #cachedHashCode(Object)}. For other classes, this method just
+   * calls {@code doHashCode}.
+   * @param pojo the instance to compute the hash code of
+   * @return the hash code of {@code pojo}
+   */
+  protected abstract int computeHashCode(Object pojo);
+
+  /**
+   * Get the hash code of an instance of a class whose hash codes are cached, computing it if need be.
+   * @param pojo the instance to get the hash code of
+   * @return the hash code of {@code pojo}
+   * @see org.pojomatic.annotations.CacheHashCode
+   */
+  protected int cachedHashCode(Object pojo) {
+    return hashCodeCache.hashCode(this, checkNotNull(pojo));
+  }
+
+  /**
+   * Check whether two instances of a class whose hash codes are cached are known to be unequal because their hash codes
+   * have already been computed, and differ. This is only checked for instances of the class this Pojomator was created
+   * for, since the hash code of an instance of a subclass may have been computed by a different Pojomator. Generated
+   * code only calls this when hash codes are cached in a field, since a lookup in a table costs more than it saves.
+   * @param pojo1 the first instance to compare, which must not be {@code null}
+   * @param pojo2 the second instance to compare, which must not be {@code null}
+   * @return {@code true} if {@code pojo1} and {@code pojo2} are known to be unequal
+   */
+  protected boolean cachedHashCodesDiffer(Object pojo1, Object pojo2) {
+    return pojo1.getClass() == pojoClass && pojo2.getClass() == pojoClass
+      && hashCodeCache.haveDifferentHashCodes(pojo1, pojo2);
+  }
+
+  /**
+   * Create the {@code StringBuilder} for {@code doToString} to append to, with a capacity based on the lengths of
+   * previous {@code toString} representations.
+   * @return a new {@code StringBuilder}
+   */
+  protected StringBuilder newToStringBuilder() {
+    return new StringBuilder(toStringCapacity);
+  }
+
+  /**
+   * Get the contents of a {@code StringBuilder} created by {@link #newToStringBuilder()}, and take its length into
+   * account when sizing later ones.
+   * @param builder the builder {@code doToString} appended to
+   * @return the contents of {@code builder}
+   */
+  protected String finishToString(StringBuilder builder) {
+    int length = builder.length();
+    int capacity = toStringCapacity;
+    if (length > capacity) {
+      if (capacity < MAX_TO_STRING_CAPACITY) {
+        toStringCapacity = Math.min(length, MAX_TO_STRING_CAPACITY);
+      }
+    }
+    else if (length < capacity - (capacity >> 2)) {
+      // decay by an eighth of the excess, so that an occasional short representation has little effect
+      toStringCapacity = capacity - ((capacity - length) >> 3);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * @return the capacity the next {@code StringBuilder} created by {@link #newToStringBuilder()} will have
+   */
+  int toStringCapacity() {
+    return toStringCapacity;
+  }
+
   /**
    * Construct a call site for a property accessor. Because {@code pojoClass} might not be a public class, the
    * parameter in {@code methodType} cannot be {@code pojoClass}, but instead must be just {@code Object.class}. The
@@ -75,10 +189,63 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
   protected static CallSite bootstrap(
       MethodHandles.Lookup caller, String name, MethodType methodType, Class<?> pojomatorClass)
       throws Throwable {
-    return new ConstantCallSite(
-      MethodHandles.explicitCastArguments(
-        getTypedMethod(caller, name, pojomatorClass),
-        MethodType.methodType(methodType.returnType(), Object.class)));
+    long startTime = CreationListeners.startTime();
+    CallSite callSite;
+    if (name.startsWith(NESTED_EQUALS_PREFIX) || name.startsWith(NESTED_HASH_CODE_PREFIX)) {
+      callSite = new ConstantCallSite(getNestedMethod(name, pojomatorClass));
+    }
+    else {
+      callSite = new ConstantCallSite(
+        MethodHandles.explicitCastArguments(
+          getTypedMethod(caller, name, pojomatorClass),
+          MethodType.methodType(methodType.returnType(), Object.class)));
+    }
+    CreationListeners.callSiteLinked(pojomatorClass, startTime);
+    return callSite;
+  }
+
+  /**
+   * Get a method handle which compares or hashes values of a property whose type is a final class implementing
+   * {@code equals} or {@code hashCode} by delegating to {@link Pojomatic}, by calling the Pojomator for that class
+   * directly. The Pojomator is looked up when the call site is first linked, rather than when the Pojomator calling it
+   * is created, so that classes whose properties refer to each other, or to themselves, can be handled.
+   * @param name the name of the dynamic method; either {@link #NESTED_EQUALS_PREFIX} or
+   * {@link #NESTED_HASH_CODE_PREFIX}, followed by the qualified name of the property
+   * @param pojomatorClass the type of the pojomator class
+   * @return a method handle of type {@code (Object, Object)boolean} for equals, or {@code (Object)int} for hashCode
+   */
+  private static MethodHandle getNestedMethod(String name, Class<?> pojomatorClass) throws Throwable {
+    boolean isEquals = name.startsWith(NESTED_EQUALS_PREFIX);
+    Pojomator<?> pojomator;
+    try {
+      pojomator = Pojomatic.pojomator(getPropertyElement(name, pojomatorClass).getPropertyType());
+    }
+    catch (NoPojomaticPropertiesException e) {
+      // the property's own equals or hashCode would throw the same exception; let it
+      return isEquals
+        ? MethodHandles.lookup().findStatic(
+          Objects.class, "equals", MethodType.methodType(boolean.class, Object.class, Object.class))
+        : MethodHandles.lookup().findVirtual(Object.class, "hashCode", MethodType.methodType(int.class));
+    }
+    return isEquals
+      ? MethodHandles.lookup().findStatic(
+          BasePojomator.class,
+          "nestedEquals",
+          MethodType.methodType(boolean.class, Pojomator.class, Object.class, Object.class))
+        .bindTo(pojomator)
+      : MethodHandles.lookup().findVirtual(
+          Pojomator.class, "doHashCode", MethodType.methodType(int.class, Object.class))
+        .bindTo(pojomator);
+  }
+
+  /**
+   * Compare two property values for equality as {@link Objects#equals(Object, Object)} would, given that the first
+   * value's {@code equals} method would return {@code pojomator.doEquals(instanceValue, otherValue)}.
+   */
+  @SuppressWarnings("unchecked")
+  private static boolean nestedEquals(Pojomator<?> pojomator, Object instanceValue, Object otherValue) {
+    return instanceValue == otherValue
+      || (instanceValue != null && ((Pojomator<Object>) pojomator).doEquals(instanceValue, otherValue));
   }
 
   /**
@@ -108,6 +275,140 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
     return true;
   }
 
+  /**
+   * Compare two property values which are not of primitive type, as documented on
+   * {@link Pojomator#doCompare(Object, Object)}.
+   * @param instanceValue the first value to compare
+   * @param otherValue the second value to compare
+   * @return a negative integer, zero, or a positive integer as {@code instanceValue} is less than, equal to, or greater
+   * than {@code otherValue}
+   * @throws ClassCastException if the values are neither arrays nor {@code Comparable}, or are arrays of different
+   * types
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  protected static int compareValues(Object instanceValue, Object otherValue) {
+    if (instanceValue == otherValue) {
+      return 0;
+    }
+    if (instanceValue == null) {
+      return -1;
+    }
+    if (otherValue == null) {
+      return 1;
+    }
+    if (instanceValue instanceof Object[]) {
+      Object[] instanceArray = (Object[]) instanceValue;
+      Object[] otherArray = (Object[]) otherValue;
+      int length = Math.min(instanceArray.length, otherArray.length);
+      for (int i = 0; i < length; i++) {
+        int comparison = compareValues(instanceArray[i], otherArray[i]);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return Integer.compare(instanceArray.length, otherArray.length);
+    }
+    else if (instanceValue instanceof int[]) {
+      int[] instanceArray = (int[]) instanceValue;
+      int[] otherArray = (int[]) otherValue;
+      int length = Math.min(instanceArray.length, otherArray.length);
+      for (int i = 0; i < length; i++) {
+        int comparison = Integer.compare(instanceArray[i], otherArray[i]);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return Integer.compare(instanceArray.length, otherArray.length);
+    }
+    else if (instanceValue instanceof byte[]) {
+      byte[] instanceArray = (byte[]) instanceValue;
+      byte[] otherArray = (byte[]) otherValue;
+      int length = Math.min(instanceArray.length, otherArray.length);
+      for (int i = 0; i < length; i++) {
+        int comparison = Byte.compare(instanceArray[i], otherArray[i]);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return Integer.compare(instanceArray.length, otherArray.length);
+    }
+    else if (instanceValue instanceof long[]) {
+      long[] instanceArray = (long[]) instanceValue;
+      long[] otherArray = (long[]) otherValue;
+      int length = Math.min(instanceArray.length, otherArray.length);
+      for (int i = 0; i < length; i++) {
+        int comparison = Long.compare(instanceArray[i], otherArray[i]);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return Integer.compare(instanceArray.length, otherArray.length);
+    }
+    else if (instanceValue instanceof char[]) {
+      char[] instanceArray = (char[]) instanceValue;
+      char[] otherArray = (char[]) otherValue;
+      int length = Math.min(instanceArray.length, otherArray.length);
+      for (int i = 0; i < length; i++) {
+        int comparison = Character.compare(instanceArray[i], otherArray[i]);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return Integer.compare(instanceArray.length, otherArray.length);
+    }
+    else if (instanceValue instanceof double[]) {
+      double[] instanceArray = (double[]) instanceValue;
+      double[] otherArray = (double[]) otherValue;
+      int length = Math.min(instanceArray.length, otherArray.length);
+      for (int i = 0; i < length; i++) {
+        int comparison = Double.compare(instanceArray[i], otherArray[i]);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return Integer.compare(instanceArray.length, otherArray.length);
+    }
+    else if (instanceValue instanceof float[]) {
+      float[] instanceArray = (float[]) instanceValue;
+      float[] otherArray = (float[]) otherValue;
+      int length = Math.min(instanceArray.length, otherArray.length);
+      for (int i = 0; i < length; i++) {
+        int comparison = Float.compare(instanceArray[i], otherArray[i]);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return Integer.compare(instanceArray.length, otherArray.length);
+    }
+    else if (instanceValue instanceof short[]) {
+      short[] instanceArray = (short[]) instanceValue;
+      short[] otherArray = (short[]) otherValue;
+      int length = Math.min(instanceArray.length, otherArray.length);
+      for (int i = 0; i < length; i++) {
+        int comparison = Short.compare(instanceArray[i], otherArray[i]);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return Integer.compare(instanceArray.length, otherArray.length);
+    }
+    else if (instanceValue instanceof boolean[]) {
+      boolean[] instanceArray = (boolean[]) instanceValue;
+      boolean[] otherArray = (boolean[]) otherValue;
+      int length = Math.min(instanceArray.length, otherArray.length);
+      for (int i = 0; i < length; i++) {
+        int comparison = Boolean.compare(instanceArray[i], otherArray[i]);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return Integer.compare(instanceArray.length, otherArray.length);
+    }
+    else {
+      return ((Comparable) instanceValue).compareTo(otherValue);
+    }
+  }
+
   /**
    * Compare two values of array type for equality. They will be considered
    * equal iff they have the same class, and (recursively) an equal set of elements.
@@ -125,9 +426,9 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
     if (!instanceValue.getClass().equals(otherValue.getClass())) {
       return false;
     }
-    final Class<?> instanceComponentClass = instanceValue.getClass().getComponentType();
-
-    if (!instanceComponentClass.isPrimitive()) {
+    // Both values have the same class, so only one needs to be examined. Checking instanceof is cheaper than examining
+    // the component type, and lets the JIT profile which array types are actually seen.
+    if (instanceValue instanceof Object[]) {
       Object[] instanceArray = (Object[]) instanceValue;
       Object[] otherArray = (Object[]) otherValue;
       if (instanceArray.length != otherArray.length) {
@@ -140,36 +441,33 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
       }
       return true;
     }
-    else { // instanceComponentClass is primitive
-      if (Boolean.TYPE == instanceComponentClass) {
-        return Arrays.equals((boolean[]) instanceValue, (boolean[]) otherValue);
-      }
-      else if (Byte.TYPE == instanceComponentClass) {
-        return Arrays.equals((byte[]) instanceValue, (byte[]) otherValue);
-      }
-      else if (Character.TYPE == instanceComponentClass) {
-        return Arrays.equals((char[]) instanceValue, (char[]) otherValue);
-      }
-      else if (Short.TYPE == instanceComponentClass) {
-        return Arrays.equals((short[]) instanceValue, (short[]) otherValue);
-      }
-      else if (Integer.TYPE == instanceComponentClass) {
-        return Arrays.equals((int[]) instanceValue, (int[]) otherValue);
-      }
-      else if (Long.TYPE == instanceComponentClass) {
-        return Arrays.equals((long[]) instanceValue, (long[]) otherValue);
-      }
-      else if (Float.TYPE == instanceComponentClass) {
-        return Arrays.equals((float[]) instanceValue, (float[]) otherValue);
-      }
-      else if (Double.TYPE == instanceComponentClass) {
-        return Arrays.equals((double[]) instanceValue, (double[]) otherValue);
-      }
-      else {
-        // should NEVER happen
-        throw new IllegalStateException(
-          "unknown primitive type " + instanceComponentClass.getName());
-      }
+    else if (instanceValue instanceof int[]) {
+      return Arrays.equals((int[]) instanceValue, (int[]) otherValue);
+    }
+    else if (instanceValue instanceof byte[]) {
+      return Arrays.equals((byte[]) instanceValue, (byte[]) otherValue);
+    }
+    else if (instanceValue instanceof long[]) {
+      return Arrays.equals((long[]) instanceValue, (long[]) otherValue);
+    }
+    else if (instanceValue instanceof char[]) {
+      return Arrays.equals((char[]) instanceValue, (char[]) otherValue);
+    }
+    else if (instanceValue instanceof double[]) {
+      return Arrays.equals((double[]) instanceValue, (double[]) otherValue);
+    }
+    else if (instanceValue instanceof float[]) {
+      return Arrays.equals((float[]) instanceValue, (float[]) otherValue);
+    }
+    else if (instanceValue instanceof short[]) {
+      return Arrays.equals((short[]) instanceValue, (short[]) otherValue);
+    }
+    else if (instanceValue instanceof boolean[]) {
+      return Arrays.equals((boolean[]) instanceValue, (boolean[]) otherValue);
+    }
+    else {
+      // should NEVER happen
+      throw new IllegalStateException("unknown array type " + instanceValue.getClass().getName());
     }
   }
 
@@ -182,35 +480,783 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
    * @return the hashCode
    */
   protected static int arrayHashCode(Object array, boolean deepArray) {
-    Class<?> componentType = array.getClass().getComponentType();
-    if (! componentType.isPrimitive()) {
+    if (array instanceof Object[]) {
       return deepArray ? Arrays.deepHashCode((Object[]) array) : Arrays.hashCode((Object[]) array);
     }
-    if (componentType == boolean.class) {
-      return Arrays.hashCode((boolean[]) array);
+    if (array instanceof int[]) {
+      return Arrays.hashCode((int[]) array);
     }
-    if (componentType == byte.class) {
+    if (array instanceof byte[]) {
       return Arrays.hashCode((byte[]) array);
     }
-    if (componentType == char.class) {
+    if (array instanceof long[]) {
+      return Arrays.hashCode((long[]) array);
+    }
+    if (array instanceof char[]) {
       return Arrays.hashCode((char[]) array);
     }
-    if (componentType == short.class) {
+    if (array instanceof double[]) {
+      return Arrays.hashCode((double[]) array);
+    }
+    if (array instanceof float[]) {
+      return Arrays.hashCode((float[]) array);
+    }
+    if (array instanceof short[]) {
       return Arrays.hashCode((short[]) array);
     }
-    if (componentType == int.class) {
-      return Arrays.hashCode((int[]) array);
+    if (array instanceof boolean[]) {
+      return Arrays.hashCode((boolean[]) array);
     }
-    if (componentType == long.class) {
-      return Arrays.hashCode((long[]) array);
+    throw new IllegalStateException("unknown array type " + array.getClass().getName());
+  }
+
+  /*
+   * Hash codes for properties using ArrayStrategy.VECTOR. These give the same results as Arrays.hashCode, but take four
+   * elements per step, multiplying the running hash code by 31^4 once rather than by 31 four times in succession. The
+   * terms for the four elements do not depend on each other, so the processor can compute them in parallel.
+   */
+
+  protected static int vectorHashCode(boolean[] array) {
+    int length = array.length;
+    int hashCode = 1;
+    int i = 0;
+    for (; i + 3 < length; i += 4) {
+      hashCode = 923521 * hashCode
+        + 29791 * (array[i] ? 1231 : 1237)
+        + 961 * (array[i + 1] ? 1231 : 1237)
+        + 31 * (array[i + 2] ? 1231 : 1237)
+        + (array[i + 3] ? 1231 : 1237);
     }
-    if (componentType == float.class) {
-      return Arrays.hashCode((float[]) array);
+    for (; i < length; i++) {
+      hashCode = 31 * hashCode + (array[i] ? 1231 : 1237);
     }
-    if (componentType == double.class) {
-      return Arrays.hashCode((double[]) array);
+    return hashCode;
+  }
+
+  protected static int vectorHashCode(byte[] array) {
+    int length = array.length;
+    int hashCode = 1;
+    int i = 0;
+    for (; i + 3 < length; i += 4) {
+      hashCode = 923521 * hashCode
+        + 29791 * array[i]
+        + 961 * array[i + 1]
+        + 31 * array[i + 2]
+        + array[i + 3];
+    }
+    for (; i < length; i++) {
+      hashCode = 31 * hashCode + array[i];
+    }
+    return hashCode;
+  }
+
+  protected static int vectorHashCode(char[] array) {
+    int length = array.length;
+    int hashCode = 1;
+    int i = 0;
+    for (; i + 3 < length; i += 4) {
+      hashCode = 923521 * hashCode
+        + 29791 * array[i]
+        + 961 * array[i + 1]
+        + 31 * array[i + 2]
+        + array[i + 3];
+    }
+    for (; i < length; i++) {
+      hashCode = 31 * hashCode + array[i];
+    }
+    return hashCode;
+  }
+
+  protected static int vectorHashCode(short[] array) {
+    int length = array.length;
+    int hashCode = 1;
+    int i = 0;
+    for (; i + 3 < length; i += 4) {
+      hashCode = 923521 * hashCode
+        + 29791 * array[i]
+        + 961 * array[i + 1]
+        + 31 * array[i + 2]
+        + array[i + 3];
+    }
+    for (; i < length; i++) {
+      hashCode = 31 * hashCode + array[i];
+    }
+    return hashCode;
+  }
+
+  protected static int vectorHashCode(int[] array) {
+    int length = array.length;
+    int hashCode = 1;
+    int i = 0;
+    for (; i + 3 < length; i += 4) {
+      hashCode = 923521 * hashCode
+        + 29791 * array[i]
+        + 961 * array[i + 1]
+        + 31 * array[i + 2]
+        + array[i + 3];
+    }
+    for (; i < length; i++) {
+      hashCode = 31 * hashCode + array[i];
+    }
+    return hashCode;
+  }
+
+  protected static int vectorHashCode(long[] array) {
+    int length = array.length;
+    int hashCode = 1;
+    int i = 0;
+    for (; i + 3 < length; i += 4) {
+      hashCode = 923521 * hashCode
+        + 29791 * longHashCode(array[i])
+        + 961 * longHashCode(array[i + 1])
+        + 31 * longHashCode(array[i + 2])
+        + longHashCode(array[i + 3]);
+    }
+    for (; i < length; i++) {
+      hashCode = 31 * hashCode + longHashCode(array[i]);
+    }
+    return hashCode;
+  }
+
+  protected static int vectorHashCode(float[] array) {
+    int length = array.length;
+    int hashCode = 1;
+    int i = 0;
+    for (; i + 3 < length; i += 4) {
+      hashCode = 923521 * hashCode
+        + 29791 * Float.floatToIntBits(array[i])
+        + 961 * Float.floatToIntBits(array[i + 1])
+        + 31 * Float.floatToIntBits(array[i + 2])
+        + Float.floatToIntBits(array[i + 3]);
+    }
+    for (; i < length; i++) {
+      hashCode = 31 * hashCode + Float.floatToIntBits(array[i]);
+    }
+    return hashCode;
+  }
+
+  protected static int vectorHashCode(double[] array) {
+    int length = array.length;
+    int hashCode = 1;
+    int i = 0;
+    for (; i + 3 < length; i += 4) {
+      hashCode = 923521 * hashCode
+        + 29791 * longHashCode(Double.doubleToLongBits(array[i]))
+        + 961 * longHashCode(Double.doubleToLongBits(array[i + 1]))
+        + 31 * longHashCode(Double.doubleToLongBits(array[i + 2]))
+        + longHashCode(Double.doubleToLongBits(array[i + 3]));
+    }
+    for (; i < length; i++) {
+      hashCode = 31 * hashCode + longHashCode(Double.doubleToLongBits(array[i]));
+    }
+    return hashCode;
+  }
+
+  private static int longHashCode(long value) {
+    return (int) (value ^ (value >>> 32));
+  }
+
+  /*
+   * Mixing functions for HashStrategy.MURMUR3 and HashStrategy.XXHASH. The generated doHashCode method starts with the
+   * seed, mixes in the hash code of each property in turn, and then applies the finish function. The hash code of each
+   * property is treated as a four byte block. For MURMUR3, the result is that of MurmurHash3_x86_32 applied to the
+   * little-endian bytes of the property hash codes. For XXHASH, the steps are those XXH32 uses for inputs shorter than
+   * 16 bytes, so the result only matches XXH32 itself for fewer than four properties; with more, XXH32 would switch to
+   * its four accumulator stripe loop, which is not used here.
+   */
+
+  static final int MURMUR3_SEED = 0;
+
+  protected static int murmur3Mix(int hashCode, int value) {
+    int k = value * 0xcc9e2d51;
+    k = Integer.rotateLeft(k, 15);
+    k *= 0x1b873593;
+    int h = hashCode ^ k;
+    h = Integer.rotateLeft(h, 13);
+    return h * 5 + 0xe6546b64;
+  }
+
+  protected static int murmur3Finish(int hashCode, int propertyCount) {
+    int h = hashCode ^ (propertyCount * 4);
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    return h ^ (h >>> 16);
+  }
+
+  static int xxHashSeed(int propertyCount) {
+    return 0x165667b1 + propertyCount * 4;
+  }
+
+  protected static int xxHashMix(int hashCode, int value) {
+    int h = hashCode + value * 0xc2b2ae3d;
+    return Integer.rotateLeft(h, 17) * 0x27d4eb2f;
+  }
+
+  protected static int xxHashFinish(int hashCode) {
+    int h = hashCode ^ (hashCode >>> 15);
+    h *= 0x85ebca77;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae3d;
+    return h ^ (h >>> 16);
+  }
+
+  /*
+   * 64 bit hash codes. The generated doHashCode64 method starts with the seed, mixes in the 64 bit hash code of each
+   * property in turn, and then applies the finish function. The mix and finish functions are the round and avalanche
+   * steps of the 64 bit xxHash function.
+   */
+
+  private static final long PRIME64_1 = 0x9e3779b185ebca87L;
+  private static final long PRIME64_2 = 0xc2b2ae3d27d4eb4fL;
+  private static final long PRIME64_3 = 0x165667b19e3779f9L;
+  private static final long PRIME64_4 = 0x85ebca77c2b2ae63L;
+  private static final long PRIME64_5 = 0x27d4eb2f165667c5L;
+
+  static long hash64Seed(int propertyCount) {
+    return PRIME64_5 + propertyCount * 8L;
+  }
+
+  protected static long hash64Mix(long hashCode, long value) {
+    long k = Long.rotateLeft(value * PRIME64_2, 31) * PRIME64_1;
+    return Long.rotateLeft(hashCode ^ k, 27) * PRIME64_1 + PRIME64_4;
+  }
+
+  protected static long hash64Finish(long hashCode) {
+    long h = hashCode ^ (hashCode >>> 33);
+    h *= PRIME64_2;
+    h ^= h >>> 29;
+    h *= PRIME64_3;
+    return h ^ (h >>> 32);
+  }
+
+  protected static long hashCode64(boolean value) {
+    return value ? 1231 : 1237;
+  }
+
+  /**
+   * Compute the 64 bit hash code of a property value.
+   * @param value the value
+   * @return the 64 bit hash code of {@code value}, as documented on {@link Pojomator#doHashCode64(Object)}
+   */
+  protected static long hashCode64(Object value) {
+    if (value == null) {
+      return 0;
+    }
+    else if (value instanceof String) {
+      return charsHashCode64((String) value);
+    }
+    else if (value instanceof Long) {
+      return (Long) value;
+    }
+    else if (value instanceof Double) {
+      return Double.doubleToLongBits((Double) value);
+    }
+    else if (value instanceof Enum) {
+      return charsHashCode64(((Enum<?>) value).name());
+    }
+    else if (value instanceof Object[]) {
+      long hashCode = 1;
+      for (Object element: (Object[]) value) {
+        hashCode = PRIME64_1 * hashCode + hashCode64(element);
+      }
+      return hashCode;
+    }
+    else if (value instanceof long[]) {
+      long hashCode = 1;
+      for (long element: (long[]) value) {
+        hashCode = PRIME64_1 * hashCode + element;
+      }
+      return hashCode;
+    }
+    else if (value instanceof double[]) {
+      long hashCode = 1;
+      for (double element: (double[]) value) {
+        hashCode = PRIME64_1 * hashCode + Double.doubleToLongBits(element);
+      }
+      return hashCode;
+    }
+    else if (value instanceof int[]) {
+      long hashCode = 1;
+      for (int element: (int[]) value) {
+        hashCode = PRIME64_1 * hashCode + element;
+      }
+      return hashCode;
+    }
+    else if (value instanceof byte[]) {
+      long hashCode = 1;
+      for (byte element: (byte[]) value) {
+        hashCode = PRIME64_1 * hashCode + element;
+      }
+      return hashCode;
+    }
+    else if (value instanceof char[]) {
+      long hashCode = 1;
+      for (char element: (char[]) value) {
+        hashCode = PRIME64_1 * hashCode + element;
+      }
+      return hashCode;
+    }
+    else if (value instanceof short[]) {
+      long hashCode = 1;
+      for (short element: (short[]) value) {
+        hashCode = PRIME64_1 * hashCode + element;
+      }
+      return hashCode;
+    }
+    else if (value instanceof float[]) {
+      long hashCode = 1;
+      for (float element: (float[]) value) {
+        hashCode = PRIME64_1 * hashCode + Float.floatToIntBits(element);
+      }
+      return hashCode;
+    }
+    else if (value instanceof boolean[]) {
+      long hashCode = 1;
+      for (boolean element: (boolean[]) value) {
+        hashCode = PRIME64_1 * hashCode + hashCode64(element);
+      }
+      return hashCode;
+    }
+    else {
+      Pojomator<Object> pojomator = NESTED_POJOMATORS.get(value.getClass());
+      if (pojomator != null) {
+        return pojomator.doHashCode64(value);
+      }
+      else if (value instanceof List) {
+        long hashCode = 1;
+        for (Object element: (List<?>) value) {
+          hashCode = PRIME64_1 * hashCode + hashCode64(element);
+        }
+        return hashCode;
+      }
+      else if (value instanceof Set) {
+        // Like Set.hashCode, the sum of the element hash codes, so that it does not depend on iteration order
+        long hashCode = 0;
+        for (Object element: (Set<?>) value) {
+          hashCode += hashCode64(element);
+        }
+        return hashCode;
+      }
+      else if (value instanceof Map) {
+        // Like Map.hashCode, the sum of the entry hash codes
+        long hashCode = 0;
+        for (Map.Entry<?, ?> entry: ((Map<?, ?>) value).entrySet()) {
+          hashCode += hashCode64(entry.getKey()) ^ hashCode64(entry.getValue());
+        }
+        return hashCode;
+      }
+      else {
+        return value.hashCode();
+      }
+    }
+  }
+
+  private static long charsHashCode64(String string) {
+    long hashCode = 1;
+    for (int i = 0; i < string.length(); i++) {
+      hashCode = PRIME64_1 * hashCode + string.charAt(i);
+    }
+    return hashCode;
+  }
+
+  /**
+   * The Pojomators of classes whose instances are found as property values by {@link #hashCode64(Object)},
+   * {@link #hashValue(Object, HashSink)} or {@link #writeJsonValue(Object, Appendable)}, or {@code null} for classes
+   * without properties for Pojomatic.
+   */
+  private static final ClassValue<Pojomator<Object>> NESTED_POJOMATORS = new ClassValue<Pojomator<Object>>() {
+    @SuppressWarnings("unchecked")
+    @Override
+    protected Pojomator<Object> computeValue(Class<?> type) {
+      try {
+        return (Pojomator<Object>) Pojomatic.pojomator(type);
+      }
+      catch (NoPojomaticPropertiesException e) {
+        return null;
+      }
+    }
+  };
+
+  /**
+   * Feed a property value which is not of primitive type into a sink, as documented on
+   * {@link Pojomator#doHash(Object, HashSink)}.
+   * @param value the value
+   * @param sink the sink
+   */
+  protected static void hashValue(Object value, HashSink sink) {
+    if (value == null) {
+      sink.putBoolean(false);
+      return;
+    }
+    sink.putBoolean(true);
+    if (value instanceof String) {
+      hashString((String) value, sink);
+    }
+    else if (value instanceof Integer) {
+      sink.putInt((Integer) value);
+    }
+    else if (value instanceof Long) {
+      sink.putLong((Long) value);
+    }
+    else if (value instanceof Double) {
+      sink.putDouble((Double) value);
+    }
+    else if (value instanceof Boolean) {
+      sink.putBoolean((Boolean) value);
+    }
+    else if (value instanceof Character) {
+      sink.putChar((Character) value);
+    }
+    else if (value instanceof Byte) {
+      sink.putByte((Byte) value);
+    }
+    else if (value instanceof Short) {
+      sink.putShort((Short) value);
+    }
+    else if (value instanceof Float) {
+      sink.putFloat((Float) value);
+    }
+    else if (value instanceof Enum) {
+      hashString(((Enum<?>) value).name(), sink);
+    }
+    else if (value instanceof byte[]) {
+      byte[] array = (byte[]) value;
+      sink.putInt(array.length);
+      sink.putBytes(array);
+    }
+    else if (value instanceof Object[]) {
+      Object[] array = (Object[]) value;
+      sink.putInt(array.length);
+      for (Object element: array) {
+        hashValue(element, sink);
+      }
+    }
+    else if (value instanceof int[]) {
+      int[] array = (int[]) value;
+      sink.putInt(array.length);
+      for (int element: array) {
+        sink.putInt(element);
+      }
+    }
+    else if (value instanceof long[]) {
+      long[] array = (long[]) value;
+      sink.putInt(array.length);
+      for (long element: array) {
+        sink.putLong(element);
+      }
+    }
+    else if (value instanceof double[]) {
+      double[] array = (double[]) value;
+      sink.putInt(array.length);
+      for (double element: array) {
+        sink.putDouble(element);
+      }
+    }
+    else if (value instanceof char[]) {
+      char[] array = (char[]) value;
+      sink.putInt(array.length);
+      for (char element: array) {
+        sink.putChar(element);
+      }
+    }
+    else if (value instanceof short[]) {
+      short[] array = (short[]) value;
+      sink.putInt(array.length);
+      for (short element: array) {
+        sink.putShort(element);
+      }
+    }
+    else if (value instanceof float[]) {
+      float[] array = (float[]) value;
+      sink.putInt(array.length);
+      for (float element: array) {
+        sink.putFloat(element);
+      }
+    }
+    else if (value instanceof boolean[]) {
+      boolean[] array = (boolean[]) value;
+      sink.putInt(array.length);
+      for (boolean element: array) {
+        sink.putBoolean(element);
+      }
+    }
+    else {
+      Pojomator<Object> pojomator = NESTED_POJOMATORS.get(value.getClass());
+      if (pojomator != null) {
+        pojomator.doHash(value, sink);
+      }
+      else if (value instanceof List) {
+        List<?> list = (List<?>) value;
+        sink.putInt(list.size());
+        for (Object element: list) {
+          hashValue(element, sink);
+        }
+      }
+      else {
+        sink.putInt(value.hashCode());
+      }
+    }
+  }
+
+  private static void hashString(String string, HashSink sink) {
+    sink.putInt(string.length());
+    sink.putString(string);
+  }
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  /**
+   * Write an {@code int} property value as JSON.
+   * @param value the value
+   * @param out where to write the value
+   * @throws IOException if {@code out} does
+   */
+  protected static void writeJson(int value, Appendable out) throws IOException {
+    if (out instanceof StringBuilder) {
+      ((StringBuilder) out).append(value);
+    }
+    else {
+      out.append(Integer.toString(value));
+    }
+  }
+
+  /**
+   * Write a {@code long} property value as JSON.
+   * @param value the value
+   * @param out where to write the value
+   * @throws IOException if {@code out} does
+   */
+  protected static void writeJson(long value, Appendable out) throws IOException {
+    if (out instanceof StringBuilder) {
+      ((StringBuilder) out).append(value);
+    }
+    else {
+      out.append(Long.toString(value));
+    }
+  }
+
+  /**
+   * Write a {@code boolean} property value as JSON.
+   * @param value the value
+   * @param out where to write the value
+   * @throws IOException if {@code out} does
+   */
+  protected static void writeJson(boolean value, Appendable out) throws IOException {
+    out.append(value ? "true" : "false");
+  }
+
+  /**
+   * Write a {@code char} property value as a JSON string.
+   * @param value the value
+   * @param out where to write the value
+   * @throws IOException if {@code out} does
+   */
+  protected static void writeJson(char value, Appendable out) throws IOException {
+    out.append('"');
+    writeJsonChar(value, out);
+    out.append('"');
+  }
+
+  /**
+   * Write a {@code float} property value as JSON. Since JSON numbers cannot be infinite or NaN, such values are
+   * written as strings.
+   * @param value the value
+   * @param out where to write the value
+   * @throws IOException if {@code out} does
+   */
+  protected static void writeJson(float value, Appendable out) throws IOException {
+    if (Float.isNaN(value) || Float.isInfinite(value)) {
+      out.append('"').append(Float.toString(value)).append('"');
+    }
+    else if (out instanceof StringBuilder) {
+      ((StringBuilder) out).append(value);
+    }
+    else {
+      out.append(Float.toString(value));
+    }
+  }
+
+  /**
+   * Write a {@code double} property value as JSON. Since JSON numbers cannot be infinite or NaN, such values are
+   * written as strings.
+   * @param value the value
+   * @param out where to write the value
+   * @throws IOException if {@code out} does
+   */
+  protected static void writeJson(double value, Appendable out) throws IOException {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      out.append('"').append(Double.toString(value)).append('"');
+    }
+    else if (out instanceof StringBuilder) {
+      ((StringBuilder) out).append(value);
+    }
+    else {
+      out.append(Double.toString(value));
+    }
+  }
+
+  /**
+   * Write a property value which is not of primitive type as JSON, as documented on
+   * {@link Pojomator#doWriteJson(Object, Appendable)}.
+   * @param value the value
+   * @param out where to write the value
+   * @throws IOException if {@code out} does
+   */
+  protected static void writeJsonValue(Object value, Appendable out) throws IOException {
+    if (value == null) {
+      out.append("null");
+    }
+    else if (value instanceof String || value instanceof Character) {
+      writeJsonString(value.toString(), out);
+    }
+    else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+      || value instanceof BigInteger || value instanceof BigDecimal || value instanceof Boolean) {
+      out.append(value.toString());
+    }
+    else if (value instanceof Double) {
+      writeJson(((Double) value).doubleValue(), out);
+    }
+    else if (value instanceof Float) {
+      writeJson(((Float) value).floatValue(), out);
+    }
+    else if (value instanceof Enum) {
+      writeJsonString(((Enum<?>) value).name(), out);
+    }
+    else if (value instanceof Object[]) {
+      out.append('[');
+      Object[] array = (Object[]) value;
+      for (int i = 0; i < array.length; i++) {
+        if (i > 0) {
+          out.append(',');
+        }
+        writeJsonValue(array[i], out);
+      }
+      out.append(']');
+    }
+    else if (value.getClass().isArray()) {
+      writePrimitiveJsonArray(value, out);
+    }
+    else {
+      Pojomator<Object> pojomator = NESTED_POJOMATORS.get(value.getClass());
+      if (pojomator != null) {
+        pojomator.doWriteJson(value, out);
+      }
+      else if (value instanceof Iterable) {
+        out.append('[');
+        boolean first = true;
+        for (Object element: (Iterable<?>) value) {
+          if (!first) {
+            out.append(',');
+          }
+          first = false;
+          writeJsonValue(element, out);
+        }
+        out.append(']');
+      }
+      else if (value instanceof Map) {
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry: ((Map<?, ?>) value).entrySet()) {
+          if (!first) {
+            out.append(',');
+          }
+          first = false;
+          writeJsonString(String.valueOf(entry.getKey()), out);
+          out.append(':');
+          writeJsonValue(entry.getValue(), out);
+        }
+        out.append('}');
+      }
+      else {
+        writeJsonString(value.toString(), out);
+      }
+    }
+  }
+
+  private static void writePrimitiveJsonArray(Object array, Appendable out) throws IOException {
+    out.append('[');
+    int length = Array.getLength(array);
+    for (int i = 0; i < length; i++) {
+      if (i > 0) {
+        out.append(',');
+      }
+      if (array instanceof int[]) {
+        writeJson(((int[]) array)[i], out);
+      }
+      else if (array instanceof long[]) {
+        writeJson(((long[]) array)[i], out);
+      }
+      else if (array instanceof double[]) {
+        writeJson(((double[]) array)[i], out);
+      }
+      else if (array instanceof boolean[]) {
+        writeJson(((boolean[]) array)[i], out);
+      }
+      else if (array instanceof char[]) {
+        writeJson(((char[]) array)[i], out);
+      }
+      else if (array instanceof byte[]) {
+        writeJson(((byte[]) array)[i], out);
+      }
+      else if (array instanceof short[]) {
+        writeJson(((short[]) array)[i], out);
+      }
+      else {
+        writeJson(((float[]) array)[i], out);
+      }
+    }
+    out.append(']');
+  }
+
+  /**
+   * Write a JSON string, with quotes and with any characters which need it escaped.
+   * @param string the contents of the string
+   * @param out where to write the string
+   * @throws IOException if {@code out} does
+   */
+  protected static void writeJsonString(CharSequence string, Appendable out) throws IOException {
+    out.append('"');
+    int length = string.length();
+    int unescapedStart = 0;
+    for (int i = 0; i < length; i++) {
+      char c = string.charAt(i);
+      if (c < 0x20 || c == '"' || c == '\\') {
+        out.append(string, unescapedStart, i);
+        writeJsonChar(c, out);
+        unescapedStart = i + 1;
+      }
+    }
+    out.append(string, unescapedStart, length);
+    out.append('"');
+  }
+
+  private static void writeJsonChar(char c, Appendable out) throws IOException {
+    switch (c) {
+      case '"':
+        out.append("\\\"");
+        break;
+      case '\\':
+        out.append("\\\\");
+        break;
+      case '\n':
+        out.append("\\n");
+        break;
+      case '\r':
+        out.append("\\r");
+        break;
+      case '\t':
+        out.append("\\t");
+        break;
+      default:
+        if (c < 0x20) {
+          out.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xf]);
+        }
+        else {
+          out.append(c);
+        }
     }
-    throw new IllegalStateException("unknown primitive type " + componentType.getName());
   }
 
   protected static <T> T checkNotNull(T reference) {
@@ -279,10 +1325,7 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
   private static MethodHandle getTypedMethodPrivileged(
     MethodHandles.Lookup caller, String name, Class<?> pojomatorClass)
     throws NoSuchFieldException, IllegalAccessException {
-    String elementName = "element_" + name.substring(4);
-    Field elementField = pojomatorClass.getDeclaredField(elementName);
-    elementField.setAccessible(true);
-    PropertyElement property = (PropertyElement) elementField.get(null);
+    PropertyElement property = getPropertyElementPrivileged(name, pojomatorClass);
     AnnotatedElement element = property.getElement();
     // Note that while element is a reference to untrusted code, we do not actually invoke this code inside a
     // doPrivileged block - we merely make it accessible to be invoked later, outside of a doPriviliged block
@@ -301,4 +1344,32 @@ public abstract class BasePojomator<T> implements Pojomator<T> {
     }
   }
 
+  /**
+   * Get the property for a dynamic method in a Pojomator class.
+   * @param name the name of the dynamic method, which is a four character prefix followed by the qualified name of the
+   *   property
+   * @param pojomatorClass the type of the pojomator class
+   * @return the property
+   */
+  private static PropertyElement getPropertyElement(final String name, final Class<?> pojomatorClass)
+    throws Throwable {
+    try {
+      return AccessController.doPrivileged(new PrivilegedExceptionAction<PropertyElement>() {
+        @Override
+        public PropertyElement run() throws Exception {
+          return getPropertyElementPrivileged(name, pojomatorClass);
+        }
+      });
+    } catch (PrivilegedActionException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static PropertyElement getPropertyElementPrivileged(String name, Class<?> pojomatorClass)
+    throws NoSuchFieldException, IllegalAccessException {
+    String elementName = "element_" + name.substring(4);
+    Field elementField = pojomatorClass.getDeclaredField(elementName);
+    elementField.setAccessible(true);
+    return (PropertyElement) elementField.get(null);
+  }
 }
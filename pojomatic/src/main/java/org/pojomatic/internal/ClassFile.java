@@ -0,0 +1,346 @@
+package org.pojomatic.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A minimal class file parser, which reads just enough to find the name of a class, the names, descriptors and access
+ * flags of its fields and methods, the types of the annotations on it and on its members, and the byte code of its
+ * methods. See chapter 4 of the Java Virtual Machine Specification for the class file format.
+ * <p>
+ * Unlike ASM's {@code ClassReader}, this does not check the class file version, so it can read class files compiled
+ * for any version of Java, as long as the constant pool holds no kind of entry introduced after Java 11.
+ */
+class ClassFile {
+  static final int ACC_STATIC = 0x0008;
+  static final int ACC_SYNTHETIC = 0x1000;
+
+  private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+  private static final String CODE = "Code";
+
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_METHODREF = 10;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+  /**
+   * A field or method of a class.
+   */
+  class Member {
+    private final int access;
+    private final String name;
+    private final String descriptor;
+    private final int attributesOffset;
+
+    private Member(int access, String name, String descriptor, int attributesOffset) {
+      this.access = access;
+      this.name = name;
+      this.descriptor = descriptor;
+      this.attributesOffset = attributesOffset;
+    }
+
+    int getAccess() {
+      return access;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    String getDescriptor() {
+      return descriptor;
+    }
+
+    /**
+     * @return the descriptors of the types of the runtime visible annotations on this member
+     * @throws IOException if the class file is malformed
+     */
+    List<String> getAnnotationDescriptors() throws IOException {
+      return annotationDescriptors(attributesOffset);
+    }
+
+    /**
+     * @return the byte code of this method, or {@code null} if it is abstract or native, or is a field
+     * @throws IOException if the class file is malformed
+     */
+    byte[] getCode() throws IOException {
+      int offset = findAttribute(attributesOffset, CODE);
+      if (offset < 0) {
+        return null;
+      }
+      int codeLength = readInt(offset + 4); // after max stack and max locals
+      return Arrays.copyOfRange(bytes, offset + 8, offset + 8 + codeLength);
+    }
+  }
+
+  private final byte[] bytes;
+  private int position;
+  /** The tag of each constant pool entry, or {@code 0} for unusable indexes */
+  private byte[] tags;
+  /** For each constant pool entry, the offset of the information following its tag */
+  private int[] entryOffsets;
+  private String className;
+  private final List<Member> fields = new ArrayList<>();
+  private final List<Member> methods = new ArrayList<>();
+  private int attributesOffset;
+
+  private ClassFile(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  /**
+   * Parse a class file.
+   * @param bytes the bytes of the class file
+   * @return the parsed class file
+   * @throws IOException if {@code bytes} is not a well formed class file
+   */
+  static ClassFile parse(byte[] bytes) throws IOException {
+    ClassFile classFile = new ClassFile(bytes);
+    try {
+      classFile.parse();
+    }
+    catch (ArrayIndexOutOfBoundsException e) {
+      throw new IOException("truncated class file", e);
+    }
+    return classFile;
+  }
+
+  /**
+   * @return the internal name of the class, such as {@code java/lang/String}
+   */
+  String getClassName() {
+    return className;
+  }
+
+  /**
+   * @return the fields of the class, in declaration order
+   */
+  List<Member> getFields() {
+    return Collections.unmodifiableList(fields);
+  }
+
+  /**
+   * @return the methods of the class, in declaration order
+   */
+  List<Member> getMethods() {
+    return Collections.unmodifiableList(methods);
+  }
+
+  /**
+   * @return the descriptors of the types of the runtime visible annotations on the class
+   * @throws IOException if the class file is malformed
+   */
+  List<String> getAnnotationDescriptors() throws IOException {
+    return annotationDescriptors(attributesOffset);
+  }
+
+  private void parse() throws IOException {
+    if (readInt() != 0xCAFEBABE) {
+      throw new IOException("not a class file");
+    }
+    position += 4; // minor and major version
+    readConstantPool();
+    position += 2; // access flags
+    className = readClassName(readUnsignedShort());
+    position += 2; // super class
+    int interfaceCount = readUnsignedShort();
+    position += 2 * interfaceCount;
+    readMembers(fields);
+    readMembers(methods);
+    attributesOffset = position;
+  }
+
+  private void readConstantPool() throws IOException {
+    int count = readUnsignedShort();
+    tags = new byte[count];
+    entryOffsets = new int[count];
+    for (int index = 1; index < count; index++) {
+      int tag = bytes[position++];
+      tags[index] = (byte) tag;
+      entryOffsets[index] = position;
+      switch (tag) {
+        case 1: // Utf8
+          position += 2 + readUnsignedShort(position);
+          break;
+        case 7: // Class
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          position += 2;
+          break;
+        case 15: // MethodHandle
+          position += 3;
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          position += 4;
+          break;
+        case 5: // Long
+        case 6: // Double
+          position += 8;
+          index++; // these take up two entries in the constant pool
+          break;
+        default:
+          throw new IOException("unknown constant pool tag " + tag);
+      }
+    }
+  }
+
+  private void readMembers(List<Member> members) throws IOException {
+    for (int memberCount = readUnsignedShort(); memberCount > 0; memberCount--) {
+      int access = readUnsignedShort();
+      String name = readUtf8(readUnsignedShort());
+      String descriptor = readUtf8(readUnsignedShort());
+      members.add(new Member(access, name, descriptor, position));
+      skipAttributes();
+    }
+  }
+
+  private void skipAttributes() {
+    for (int attributeCount = readUnsignedShort(); attributeCount > 0; attributeCount--) {
+      position += 2; // name
+      int length = readInt();
+      position += length;
+    }
+  }
+
+  /**
+   * Find an attribute in an attribute table.
+   * @param offset the offset of the attribute table
+   * @param attributeName the name of the attribute to find
+   * @return the offset of the body of the attribute, or {@code -1} if there is no such attribute
+   * @throws IOException if the class file is malformed
+   */
+  private int findAttribute(int offset, String attributeName) throws IOException {
+    int attributeCount = readUnsignedShort(offset);
+    offset += 2;
+    for (; attributeCount > 0; attributeCount--) {
+      String name = readUtf8(readUnsignedShort(offset));
+      int length = readInt(offset + 2);
+      if (name.equals(attributeName)) {
+        return offset + 6;
+      }
+      offset += 6 + length;
+    }
+    return -1;
+  }
+
+  private List<String> annotationDescriptors(int attributesOffset) throws IOException {
+    int offset = findAttribute(attributesOffset, RUNTIME_VISIBLE_ANNOTATIONS);
+    if (offset < 0) {
+      return Collections.emptyList();
+    }
+    int annotationCount = readUnsignedShort(offset);
+    List<String> descriptors = new ArrayList<>(annotationCount);
+    position = offset + 2;
+    for (; annotationCount > 0; annotationCount--) {
+      descriptors.add(readUtf8(readUnsignedShort(position)));
+      skipAnnotation();
+    }
+    return descriptors;
+  }
+
+  private void skipAnnotation() throws IOException {
+    position += 2; // type
+    for (int pairCount = readUnsignedShort(); pairCount > 0; pairCount--) {
+      position += 2; // element name
+      skipElementValue();
+    }
+  }
+
+  private void skipElementValue() throws IOException {
+    int tag = bytes[position++];
+    switch (tag) {
+      case 'B':
+      case 'C':
+      case 'D':
+      case 'F':
+      case 'I':
+      case 'J':
+      case 'S':
+      case 'Z':
+      case 's':
+      case 'c':
+        position += 2;
+        break;
+      case 'e':
+        position += 4;
+        break;
+      case '@':
+        skipAnnotation();
+        break;
+      case '[':
+        for (int valueCount = readUnsignedShort(); valueCount > 0; valueCount--) {
+          skipElementValue();
+        }
+        break;
+      default:
+        throw new IOException("unknown element value tag " + (char) tag);
+    }
+  }
+
+  /**
+   * Describe the method referred to by a {@code CONSTANT_Methodref} constant pool entry.
+   * @param index the index of the constant pool entry
+   * @return the internal name of the class declaring the method, followed by {@code '.'}, the method name and the
+   * method descriptor, such as {@code java/lang/Object.hashCode()I}
+   * @throws IOException if the entry is not a {@code CONSTANT_Methodref}
+   */
+  String readMethodReference(int index) throws IOException {
+    int offset = entryOffset(index, CONSTANT_METHODREF);
+    int nameAndTypeOffset = entryOffset(readUnsignedShort(offset + 2), CONSTANT_NAME_AND_TYPE);
+    return readClassName(readUnsignedShort(offset))
+      + "." + readUtf8(readUnsignedShort(nameAndTypeOffset))
+      + readUtf8(readUnsignedShort(nameAndTypeOffset + 2));
+  }
+
+  private String readClassName(int index) throws IOException {
+    return readUtf8(readUnsignedShort(entryOffset(index, CONSTANT_CLASS)));
+  }
+
+  private int entryOffset(int index, int tag) throws IOException {
+    if (index >= tags.length || tags[index] != tag) {
+      throw new IOException("constant pool entry " + index + " does not have tag " + tag);
+    }
+    return entryOffsets[index];
+  }
+
+  private String readUtf8(int index) throws IOException {
+    int offset = entryOffset(index, CONSTANT_UTF8);
+    // DataInputStream understands the modified UTF-8 used by class files.
+    return new DataInputStream(
+      new ByteArrayInputStream(bytes, offset, 2 + readUnsignedShort(offset))).readUTF();
+  }
+
+  private int readUnsignedShort() {
+    int value = readUnsignedShort(position);
+    position += 2;
+    return value;
+  }
+
+  private int readUnsignedShort(int offset) {
+    return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+  }
+
+  private int readInt() {
+    int value = readInt(position);
+    position += 4;
+    return value;
+  }
+
+  private int readInt(int offset) {
+    return (readUnsignedShort(offset) << 16) | readUnsignedShort(offset + 2);
+  }
+}
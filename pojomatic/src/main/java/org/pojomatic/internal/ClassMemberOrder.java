@@ -0,0 +1,147 @@
+package org.pojomatic.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.pojomatic.diagnostics.PojomatorCreationPhase;
+
+/**
+ * The declaration order of the non-static fields and of the non-static, non-synthetic, no-argument methods of a class.
+ * This is read from the class file where possible, using {@link ClassFile} to parse only the constant pool and the
+ * field and method tables.
+ * If the class bytes are not available (for example, for classes from the bootstrap class loader, or from a class
+ * loader which does not expose class files as resources), the order returned by reflection is used instead.
+ * <p>
+ * Instances are cached per class, so each class file is read at most once.
+ */
+class ClassMemberOrder {
+  private static final SelfPopulatingClassMap<ClassMemberOrder> INSTANCES =
+    new SelfPopulatingClassMap<ClassMemberOrder>() {
+      @Override
+      protected ClassMemberOrder create(Class<?> key) {
+        long startTime = CreationListeners.startTime();
+        ClassMemberOrder memberOrder = fromClassBytes(key);
+        if (memberOrder == null) {
+          memberOrder = fromReflection(key);
+        }
+        CreationListeners.phaseCompleted(key, PojomatorCreationPhase.CLASS_SCAN, startTime);
+        return memberOrder;
+      }
+    };
+
+  private final List<String> fieldNames;
+  private final List<String> methodNames;
+  private final boolean fromClassBytes;
+
+  private ClassMemberOrder(List<String> fieldNames, List<String> methodNames, boolean fromClassBytes) {
+    this.fieldNames = Collections.unmodifiableList(fieldNames);
+    this.methodNames = Collections.unmodifiableList(methodNames);
+    this.fromClassBytes = fromClassBytes;
+  }
+
+  static ClassMemberOrder forClass(Class<?> clazz) {
+    return INSTANCES.get(clazz);
+  }
+
+  /**
+   * @return the names of the non-static fields of the class, in declaration order.
+   */
+  List<String> getFieldNames() {
+    return fieldNames;
+  }
+
+  /**
+   * @return the names of the non-static, non-synthetic methods of the class which take no arguments, in declaration
+   * order.
+   */
+  List<String> getMethodNames() {
+    return methodNames;
+  }
+
+  /**
+   * @return {@code true} if the order was read from the class file, or {@code false} if it came from reflection.
+   */
+  boolean isFromClassBytes() {
+    return fromClassBytes;
+  }
+
+  private static ClassMemberOrder fromClassBytes(Class<?> clazz) {
+    byte[] classBytes = classBytes(clazz);
+    if (classBytes == null) {
+      return null;
+    }
+    ClassFile classFile;
+    try {
+      classFile = ClassFile.parse(classBytes);
+    }
+    catch (IOException | RuntimeException e) {
+      return null;
+    }
+    List<String> fieldNames = new ArrayList<>();
+    for (ClassFile.Member field: classFile.getFields()) {
+      if ((field.getAccess() & ClassFile.ACC_STATIC) == 0) {
+        fieldNames.add(field.getName());
+      }
+    }
+    List<String> methodNames = new ArrayList<>();
+    for (ClassFile.Member method: classFile.getMethods()) {
+      if ((method.getAccess() & (ClassFile.ACC_STATIC | ClassFile.ACC_SYNTHETIC)) == 0
+        && method.getDescriptor().startsWith("()")) {
+        methodNames.add(method.getName());
+      }
+    }
+    return new ClassMemberOrder(fieldNames, methodNames, true);
+  }
+
+  /**
+   * Read the class file of a class from its class loader.
+   * @param clazz the class
+   * @return the bytes of the class file, or {@code null} if they are not available
+   */
+  static byte[] classBytes(Class<?> clazz) {
+    ClassLoader classLoader = clazz.getClassLoader();
+    if (classLoader == null) {
+      return null;
+    }
+    try (InputStream stream = classLoader.getResourceAsStream(clazz.getName().replace('.', '/') + ".class")) {
+      return stream == null ? null : readFully(stream);
+    }
+    catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static ClassMemberOrder fromReflection(Class<?> clazz) {
+    List<String> fieldNames = new ArrayList<>();
+    for (Field field: clazz.getDeclaredFields()) {
+      if (!Modifier.isStatic(field.getModifiers())) {
+        fieldNames.add(field.getName());
+      }
+    }
+    List<String> methodNames = new ArrayList<>();
+    for (Method method: clazz.getDeclaredMethods()) {
+      if (!Modifier.isStatic(method.getModifiers()) && !method.isSynthetic()
+        && method.getParameterTypes().length == 0) {
+        methodNames.add(method.getName());
+      }
+    }
+    return new ClassMemberOrder(fieldNames, methodNames, false);
+  }
+
+  static byte[] readFully(InputStream stream) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int count;
+    while ((count = stream.read(buffer)) != -1) {
+      out.write(buffer, 0, count);
+    }
+    return out.toByteArray();
+  }
+}
@@ -32,16 +32,68 @@ public class ClassProperties {
 
   private final boolean subclassCannotOverrideEquals;
 
-  private final static SelfPopulatingMap<Class<?>, ClassProperties> INSTANCES =
-    new SelfPopulatingMap<Class<?>, ClassProperties>() {
+  private final boolean hashCodeCached;
+
+  private final Field hashCodeCacheField;
+
+  private final static SelfPopulatingClassMap<ClassProperties> INSTANCES =
+    new SelfPopulatingClassMap<ClassProperties>() {
       @Override
       protected ClassProperties create(Class<?> key) {
         return new ClassProperties(key);
       }
     };
 
+  /**
+   * The properties contributed by a class and all of its superclasses, along with the state needed to continue
+   * walking down the hierarchy to subclasses. These are cached per class, so that classes sharing a common superclass
+   * do not each need to re-examine it. Instances must not be modified once constructed.
+   */
+  private final static SelfPopulatingClassMap<HierarchyProperties> HIERARCHY_PROPERTIES =
+    new SelfPopulatingClassMap<HierarchyProperties>() {
+      @Override
+      protected HierarchyProperties create(Class<?> key) {
+        return new HierarchyProperties(key);
+      }
+    };
+
+  private final static class HierarchyProperties {
+    final Map<PropertyRole, List<PropertyElement>> properties = makeProperties();
+    final OverridableMethods overridableMethods;
+    final Class<?> mostSpecificContributingClass;
+
+    /**
+     * Extract the properties contributed by {@code clazz}, adding them to those of its superclass.
+     * @param clazz the class to inspect
+     */
+    HierarchyProperties(Class<?> clazz) {
+      if (clazz == Object.class) {
+        overridableMethods = new OverridableMethods();
+        mostSpecificContributingClass = Object.class;
+      }
+      else {
+        HierarchyProperties parent = HIERARCHY_PROPERTIES.get(clazz.getSuperclass());
+        for (PropertyRole role: PropertyRole.values()) {
+          properties.get(role).addAll(parent.properties.get(role));
+        }
+        overridableMethods = new OverridableMethods(parent.overridableMethods);
+        ClassContributionTracker classContributionTracker =
+          new ClassContributionTracker(parent.mostSpecificContributingClass);
+        extractClassProperties(clazz, properties, overridableMethods, classContributionTracker);
+        if (clazz.isAnnotationPresent(OverridesEquals.class)) {
+          classContributionTracker.noteContribution(clazz);
+        }
+        mostSpecificContributingClass = classContributionTracker.getMostSpecificContributingClass();
+      }
+    }
+  }
+
   private final static class ClassContributionTracker {
-    private Class<?> clazz = Object.class;
+    private Class<?> clazz;
+
+    ClassContributionTracker(Class<?> clazz) {
+      this.clazz = clazz;
+    }
 
     public void noteContribution(Class<?> contributingClass) {
       clazz = contributingClass;
@@ -73,17 +125,22 @@ public class ClassProperties {
    */
   private ClassProperties(Class<?> pojoClass) throws NoPojomaticPropertiesException {
     if (pojoClass.isInterface()) {
-      extractClassProperties(pojoClass, new OverridableMethods(), new ClassContributionTracker());
+      extractClassProperties(
+        pojoClass, properties, new OverridableMethods(), new ClassContributionTracker(Object.class));
       equalsParentClass = pojoClass;
     }
     else {
-      ClassContributionTracker classContributionTracker = new ClassContributionTracker();
-      walkHierarchy(pojoClass, new OverridableMethods(), classContributionTracker);
-      equalsParentClass = classContributionTracker.getMostSpecificContributingClass();
+      HierarchyProperties hierarchyProperties = HIERARCHY_PROPERTIES.get(pojoClass);
+      for (PropertyRole role: PropertyRole.values()) {
+        properties.get(role).addAll(hierarchyProperties.properties.get(role));
+      }
+      equalsParentClass = hierarchyProperties.mostSpecificContributingClass;
     }
     verifyPropertiesNotEmpty(pojoClass);
     subclassCannotOverrideEquals = pojoClass.isAnnotationPresent(SubclassCannotOverrideEquals.class)
       || pojoClass.isInterface();
+    hashCodeCacheField = findHashCodeCacheField(pojoClass);
+    hashCodeCached = hashCodeCacheField != null || pojoClass.isAnnotationPresent(CacheHashCode.class);
   }
 
   /**
@@ -110,6 +167,23 @@ public class ClassProperties {
     return properties.get(PropertyRole.TO_STRING);
   }
 
+  /**
+   * Whether the hash codes of instances should be remembered once computed.
+   * @return {@code true} if the class or one of its fields is annotated with {@link CacheHashCode}.
+   * @see #getHashCodeCacheField()
+   */
+  public boolean isHashCodeCached() {
+    return hashCodeCached;
+  }
+
+  /**
+   * Gets the field in which to remember the hash code of an instance.
+   * @return the field annotated with {@link CacheHashCode}, or {@code null} if there is none.
+   */
+  public Field getHashCodeCacheField() {
+    return hashCodeCacheField;
+  }
+
   /**
    * Get the union of all properties used for any Pojomator methods. The resulting set will have a predictable iteration
    * order: first, the ordered list of elements used for equals, followed by an ordered list of any additional elements
@@ -146,27 +220,15 @@ public class ClassProperties {
   }
 
   /**
-   * Walk up to the top of the hierarchy of {@code clazz}, then start extracting properties from it, working back down
-   * the inheritance chain from parent to child.
+   * Extract the properties declared by {@code clazz} (but not its superclasses), adding them to {@code properties}.
    * @param clazz the class to inspect
+   * @param properties the properties found so far, to be added to
    * @param overridableMethods used to track which methods can be overridden
    * @param classContributionTracker used to track the most specific class which contributes properties
    */
-  private void walkHierarchy(
-    Class<?> clazz,
-    OverridableMethods overridableMethods,
-    ClassContributionTracker classContributionTracker) {
-    if (clazz != Object.class) {
-      walkHierarchy(clazz.getSuperclass(), overridableMethods, classContributionTracker);
-      extractClassProperties(clazz, overridableMethods, classContributionTracker);
-      if (clazz.isAnnotationPresent(OverridesEquals.class)) {
-        classContributionTracker.noteContribution(clazz);
-      }
-    }
-  }
-
-  private void extractClassProperties(
+  private static void extractClassProperties(
     Class<?> clazz,
+    Map<PropertyRole, List<PropertyElement>> properties,
     OverridableMethods overridableMethods,
     ClassContributionTracker classContributionTracker) {
     AutoProperty autoProperty = clazz.getAnnotation(AutoProperty.class);
@@ -180,14 +242,9 @@ public class ClassProperties {
     Map<PropertyRole, Map<String, PropertyElement>> methodsMap = extractMethods(
       clazz, classPolicy, autoDetectPolicy, overridableMethods, classContributionTracker);
     if (containsValues(fieldsMap) || containsValues(methodsMap)) {
-      PropertyClassVisitor propertyClassVisitor = PropertyClassVisitor.visitClass(clazz, fieldsMap, methodsMap);
-      if (propertyClassVisitor != null) {
-        for (PropertyRole role: PropertyRole.values()) {
-          properties.get(role).addAll(propertyClassVisitor.getSortedProperties().get(role));
-        }
-      }
-      else {
-        throw new RuntimeException("no class bytes for " + clazz);
+      Map<PropertyRole, List<PropertyElement>> sortedProperties = PropertyOrder.sort(clazz, fieldsMap, methodsMap);
+      for (PropertyRole role: PropertyRole.values()) {
+        properties.get(role).addAll(sortedProperties.get(role));
       }
     }
   }
@@ -201,7 +258,7 @@ public class ClassProperties {
     return false;
   }
 
-  private Map<PropertyRole, Map<String, PropertyElement>> extractMethods(
+  private static Map<PropertyRole, Map<String, PropertyElement>> extractMethods(
     Class<?> clazz,
     final DefaultPojomaticPolicy classPolicy,
     final AutoDetectPolicy autoDetectPolicy,
@@ -253,13 +310,16 @@ public class ClassProperties {
     return propertiesMap;
   }
 
-  private Map<PropertyRole, Map<String, PropertyElement>> extractFields(
+  private static Map<PropertyRole, Map<String, PropertyElement>> extractFields(
     Class<?> clazz,
     final DefaultPojomaticPolicy classPolicy,
     final AutoDetectPolicy autoDetectPolicy,
     final ClassContributionTracker classContributionTracker) {
     Map<PropertyRole, Map<String, PropertyElement>> propertiesMap = makePropertiesMap();
     for (Field field : clazz.getDeclaredFields()) {
+      if (field.isAnnotationPresent(CacheHashCode.class)) {
+        continue; // checked by findHashCodeCacheField
+      }
       Property property = field.getAnnotation(Property.class);
       if (isStatic(field)) {
         if (property != null) {
@@ -291,6 +351,33 @@ public class ClassProperties {
     return propertiesMap;
   }
 
+  private static Field findHashCodeCacheField(Class<?> pojoClass) {
+    Field hashCodeCacheField = null;
+    for (Class<?> clazz = pojoClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+      for (Field field : clazz.getDeclaredFields()) {
+        if (!field.isAnnotationPresent(CacheHashCode.class)) {
+          continue;
+        }
+        String fieldName = clazz.getName() + "." + field.getName();
+        if (isStatic(field) || Modifier.isFinal(field.getModifiers()) || field.getType() != int.class) {
+          throw new IllegalArgumentException(
+            "Field " + fieldName + " is annotated with @CacheHashCode, but is not a non-static, non-final int field");
+        }
+        if (field.isAnnotationPresent(Property.class)) {
+          throw new IllegalArgumentException(
+            "Field " + fieldName + " is annotated with both @CacheHashCode and @Property");
+        }
+        if (hashCodeCacheField != null) {
+          throw new IllegalArgumentException(
+            "Fields " + hashCodeCacheField.getDeclaringClass().getName() + "." + hashCodeCacheField.getName()
+            + " and " + fieldName + " are both annotated with @CacheHashCode");
+        }
+        hashCodeCacheField = field;
+      }
+    }
+    return hashCodeCacheField;
+  }
+
   private void verifyPropertiesNotEmpty(Class<?> pojoClass) {
     for (Collection<PropertyElement> propertyElements : properties.values()) {
       if (!propertyElements.isEmpty()) {
@@ -300,7 +387,7 @@ public class ClassProperties {
     throw new NoPojomaticPropertiesException(pojoClass);
   }
 
-  private String getPropertyName(Property property) {
+  private static String getPropertyName(Property property) {
     return property == null ? "" : property.name();
   }
 
@@ -0,0 +1,83 @@
+package org.pojomatic.internal;
+
+import java.lang.reflect.Field;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.pojomatic.diagnostics.PojomatorCreationListener;
+import org.pojomatic.diagnostics.PojomatorCreationPhase;
+
+/**
+ * The registered {@link PojomatorCreationListener}s. Timings are only taken while at least one listener is registered.
+ */
+public class CreationListeners {
+  /**
+   * The start time returned by {@link #startTime()} when no listeners are registered.
+   */
+  static final long NOT_TIMED = Long.MIN_VALUE;
+
+  private static final CopyOnWriteArrayList<PojomatorCreationListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+  private CreationListeners() {}
+
+  public static void add(PojomatorCreationListener listener) {
+    LISTENERS.addIfAbsent(listener);
+  }
+
+  public static void remove(PojomatorCreationListener listener) {
+    LISTENERS.remove(listener);
+  }
+
+  /**
+   * @return the current time in nanoseconds if any listeners are registered, or {@link #NOT_TIMED} otherwise.
+   */
+  static long startTime() {
+    return LISTENERS.isEmpty() ? NOT_TIMED : System.nanoTime();
+  }
+
+  /**
+   * Notify listeners that a phase has completed.
+   * @param pojoClass the class the work was done for
+   * @param phase the phase of work
+   * @param startTime the value returned by {@link #startTime()} when the phase began
+   */
+  static void phaseCompleted(Class<?> pojoClass, PojomatorCreationPhase phase, long startTime) {
+    if (startTime != NOT_TIMED) {
+      long nanos = System.nanoTime() - startTime;
+      for (PojomatorCreationListener listener: LISTENERS) {
+        listener.phaseCompleted(pojoClass, phase, nanos);
+      }
+    }
+  }
+
+  /**
+   * Notify listeners that a call site has been linked for a Pojomator class.
+   * @param pojomatorClass the Pojomator class
+   * @param startTime the value returned by {@link #startTime()} when linking began
+   */
+  static void callSiteLinked(final Class<?> pojomatorClass, long startTime) {
+    if (startTime != NOT_TIMED) {
+      Class<?> pojoClass = AccessController.doPrivileged(new PrivilegedAction<Class<?>>() {
+        @Override
+        public Class<?> run() {
+          try {
+            Field field = pojomatorClass.getDeclaredField(PojomatorByteCodeGenerator.POJO_CLASS_FIELD_NAME);
+            field.setAccessible(true);
+            return (Class<?>) field.get(null);
+          }
+          catch (NoSuchFieldException | IllegalAccessException e) {
+            return pojomatorClass;
+          }
+        }
+      });
+      phaseCompleted(pojoClass, PojomatorCreationPhase.CALL_SITE_LINKING, startTime);
+    }
+  }
+
+  static void pojomatorClassGenerated(Class<?> pojoClass, int classSize) {
+    for (PojomatorCreationListener listener: LISTENERS) {
+      listener.pojomatorClassGenerated(pojoClass, classSize);
+    }
+  }
+}
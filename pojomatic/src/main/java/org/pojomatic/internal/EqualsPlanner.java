@@ -0,0 +1,121 @@
+package org.pojomatic.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.pojomatic.PropertyElement;
+import org.pojomatic.annotations.Property;
+
+/**
+ * Decides the order in which {@code equals} compares properties. Since {@code equals} returns as soon as a property
+ * differs, comparing cheap properties first lets unequal instances be rejected quickly. Properties are ordered by
+ * {@link Property#equalsOrder()}, then by the {@link Cost} of comparing them, and then by declaration order.
+ * <p>
+ * Also decides the order in which {@code doCompare} compares properties. Since this determines the result, it depends
+ * only on {@link Property#compareOrder()} and declaration order.
+ */
+class EqualsPlanner {
+  /**
+   * The relative cost of comparing property values, cheapest first.
+   */
+  enum Cost {
+    PRIMITIVE,
+    /** Types for which equality is identity, such as enums */
+    IDENTITY,
+    BOXED,
+    STRING,
+    OBJECT,
+    COLLECTION,
+    /** Arrays, and properties of type {@code Object} which might hold an array */
+    ARRAY;
+
+    static Cost of(PropertyElement propertyElement) {
+      Class<?> type = propertyElement.getPropertyType();
+      if (type.isPrimitive()) {
+        return PRIMITIVE;
+      }
+      if (isIdentityComparable(type)) {
+        return IDENTITY;
+      }
+      if (Primitives.isWrapperClass(type)) {
+        return BOXED;
+      }
+      if (type == String.class) {
+        return STRING;
+      }
+      if (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+        return COLLECTION;
+      }
+      if (type.isArray() || type == Object.class) {
+        return ARRAY;
+      }
+      return OBJECT;
+    }
+  }
+
+  private static final Comparator<PropertyElement> ORDER = new Comparator<PropertyElement>() {
+    @Override
+    public int compare(PropertyElement first, PropertyElement second) {
+      int firstOrder = equalsOrder(first);
+      int secondOrder = equalsOrder(second);
+      if (firstOrder != secondOrder) {
+        return firstOrder < secondOrder ? -1 : 1;
+      }
+      return Cost.of(first).compareTo(Cost.of(second));
+    }
+  };
+
+  private static final Comparator<PropertyElement> COMPARE_ORDER = new Comparator<PropertyElement>() {
+    @Override
+    public int compare(PropertyElement first, PropertyElement second) {
+      return Integer.compare(compareOrder(first), compareOrder(second));
+    }
+  };
+
+  private EqualsPlanner() {}
+
+  /**
+   * Order properties for comparison by {@code equals}.
+   * @param equalsProperties the properties used by {@code equals}, in declaration order
+   * @return the properties, in the order they should be compared
+   */
+  static List<PropertyElement> plan(Collection<PropertyElement> equalsProperties) {
+    List<PropertyElement> plan = new ArrayList<>(equalsProperties);
+    Collections.sort(plan, ORDER); // a stable sort, so declaration order is kept among equals
+    return plan;
+  }
+
+  /**
+   * Order properties for comparison by {@code doCompare}.
+   * @param equalsProperties the properties used by {@code equals}, in declaration order
+   * @return the properties, in order of precedence
+   */
+  static List<PropertyElement> planCompare(Collection<PropertyElement> equalsProperties) {
+    List<PropertyElement> plan = new ArrayList<>(equalsProperties);
+    Collections.sort(plan, COMPARE_ORDER); // a stable sort, so declaration order is kept among equals
+    return plan;
+  }
+
+  /**
+   * Whether two values of a type are equal exactly when they are the same instance.
+   * @param type the declared type of the values
+   * @return {@code true} if values of {@code type} can be compared for equality by reference
+   */
+  static boolean isIdentityComparable(Class<?> type) {
+    return Enum.class.isAssignableFrom(type) || type == Class.class;
+  }
+
+  private static int equalsOrder(PropertyElement propertyElement) {
+    Property property = propertyElement.getElement().getAnnotation(Property.class);
+    return property == null ? 0 : property.equalsOrder();
+  }
+
+  private static int compareOrder(PropertyElement propertyElement) {
+    Property property = propertyElement.getElement().getAnnotation(Property.class);
+    return property == null ? 0 : property.compareOrder();
+  }
+}
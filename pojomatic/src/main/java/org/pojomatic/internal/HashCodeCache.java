@@ -0,0 +1,223 @@
+package org.pojomatic.internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.pojomatic.annotations.CacheHashCode;
+
+/**
+ * Remembers the hash codes of instances of a class annotated with {@link CacheHashCode}.
+ */
+abstract class HashCodeCache {
+  /**
+   * Create a cache for a class.
+   * @param classProperties the properties of the class
+   * @return a cache for the class, or {@code null} if the class does not have its hash codes cached
+   */
+  static HashCodeCache forClass(ClassProperties classProperties) {
+    if (classProperties.getHashCodeCacheField() != null) {
+      return new FieldHashCodeCache(classProperties.getHashCodeCacheField());
+    }
+    else if (classProperties.isHashCodeCached()) {
+      return new IdentityHashCodeCache();
+    }
+    else {
+      return null;
+    }
+  }
+
+  /**
+   * Get the hash code of an instance, computing it if it is not already known.
+   * @param pojomator the Pojomator to compute hash codes with
+   * @param pojo the instance, which must not be {@code null}
+   * @return the hash code of {@code pojo}
+   */
+  abstract int hashCode(BasePojomator<?> pojomator, Object pojo);
+
+  /**
+   * Determine, without computing any hash codes, whether two instances are known to have different hash codes, and
+   * hence cannot be equal. Only a cache which can tell this cheaply enough to do so on every call to {@code equals}
+   * does; others return {@code false}.
+   * @param pojo1 the first instance, which must not be {@code null}
+   * @param pojo2 the second instance, which must not be {@code null}
+   * @return {@code true} if the hash codes of both instances are known, and differ
+   */
+  boolean haveDifferentHashCodes(Object pojo1, Object pojo2) {
+    return false;
+  }
+
+  /**
+   * Stores hash codes in a field of the instance, much as {@link String} does.
+   */
+  private static final class FieldHashCodeCache extends HashCodeCache {
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+
+    FieldHashCodeCache(final Field field) {
+      AccessController.doPrivileged(new PrivilegedAction<Void>() {
+        @Override
+        public Void run() {
+          field.setAccessible(true);
+          return null;
+        }
+      });
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      try {
+        getter = lookup.unreflectGetter(field).asType(MethodType.methodType(int.class, Object.class));
+        setter = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, int.class));
+      }
+      catch (IllegalAccessException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    boolean haveDifferentHashCodes(Object pojo1, Object pojo2) {
+      // This only reads a field of each instance, so is cheap enough to do on every call to equals
+      int hashCode1 = getHashCode(pojo1);
+      if (hashCode1 == 0) {
+        return false;
+      }
+      int hashCode2 = getHashCode(pojo2);
+      return hashCode2 != 0 && hashCode1 != hashCode2;
+    }
+
+    private int getHashCode(Object pojo) {
+      try {
+        return (int) getter.invokeExact(pojo);
+      }
+      catch (RuntimeException | Error e) {
+        throw e;
+      }
+      catch (Throwable t) {
+        throw new RuntimeException(t);
+      }
+    }
+
+    @Override
+    int hashCode(BasePojomator<?> pojomator, Object pojo) {
+      int hashCode = getHashCode(pojo);
+      if (hashCode == 0) {
+        hashCode = pojomator.computeHashCode(pojo);
+        try {
+          setter.invokeExact(pojo, hashCode);
+        }
+        catch (RuntimeException | Error e) {
+          throw e;
+        }
+        catch (Throwable t) {
+          throw new RuntimeException(t);
+        }
+      }
+      return hashCode;
+    }
+  }
+
+  /**
+   * Stores hash codes in a table keyed by instance identity, which holds its keys weakly.
+   */
+  private static final class IdentityHashCodeCache extends HashCodeCache {
+    /**
+     * A key for looking up hash codes, reused by each thread so that finding a known hash code does not allocate.
+     */
+    private static final ThreadLocal<IdentityLookup> LOOKUPS = new ThreadLocal<IdentityLookup>() {
+      @Override
+      protected IdentityLookup initialValue() {
+        return new IdentityLookup();
+      }
+    };
+
+    private final ConcurrentMap<Object, Integer> hashCodes = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    @Override
+    int hashCode(BasePojomator<?> pojomator, Object pojo) {
+      Integer hashCode;
+      IdentityLookup lookup = LOOKUPS.get();
+      try {
+        hashCode = hashCodes.get(lookup.of(pojo));
+      }
+      finally {
+        lookup.clear();
+      }
+      if (hashCode == null) {
+        for (Reference<?> reference = collected.poll(); reference != null; reference = collected.poll()) {
+          hashCodes.remove(reference);
+        }
+        hashCode = pojomator.computeHashCode(pojo);
+        hashCodes.put(new IdentityReference(pojo, collected), hashCode);
+      }
+      return hashCode;
+    }
+  }
+
+  /**
+   * A mutable key which is equal to an {@link IdentityReference} to the instance it is currently set to. It is only
+   * ever passed to {@link java.util.Map#get(Object)}, which compares keys by calling {@code equals} on the key passed
+   * to it, so that no {@code IdentityReference} need be allocated for each lookup.
+   */
+  private static final class IdentityLookup {
+    private Object referent;
+    private int hashCode;
+
+    IdentityLookup of(Object referent) {
+      this.referent = referent;
+      hashCode = System.identityHashCode(referent);
+      return this;
+    }
+
+    void clear() {
+      referent = null;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof IdentityReference && referent != null && referent == ((IdentityReference) obj).get();
+    }
+  }
+
+  /**
+   * A weak reference which is equal to another only if both refer to the same, still reachable, instance.
+   */
+  private static final class IdentityReference extends WeakReference<Object> {
+    private final int hashCode;
+
+    IdentityReference(Object referent, ReferenceQueue<Object> queue) {
+      super(referent, queue);
+      hashCode = System.identityHashCode(referent);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj instanceof IdentityReference) {
+        Object referent = get();
+        return referent != null && referent == ((IdentityReference) obj).get();
+      }
+      else {
+        return false;
+      }
+    }
+  }
+}
@@ -10,6 +10,21 @@ import java.util.*;
  */
 class OverridableMethods {
 
+  OverridableMethods() {}
+
+  /**
+   * Create a copy of another instance, which can be added to without affecting the original.
+   * @param other the instance to copy
+   */
+  OverridableMethods(OverridableMethods other) {
+    for (Map.Entry<String, Set<PropertyRole>> entry: other.publicOrProtectedMethods.entrySet()) {
+      publicOrProtectedMethods.put(entry.getKey(), copyRoles(entry.getValue()));
+    }
+    for (Map.Entry<PackageMethod, Set<PropertyRole>> entry: other.packageMethods.entrySet()) {
+      packageMethods.put(entry.getKey(), copyRoles(entry.getValue()));
+    }
+  }
+
   /**
    * Check to see if roles should be added to a method, and add them if so.  Only roles not already
    * on the method will be added.  If {@code method} already has an
@@ -107,6 +122,12 @@ class OverridableMethods {
   private final Map<PackageMethod, Set<PropertyRole>> packageMethods = new HashMap<>();
 
 
+  private static Set<PropertyRole> copyRoles(Set<PropertyRole> roles) {
+    Set<PropertyRole> copy = EnumSet.noneOf(PropertyRole.class);
+    copy.addAll(roles);
+    return copy;
+  }
+
   private static boolean isPackagePrivate(Method method) {
     return !(Modifier.isPublic(method.getModifiers())
       || Modifier.isProtected(method.getModifiers()));
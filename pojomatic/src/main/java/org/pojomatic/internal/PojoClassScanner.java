@@ -0,0 +1,151 @@
+package org.pojomatic.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.kohsuke.asm5.Type;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.Property;
+
+/**
+ * Finds classes in a package (or any of its subpackages) which are annotated for use with Pojomatic - that is, which
+ * are annotated with {@link AutoProperty}, or which declare a field or method annotated with {@link Property}. Class
+ * files are inspected with {@link ClassFile}, so classes which are not annotated are never loaded, and class files
+ * compiled for any version of Java can be read. Class files which cannot be parsed are skipped.
+ */
+public class PojoClassScanner {
+  private static final String CLASS_FILE_SUFFIX = ".class";
+  private static final String AUTO_PROPERTY_DESCRIPTOR = Type.getDescriptor(AutoProperty.class);
+  private static final String PROPERTY_DESCRIPTOR = Type.getDescriptor(Property.class);
+
+  private PojoClassScanner() {}
+
+  /**
+   * Find the classes in a package or its subpackages which are annotated for use with Pojomatic.
+   * @param packageName the package to search
+   * @param classLoader the class loader to search, and to load classes found with
+   * @return the classes found, in no particular order
+   * @throws IOException if a directory or jar file on the class path cannot be read
+   */
+  public static List<Class<?>> findPojoClasses(String packageName, ClassLoader classLoader) throws IOException {
+    String packagePath = packageName.replace('.', '/');
+    Set<String> classNames = new LinkedHashSet<>();
+    Enumeration<URL> resources = classLoader.getResources(packagePath);
+    while (resources.hasMoreElements()) {
+      URL url = resources.nextElement();
+      if ("file".equals(url.getProtocol())) {
+        try {
+          scanDirectory(new File(url.toURI()), classNames);
+        }
+        catch (URISyntaxException e) {
+          throw new IOException("Unable to read " + url, e);
+        }
+      }
+      else if ("jar".equals(url.getProtocol())) {
+        scanJar(url, packagePath, classNames);
+      }
+    }
+
+    List<Class<?>> classes = new ArrayList<>(classNames.size());
+    for (String className: classNames) {
+      try {
+        classes.add(Class.forName(className, false, classLoader));
+      }
+      catch (ClassNotFoundException | LinkageError e) {
+        // the class file is there, but the class cannot be used; there is nothing to preload.
+      }
+    }
+    return classes;
+  }
+
+  private static void scanDirectory(File directory, Set<String> classNames) throws IOException {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file: files) {
+      String name = file.getName();
+      if (file.isDirectory()) {
+        scanDirectory(file, classNames);
+      }
+      else if (isCandidate(name)) {
+        try (InputStream in = new FileInputStream(file)) {
+          addIfPojo(in, classNames);
+        }
+      }
+    }
+  }
+
+  private static void scanJar(URL url, String packagePath, Set<String> classNames) throws IOException {
+    URLConnection connection = url.openConnection();
+    if (!(connection instanceof JarURLConnection)) {
+      return;
+    }
+    connection.setUseCaches(false);
+    try (JarFile jarFile = ((JarURLConnection) connection).getJarFile()) {
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        JarEntry entry = entries.nextElement();
+        String name = entry.getName();
+        if (name.startsWith(packagePath + "/") && isCandidate(name)) {
+          try (InputStream in = jarFile.getInputStream(entry)) {
+            addIfPojo(in, classNames);
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean isCandidate(String fileName) {
+    return fileName.endsWith(CLASS_FILE_SUFFIX)
+      && !fileName.endsWith("package-info" + CLASS_FILE_SUFFIX)
+      && !fileName.endsWith("$$Pojomator" + CLASS_FILE_SUFFIX);
+  }
+
+  private static void addIfPojo(InputStream classBytes, Set<String> classNames) throws IOException {
+    ClassFile classFile;
+    try {
+      classFile = ClassFile.parse(ClassMemberOrder.readFully(classBytes));
+      if (!isPojo(classFile)) {
+        return;
+      }
+    }
+    catch (IOException | RuntimeException e) {
+      // not a class file we understand; it cannot be a POJO we know how to preload.
+      return;
+    }
+    classNames.add(classFile.getClassName().replace('/', '.'));
+  }
+
+  /**
+   * @return whether a class is annotated with {@link AutoProperty}, or has a field or method annotated with
+   * {@link Property}.
+   */
+  private static boolean isPojo(ClassFile classFile) throws IOException {
+    if (classFile.getAnnotationDescriptors().contains(AUTO_PROPERTY_DESCRIPTOR)) {
+      return true;
+    }
+    for (List<ClassFile.Member> members: Arrays.asList(classFile.getFields(), classFile.getMethods())) {
+      for (ClassFile.Member member: members) {
+        if (member.getAnnotationDescriptors().contains(PROPERTY_DESCRIPTOR)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,160 @@
+package org.pojomatic.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.kohsuke.asm5.Opcodes;
+import org.kohsuke.asm5.Type;
+import org.pojomatic.Pojomatic;
+
+/**
+ * Whether a class implements {@code equals} and {@code hashCode} by doing nothing more than delegating to
+ * {@link Pojomatic#equals(Object, Object)} and {@link Pojomatic#hashCode(Object)}. For a final class which does, the
+ * Pojomator of a class with a property of that type can call the Pojomator of the property value directly, rather
+ * than going through {@code equals}, {@code hashCode} and the lookup in {@code Pojomatic}.
+ * <p>
+ * This is determined from the class file of the class (or of the superclass which declares the method in question),
+ * read with {@link ClassFile}, so a class whose class file is not available is assumed not to delegate. Instances are
+ * cached per class.
+ */
+class PojomaticDelegation {
+  private static final SelfPopulatingClassMap<PojomaticDelegation> INSTANCES =
+    new SelfPopulatingClassMap<PojomaticDelegation>() {
+      @Override
+      protected PojomaticDelegation create(Class<?> key) {
+        return analyze(key);
+      }
+    };
+
+  private static final String POJOMATIC_INTERNAL_NAME = Type.getInternalName(Pojomatic.class);
+  private static final String EQUALS_DESCRIPTOR = "(Ljava/lang/Object;)Z";
+  private static final String HASH_CODE_DESCRIPTOR = "()I";
+  /** The opcode of {@code aload_0}; {@code aload_1} to {@code aload_3} follow it */
+  private static final int ALOAD_0 = 0x2A;
+
+  /**
+   * The instructions of {@code return Pojomatic.equals(this, other);}, as described by
+   * {@link #instructions(ClassFile, byte[])}.
+   */
+  private static final List<String> DELEGATING_EQUALS = Arrays.asList(
+    "var " + Opcodes.ALOAD + " 0",
+    "var " + Opcodes.ALOAD + " 1",
+    "method " + Opcodes.INVOKESTATIC + " " + POJOMATIC_INTERNAL_NAME + ".equals(Ljava/lang/Object;Ljava/lang/Object;)Z",
+    "insn " + Opcodes.IRETURN);
+
+  /**
+   * The instructions of {@code return Pojomatic.hashCode(this);}, as described by
+   * {@link #instructions(ClassFile, byte[])}.
+   */
+  private static final List<String> DELEGATING_HASH_CODE = Arrays.asList(
+    "var " + Opcodes.ALOAD + " 0",
+    "method " + Opcodes.INVOKESTATIC + " " + POJOMATIC_INTERNAL_NAME + ".hashCode(Ljava/lang/Object;)I",
+    "insn " + Opcodes.IRETURN);
+
+  private final boolean delegatesEquals;
+  private final boolean delegatesHashCode;
+
+  private PojomaticDelegation(boolean delegatesEquals, boolean delegatesHashCode) {
+    this.delegatesEquals = delegatesEquals;
+    this.delegatesHashCode = delegatesHashCode;
+  }
+
+  static PojomaticDelegation forClass(Class<?> clazz) {
+    return INSTANCES.get(clazz);
+  }
+
+  /**
+   * @return {@code true} if the class's {@code equals} method only returns the result of
+   * {@link Pojomatic#equals(Object, Object) Pojomatic.equals(this, other)}
+   */
+  boolean delegatesEquals() {
+    return delegatesEquals;
+  }
+
+  /**
+   * @return {@code true} if the class's {@code hashCode} method only returns the result of
+   * {@link Pojomatic#hashCode(Object) Pojomatic.hashCode(this)}
+   */
+  boolean delegatesHashCode() {
+    return delegatesHashCode;
+  }
+
+  private static PojomaticDelegation analyze(Class<?> clazz) {
+    List<String> equalsInstructions = null;
+    List<String> hashCodeInstructions = null;
+    for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+      byte[] classBytes = ClassMemberOrder.classBytes(c);
+      if (classBytes == null) {
+        break;
+      }
+      try {
+        ClassFile classFile = ClassFile.parse(classBytes);
+        for (ClassFile.Member method: classFile.getMethods()) {
+          if ((method.getAccess() & ClassFile.ACC_STATIC) == 0) {
+            if (equalsInstructions == null
+              && method.getName().equals("equals") && method.getDescriptor().equals(EQUALS_DESCRIPTOR)) {
+              equalsInstructions = instructions(classFile, method.getCode());
+            }
+            if (hashCodeInstructions == null
+              && method.getName().equals("hashCode") && method.getDescriptor().equals(HASH_CODE_DESCRIPTOR)) {
+              hashCodeInstructions = instructions(classFile, method.getCode());
+            }
+          }
+        }
+      }
+      catch (IOException | RuntimeException e) {
+        break;
+      }
+      if (equalsInstructions != null && hashCodeInstructions != null) {
+        break;
+      }
+    }
+    return new PojomaticDelegation(
+      DELEGATING_EQUALS.equals(equalsInstructions), DELEGATING_HASH_CODE.equals(hashCodeInstructions));
+  }
+
+  /**
+   * Describe the instructions of a method. Only the instructions which can appear in a method delegating to
+   * {@code Pojomatic} are decoded; at the first instruction of any other kind, "other" is recorded and decoding stops,
+   * since the method cannot be one which delegates.
+   * @param classFile the class file declaring the method
+   * @param code the byte code of the method, or {@code null} if it has none
+   * @return a description of each instruction
+   * @throws IOException if the class file is malformed
+   */
+  private static List<String> instructions(ClassFile classFile, byte[] code) throws IOException {
+    List<String> instructions = new ArrayList<>();
+    if (code == null) {
+      instructions.add("other");
+      return instructions;
+    }
+    int position = 0;
+    while (position < code.length) {
+      int opcode = code[position] & 0xFF;
+      if (opcode >= ALOAD_0 && opcode <= ALOAD_0 + 3) {
+        instructions.add("var " + Opcodes.ALOAD + " " + (opcode - ALOAD_0));
+        position += 1;
+      }
+      else if (opcode == Opcodes.ALOAD) {
+        instructions.add("var " + Opcodes.ALOAD + " " + (code[position + 1] & 0xFF));
+        position += 2;
+      }
+      else if (opcode == Opcodes.INVOKESTATIC) {
+        int index = ((code[position + 1] & 0xFF) << 8) | (code[position + 2] & 0xFF);
+        instructions.add("method " + Opcodes.INVOKESTATIC + " " + classFile.readMethodReference(index));
+        position += 3;
+      }
+      else if (opcode == Opcodes.IRETURN) {
+        instructions.add("insn " + Opcodes.IRETURN);
+        position += 1;
+      }
+      else {
+        instructions.add("other");
+        break;
+      }
+    }
+    return instructions;
+  }
+}
@@ -1,10 +1,14 @@
 package org.pojomatic.internal;
 
+import java.io.IOException;
 import java.lang.invoke.CallSite;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,10 +22,17 @@ import org.kohsuke.asm5.Handle;
 import org.kohsuke.asm5.Label;
 import org.kohsuke.asm5.MethodVisitor;
 import org.kohsuke.asm5.Type;
+import org.pojomatic.HashSink;
 import org.pojomatic.Pojomator;
 import org.pojomatic.PropertyElement;
+import org.pojomatic.annotations.ArrayStrategy;
+import org.pojomatic.annotations.HashStrategy;
 import org.pojomatic.annotations.PojoFormat;
+import org.pojomatic.annotations.PojoHash;
+import org.pojomatic.annotations.Property;
+import org.pojomatic.annotations.PropertyFormat;
 import org.pojomatic.annotations.SkipArrayCheck;
+import org.pojomatic.annotations.StatelessFormatter;
 import org.pojomatic.diff.Differences;
 import org.pojomatic.diff.NoDifferences;
 import org.pojomatic.diff.PropertyDifferences;
@@ -40,6 +51,8 @@ class PojomatorByteCodeGenerator {
   private static final String OBJECT_INTERNAL_NAME = internalName(Object.class);
   private static final String BASE_POJOMATOR_INTERNAL_NAME = internalName(BasePojomator.class);
   static final String POJO_CLASS_FIELD_NAME = "pojoClass";
+  static final String POJO_FORMATTER_FIELD_NAME = "pojoFormatter";
+  static final String PROPERTIES_SIGNATURE_FIELD_NAME = "propertiesSignature";
   private static final String BOOTSTRAP_METHOD_NAME = "bootstrap";
 
   private static final AtomicLong counter = new AtomicLong();
@@ -70,7 +83,11 @@ class PojomatorByteCodeGenerator {
   }
 
   PojomatorByteCodeGenerator(Class<?> pojoClass, ClassProperties classProperties) {
-    this.pojomatorClassName = PojomatorStub.class.getName() + "$" + counter.incrementAndGet();
+    this(PojomatorStub.class.getName() + "$" + counter.incrementAndGet(), pojoClass, classProperties);
+  }
+
+  PojomatorByteCodeGenerator(String pojomatorClassName, Class<?> pojoClass, ClassProperties classProperties) {
+    this.pojomatorClassName = pojomatorClassName;
     this.pojomatorInternalClassName = internalName(pojomatorClassName);
     this.pojomatorInternalClassDesc = "L" + pojomatorInternalClassName + ";";
     this.pojoClass = pojoClass;
@@ -87,6 +104,13 @@ class PojomatorByteCodeGenerator {
     }
   }
 
+  /**
+   * @return the {@link #propertiesSignature(Class, ClassProperties) properties signature} of the class to generate
+   */
+  String propertiesSignature() {
+    return propertiesSignature(pojoClass, classProperties);
+  }
+
   byte[] makeClassBytes() {
     ClassWriter classWriter = new ClassWriter(0);
     acceptClassVisitor(new CheckClassAdapter(classWriter));
@@ -110,14 +134,28 @@ class PojomatorByteCodeGenerator {
 
     makeDoEquals(classWriter);
     makeDoHashCode(classWriter);
+    makeDoHashCode64(classWriter);
+    makeDoHash(classWriter);
+    makeDoAppendTo(classWriter);
     makeDoToString(classWriter);
+    makeDoWriteJson(classWriter);
     makeDoDiff(classWriter);
+    makeDoCompare(classWriter);
 
     classWriter.visitEnd();
   }
 
   private void makeFields(ClassVisitor classVisitor) {
     visitField(classVisitor, ACC_STATIC, POJO_CLASS_FIELD_NAME, classDesc(Class.class));
+    classVisitor.visitField(
+      ACC_STATIC | ACC_FINAL,
+      PROPERTIES_SIGNATURE_FIELD_NAME,
+      classDesc(String.class),
+      null,
+      propertiesSignature(pojoClass, classProperties)).visitEnd();
+    if (sharesPojoFormatter(pojoClass)) {
+      visitField(classVisitor, ACC_STATIC, POJO_FORMATTER_FIELD_NAME, classDesc(EnhancedPojoFormatter.class));
+    }
     for (PropertyElement property: classProperties.getToStringProperties()) {
       visitField(
         classVisitor, ACC_STATIC, propertyFormatterName(property), classDesc(EnhancedPropertyFormatter.class));
@@ -306,8 +344,17 @@ class PojomatorByteCodeGenerator {
     mv.visitLabel(compatibleTypes);
     mv.visitFrame(F_FULL, 3, localVars, 0, NO_STACK);
 
-    // Compare properties
-    for(PropertyElement propertyElement: classProperties.getHashCodeProperties()) {
+    // If hash codes are cached in a field, and are already known to differ, there is no need to compare properties
+    if (classProperties.getHashCodeCacheField() != null) {
+      varThis.acceptLoad(mv);
+      varPojo1.acceptLoad(mv);
+      varPojo2.acceptLoad(mv);
+      invokeVirtual(BasePojomator.class, "cachedHashCodesDiffer", boolean.class, Object.class, Object.class);
+      mv.visitJumpInsn(IFNE, returnFalse);
+    }
+
+    // Compare properties, cheapest first
+    for(PropertyElement propertyElement: EqualsPlanner.plan(classProperties.getEqualsProperties())) {
       visitLineNumber(14, propertyElement);
       visitAccessorAndConvert(varPojo1, propertyElement);
       visitLineNumber(15, propertyElement);
@@ -328,7 +375,7 @@ class PojomatorByteCodeGenerator {
     varThis.withScope(start, end).acceptLocalVariable(mv);
     varPojo1.withScope(start, end).acceptLocalVariable(mv);
     varPojo2.withScope(start, end).acceptLocalVariable(mv);
-    mv.visitMaxs(2 + stackAdjustments.adjustments(2,  1), 3);
+    mv.visitMaxs(3 + stackAdjustments.adjustments(2,  1), 3);
     mv.visitEnd();
   }
 
@@ -355,6 +402,9 @@ class PojomatorByteCodeGenerator {
         mv.visitJumpInsn(IF_ICMPNE, notEqualLabel);
       }
     }
+    else if (EqualsPlanner.isIdentityComparable(propertyType)) {
+      mv.visitJumpInsn(IF_ACMPNE, notEqualLabel);
+    }
     else {
       if(propertyType.isArray()) {
         Class<?> componentType = propertyType.getComponentType();
@@ -362,6 +412,16 @@ class PojomatorByteCodeGenerator {
           visitLineNumber(17, propertyElement);
           invokeStatic(Arrays.class, "equals",boolean.class, propertyType, propertyType);
         }
+        else if (hasExactRuntimeType(propertyType)) {
+          // No value of this type can be an instance of a different array class, so no class check is needed
+          visitLineNumber(18, propertyElement);
+          invokeStatic(
+            Arrays.class,
+            componentType.isArray() ? "deepEquals" : "equals",
+            boolean.class,
+            Object[].class,
+            Object[].class);
+        }
         else {
           visitLineNumber(18, propertyElement);
           invokeStatic(BasePojomator.class, "compareArrays", boolean.class, Object.class, Object.class);
@@ -372,6 +432,13 @@ class PojomatorByteCodeGenerator {
           visitLineNumber(19, propertyElement);
           invokeStatic(BasePojomator.class, "areObjectValuesEqual", boolean.class, Object.class, Object.class);
         }
+        else if (linksNestedEquals(propertyElement)) {
+          visitLineNumber(20, propertyElement);
+          mv.visitInvokeDynamicInsn(
+            BasePojomator.NESTED_EQUALS_PREFIX + qualifiedPropertyName(propertyElement),
+            methodDesc(boolean.class, Object.class, Object.class),
+            bootstrapMethod);
+        }
         else {
           visitLineNumber(20, propertyElement);
           invokeStatic(Objects.class,  "equals", boolean.class, Object.class, Object.class);
@@ -381,6 +448,34 @@ class PojomatorByteCodeGenerator {
     }
   }
 
+  /**
+   * Generate a hash code method which just delegates to another method of the Pojomator taking the same argument.
+   * This is either a {@link Pojomator#doHashCode(Object)} method delegating to
+   * {@link BasePojomator#cachedHashCode(Object)}, or a {@link BasePojomator#computeHashCode(Object)} method
+   * delegating to {@code doHashCode}.
+   * @param cw
+   * @param methodName the name of the method to generate
+   * @param delegateName the name of the method to delegate to
+   */
+  private void makeDelegatingHashCode(ClassVisitor cw, String methodName, String delegateName) {
+    LocalVariable varThis = new LocalVariable("this", pojomatorInternalClassDesc, null, 0);
+    LocalVariable varPojo = new LocalVariable("pojo", pojoClass, pojoDescriptor, 1);
+    mv = cw.visitMethod(ACC_PUBLIC, methodName, methodDesc(int.class, Object.class), null, null);
+    mv.visitCode();
+    Label start = visitNewLabel();
+    visitLineNumber(21, null);
+    varThis.acceptLoad(mv);
+    varPojo.acceptLoad(mv);
+    mv.visitMethodInsn(
+      INVOKEVIRTUAL, pojomatorInternalClassName, delegateName, methodDesc(int.class, Object.class), false);
+    mv.visitInsn(IRETURN);
+    Label end = visitNewLabel();
+    varThis.withScope(start, end).acceptLocalVariable(mv);
+    varPojo.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(2, 2);
+    mv.visitEnd();
+  }
+
   /**
    * Generate the {@link Pojomator#doHashCode(Object)} method.
    * @param cw
@@ -392,7 +487,18 @@ class PojomatorByteCodeGenerator {
     int longOrDoubleStackAdjustment = 0;
     Object[] localVars = new Object[] {pojomatorInternalClassName, OBJECT_INTERNAL_NAME};
 
-    mv = cw.visitMethod(ACC_PUBLIC, "doHashCode", methodDesc(int.class, Object.class), null, null);
+    // If hash codes are cached, the hash code is computed by computeHashCode, which is only called on a cache miss.
+    // Otherwise, the hash code is computed by doHashCode itself, and computeHashCode just calls it.
+    boolean hashCodeCached = classProperties.isHashCodeCached();
+    if (hashCodeCached) {
+      makeDelegatingHashCode(cw, "doHashCode", "cachedHashCode");
+    }
+    else {
+      makeDelegatingHashCode(cw, "computeHashCode", "doHashCode");
+    }
+
+    mv = cw.visitMethod(
+      ACC_PUBLIC, hashCodeCached ? "computeHashCode" : "doHashCode", methodDesc(int.class, Object.class), null, null);
     mv.visitCode();
     Label start = visitNewLabel();
     visitLineNumber(21, null);
@@ -400,17 +506,32 @@ class PojomatorByteCodeGenerator {
     visitLineNumber(22, null);
     checkNotNullPop();
 
-    //algorithm:
+    //algorithm, for HashStrategy.STANDARD:
     // hashCode(prop_n) + 31 * (hashCode(prop_n-1) + 31 * ( ... (hashCode(prop_1) + 31 * 1) ... ))
-
-    mv.visitInsn(ICONST_1); // this will just be multiplied by 31; let the optimizer take care of it
+    //for other strategies:
+    // finish(mix(mix( ... mix(seed, hashCode(prop_1)) ... , hashCode(prop_n-1)), hashCode(prop_n)))
+
+    HashStrategy hashStrategy = hashStrategy(pojoClass);
+    int propertyCount = classProperties.getHashCodeProperties().size();
+    switch (hashStrategy) {
+      case MURMUR3:
+        mv.visitLdcInsn(BasePojomator.MURMUR3_SEED);
+        break;
+      case XXHASH:
+        mv.visitLdcInsn(BasePojomator.xxHashSeed(propertyCount));
+        break;
+      default:
+        mv.visitInsn(ICONST_1); // this will just be multiplied by 31; let the optimizer take care of it
+    }
 
     for(PropertyElement propertyElement: classProperties.getHashCodeProperties()) {
-      // multiply what we have so far by 31.
-      visitLineNumber(23, propertyElement);
-      mv.visitIntInsn(BIPUSH, 31);
-      visitLineNumber(24, propertyElement);
-      mv.visitInsn(IMUL);
+      if (hashStrategy == HashStrategy.STANDARD) {
+        // multiply what we have so far by 31.
+        visitLineNumber(23, propertyElement);
+        mv.visitIntInsn(BIPUSH, 31);
+        visitLineNumber(24, propertyElement);
+        mv.visitInsn(IMUL);
+      }
 
       visitLineNumber(25, propertyElement);
       visitAccessorAndConvert(varPojo, propertyElement); // grab the property value, converting a float or double
@@ -477,11 +598,16 @@ class PojomatorByteCodeGenerator {
         if(propertyType.isArray()) {
           visitLineNumber(28, propertyElement);
 
-         invokeStatic(
-           Arrays.class,
-           isDeepArray(propertyElement) ? "deepHashCode" : "hashCode",
-           int.class,
-           propertyType.getComponentType().isPrimitive() ? propertyType : Object[].class);
+          if (usesVectorHashCode(propertyElement)) {
+            invokeStatic(BasePojomator.class, "vectorHashCode", int.class, propertyType);
+          }
+          else {
+            invokeStatic(
+              Arrays.class,
+              isDeepArray(propertyElement) ? "deepHashCode" : "hashCode",
+              int.class,
+              propertyType.getComponentType().isPrimitive() ? propertyType : Object[].class);
+          }
         }
         else if (isObjectPossiblyHoldingArray(propertyElement)) {
           // it *could* be an array; if so, we want to do an array hashCode.
@@ -506,6 +632,13 @@ class PojomatorByteCodeGenerator {
           visitLineNumber(31, propertyElement);
           invokeStatic(BasePojomator.class, "arrayHashCode", int.class, Object.class, boolean.class);
         }
+        else if (linksNestedHashCode(propertyElement)) {
+          visitLineNumber(32, propertyElement);
+          mv.visitInvokeDynamicInsn(
+            BasePojomator.NESTED_HASH_CODE_PREFIX + qualifiedPropertyName(propertyElement),
+            methodDesc(int.class, Object.class),
+            bootstrapMethod);
+        }
         else {
           visitLineNumber(32, propertyElement);
           invokeVirtual(Object.class, "hashCode", int.class);
@@ -514,8 +647,28 @@ class PojomatorByteCodeGenerator {
         mv.visitLabel(hashCodeDetermined);
         mv.visitFrame(F_FULL, 2, localVars, 2, new Object[] {INTEGER, INTEGER});
       }
-      // add result to what we have so far
-      mv.visitInsn(IADD);
+      // combine result with what we have so far
+      switch (hashStrategy) {
+        case MURMUR3:
+          invokeStatic(BasePojomator.class, "murmur3Mix", int.class, int.class, int.class);
+          break;
+        case XXHASH:
+          invokeStatic(BasePojomator.class, "xxHashMix", int.class, int.class, int.class);
+          break;
+        default:
+          mv.visitInsn(IADD);
+      }
+    }
+    switch (hashStrategy) {
+      case MURMUR3:
+        mv.visitLdcInsn(propertyCount);
+        invokeStatic(BasePojomator.class, "murmur3Finish", int.class, int.class, int.class);
+        break;
+      case XXHASH:
+        invokeStatic(BasePojomator.class, "xxHashFinish", int.class, int.class);
+        break;
+      default:
+        break;
     }
     mv.visitInsn(IRETURN);
     Label end = visitNewLabel();
@@ -526,110 +679,472 @@ class PojomatorByteCodeGenerator {
   }
 
   /**
-   * Generate {@link Pojomator#doToString(Object)}
+   * Generate the {@link Pojomator#doCompare(Object, Object)} method.
    * @param cw
    */
-  private void makeDoToString(ClassVisitor cw) {
-    int longOrDoubleStackAdjustment = 1;
+  private void makeDoCompare(ClassVisitor cw) {
     LocalVariable varThis = new LocalVariable("this", pojomatorInternalClassDesc, null, 0);
-    LocalVariable varPojo = new LocalVariable("pojo", pojoClass, null, 1);
-    LocalVariable varPojoFormatter=
-      new LocalVariable("pojoFormattor", classDesc(EnhancedPojoFormatter.class), null, 2);
-    LocalVariable varBuilder= new LocalVariable("builder", classDesc(String.class), null, 3);
+    LocalVariable varPojo1 = new LocalVariable("pojo1", pojoClass, pojoDescriptor, 1);
+    LocalVariable varPojo2 = new LocalVariable("pojo2", pojoClass, pojoDescriptor, 2);
 
-    mv = cw.visitMethod(ACC_PUBLIC, "doToString", methodDesc(String.class, Object.class), null, null);
+    Object[] localVars = new Object[] {pojomatorInternalClassName, OBJECT_INTERNAL_NAME, OBJECT_INTERNAL_NAME};
+
+    mv = cw.visitMethod(ACC_PUBLIC, "doCompare", methodDesc(int.class, Object.class, Object.class), null, null);
+    mv.visitCode();
+    Label start = visitNewLabel();
+    varPojo1.acceptLoad(mv);
+    visitLineNumber(70, null);
+    checkNotNullPop();
+    varPojo2.acceptLoad(mv);
+    visitLineNumber(71, null);
+    checkNotNullPop();
+
+    // same instance; return 0
+    varPojo1.acceptLoad(mv);
+    varPojo2.acceptLoad(mv);
+    Label notSameInstance = new Label();
+    mv.visitJumpInsn(IF_ACMPNE, notSameInstance);
+    mv.visitInsn(ICONST_0);
+    mv.visitInsn(IRETURN);
+    mv.visitLabel(notSameInstance);
+    mv.visitFrame(F_FULL, 3, localVars, 0, NO_STACK);
+
+    for (PropertyElement propertyElement: EqualsPlanner.planCompare(classProperties.getEqualsProperties())) {
+      visitLineNumber(72, propertyElement);
+      visitAccessor(varPojo1, propertyElement);
+      visitLineNumber(73, propertyElement);
+      visitAccessor(varPojo2, propertyElement);
+      visitLineNumber(74, propertyElement);
+      Class<?> propertyType = propertyElement.getPropertyType();
+      if (propertyType.isPrimitive()) {
+        invokeStatic(Primitives.getWrapperClass(propertyType), "compare", int.class, propertyType, propertyType);
+      }
+      else {
+        invokeStatic(BasePojomator.class, "compareValues", int.class, Object.class, Object.class);
+      }
+      // if the comparison is not 0, return it
+      mv.visitInsn(DUP);
+      Label propertiesEqual = new Label();
+      mv.visitJumpInsn(IFEQ, propertiesEqual);
+      mv.visitInsn(IRETURN);
+      mv.visitLabel(propertiesEqual);
+      mv.visitFrame(F_FULL, 3, localVars, 1, new Object[] {INTEGER});
+      mv.visitInsn(POP);
+    }
+
+    mv.visitInsn(ICONST_0);
+    mv.visitInsn(IRETURN);
+    Label end = visitNewLabel();
+    varThis.withScope(start, end).acceptLocalVariable(mv);
+    varPojo1.withScope(start, end).acceptLocalVariable(mv);
+    varPojo2.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(4, 3);
+    mv.visitEnd();
+  }
+
+  /**
+   * Generate the {@link Pojomator#doHashCode64(Object)} method.
+   * @param cw
+   */
+  private void makeDoHashCode64(ClassVisitor cw) {
+    LocalVariable varThis = new LocalVariable("this", pojomatorInternalClassDesc, null, 0);
+    LocalVariable varPojo = new LocalVariable("pojo", pojoClass, pojoDescriptor, 1);
+
+    mv = cw.visitMethod(ACC_PUBLIC, "doHashCode64", methodDesc(long.class, Object.class), null, null);
+    mv.visitCode();
+    Label start = visitNewLabel();
+    visitLineNumber(67, null);
+    varPojo.acceptLoad(mv);
+    checkNotNullPop();
+
+    //algorithm:
+    // hash64Finish(hash64Mix( ... hash64Mix(seed, hashCode64(prop_1)) ... , hashCode64(prop_n)))
+
+    mv.visitLdcInsn(BasePojomator.hash64Seed(classProperties.getHashCodeProperties().size()));
+
+    for(PropertyElement propertyElement: classProperties.getHashCodeProperties()) {
+      visitLineNumber(68, propertyElement);
+      visitAccessorAndConvert(varPojo, propertyElement); // grab the property value, converting a float or double
+      Class<?> propertyType = propertyElement.getPropertyType();
+      if (propertyType.isPrimitive()) {
+        switch (propertyType.getName()) {
+          case "boolean":
+            invokeStatic(BasePojomator.class, "hashCode64", long.class, boolean.class);
+            break;
+          case "byte":
+          case "char":
+          case "int":
+          case "short":
+          case "float":
+            mv.visitInsn(I2L);
+            break;
+          case "double":
+          case "long":
+            break; // already a long
+          default:
+            throw new IllegalStateException("unknown primitive type " + propertyType.getName());
+        }
+      }
+      else {
+        invokeStatic(BasePojomator.class, "hashCode64", long.class, Object.class);
+      }
+      visitLineNumber(69, propertyElement);
+      invokeStatic(BasePojomator.class, "hash64Mix", long.class, long.class, long.class);
+    }
+    invokeStatic(BasePojomator.class, "hash64Finish", long.class, long.class);
+    mv.visitInsn(LRETURN);
+    Label end = visitNewLabel();
+    varThis.withScope(start, end).acceptLocalVariable(mv);
+    varPojo.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(4, 2);
+    mv.visitEnd();
+  }
+
+  /**
+   * Generate the {@link Pojomator#doHash(Object, HashSink)} method.
+   * @param cw
+   */
+  private void makeDoHash(ClassVisitor cw) {
+    LocalVariable varThis = new LocalVariable("this", pojomatorInternalClassDesc, null, 0);
+    LocalVariable varPojo = new LocalVariable("pojo", pojoClass, pojoDescriptor, 1);
+    LocalVariable varSink = new LocalVariable("sink", classDesc(HashSink.class), null, 2);
+
+    mv = cw.visitMethod(ACC_PUBLIC, "doHash", methodDesc(void.class, Object.class, HashSink.class), null, null);
     mv.visitCode();
     Label start = visitNewLabel();
+    visitLineNumber(75, null);
     varPojo.acceptLoad(mv);
     checkNotNullPop();
+    varSink.acceptLoad(mv);
+    checkNotNullPop();
 
-    constructEnhancedPojoFormatter();
-    varPojoFormatter.acceptStore(mv);
+    for(PropertyElement propertyElement: classProperties.getHashCodeProperties()) {
+      Class<?> propertyType = propertyElement.getPropertyType();
+      if (propertyType.isPrimitive()) {
+        varSink.acceptLoad(mv);
+        visitLineNumber(76, propertyElement);
+        visitAccessor(varPojo, propertyElement);
+        visitLineNumber(77, propertyElement);
+        String typeName = propertyType.getName();
+        invokeInterface(
+          HashSink.class,
+          "put" + Character.toUpperCase(typeName.charAt(0)) + typeName.substring(1),
+          void.class,
+          propertyType);
+      }
+      else {
+        visitLineNumber(76, propertyElement);
+        visitAccessor(varPojo, propertyElement);
+        varSink.acceptLoad(mv);
+        visitLineNumber(77, propertyElement);
+        invokeStatic(BasePojomator.class, "hashValue", void.class, Object.class, HashSink.class);
+      }
+    }
+    mv.visitInsn(RETURN);
+    Label end = visitNewLabel();
+    varThis.withScope(start, end).acceptLocalVariable(mv);
+    varPojo.withScope(start, end).acceptLocalVariable(mv);
+    varSink.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(4, 3);
+    mv.visitEnd();
+  }
+
+  /**
+   * Generate {@link Pojomator#doToString(Object)}, which appends to a {@link StringBuilder} from
+   * {@link BasePojomator#newToStringBuilder()} with {@link Pojomator#doAppendTo(Object, StringBuilder)}.
+   * @param cw
+   */
+  private void makeDoToString(ClassVisitor cw) {
+    LocalVariable varThis = new LocalVariable("this", pojomatorInternalClassDesc, null, 0);
+    LocalVariable varPojo = new LocalVariable("pojo", pojoClass, null, 1);
+    LocalVariable varBuilder= new LocalVariable("builder", classDesc(StringBuilder.class), null, 2);
 
+    mv = cw.visitMethod(ACC_PUBLIC, "doToString", methodDesc(String.class, Object.class), null, null);
+    mv.visitCode();
+    Label start = visitNewLabel();
+    varThis.acceptLoad(mv);
     visitLineNumber(33, null);
-    mv.visitTypeInsn(NEW, internalName(StringBuilder.class));
-    mv.visitInsn(DUP);
-    construct(StringBuilder.class);
+    invokeVirtual(BasePojomator.class, "newToStringBuilder", StringBuilder.class);
     varBuilder.acceptStore(mv);
 
-    varPojoFormatter.acceptLoad(mv);
+    varThis.acceptLoad(mv);
+    varPojo.acceptLoad(mv);
     varBuilder.acceptLoad(mv);
-    loadPojoClass();
+    visitLineNumber(78, null);
+    mv.visitMethodInsn(
+      INVOKEVIRTUAL,
+      pojomatorInternalClassName,
+      "doAppendTo",
+      methodDesc(void.class, Object.class, StringBuilder.class),
+      false);
 
-    visitLineNumber(34, null);
+    // return the builder's contents
+    varThis.acceptLoad(mv);
+    varBuilder.acceptLoad(mv);
+    visitLineNumber(44, null);
+    invokeVirtual(BasePojomator.class, "finishToString", String.class, StringBuilder.class);
+    mv.visitInsn(ARETURN);
 
-    invokeInterface(EnhancedPojoFormatter.class,  "appendToStringPrefix", void.class, StringBuilder.class, Class.class);
+    Label end = visitNewLabel();
+    varThis.withScope(start, end).acceptLocalVariable(mv);
+    varPojo.withScope(start, end).acceptLocalVariable(mv);
+    varBuilder.withScope(start, end).acceptLocalVariable(mv);
+    mv.visitMaxs(3, 3);
+    mv.visitEnd();
+  }
 
-    for(PropertyElement propertyElement: classProperties.getToStringProperties()) {
-      if (isWide(propertyElement)) {
-        longOrDoubleStackAdjustment = 1; // having any double-wide values on our stack increases max stack depth by one
-      }
+  /**
+   * Generate {@link Pojomator#doAppendTo(Object, StringBuilder)}
+   * @param cw
+   */
+  private void makeDoAppendTo(ClassVisitor cw) {
+    int longOrDoubleStackAdjustment = 1;
+    String[] constantText = constantFormatterText(pojoClass, classProperties);
+    LocalVariable varThis = new LocalVariable("this", pojomatorInternalClassDesc, null, 0);
+    LocalVariable varPojo = new LocalVariable("pojo", pojoClass, null, 1);
+    LocalVariable varBuilder= new LocalVariable("builder", classDesc(StringBuilder.class), null, 2);
+    LocalVariable varPojoFormatter=
+      new LocalVariable("pojoFormattor", classDesc(EnhancedPojoFormatter.class), null, 3);
+
+    mv = cw.visitMethod(
+      ACC_PUBLIC, "doAppendTo", methodDesc(void.class, Object.class, StringBuilder.class), null, null);
+    mv.visitCode();
+    Label start = visitNewLabel();
+    varPojo.acceptLoad(mv);
+    checkNotNullPop();
+    varBuilder.acceptLoad(mv);
+    checkNotNullPop();
+
+    if (constantText == null) {
+      loadEnhancedPojoFormatter();
+      varPojoFormatter.acceptStore(mv);
 
-      // append the property prefix
       varPojoFormatter.acceptLoad(mv);
       varBuilder.acceptLoad(mv);
-      visitLineNumber(35, propertyElement);
-      loadPropertyElementField(propertyElement);
-      visitLineNumber(36, propertyElement);
+      loadPojoClass();
+
+      visitLineNumber(34, null);
+
       invokeInterface(
-        EnhancedPojoFormatter.class, "appendPropertyPrefix", void.class, StringBuilder.class, PropertyElement.class);
+        EnhancedPojoFormatter.class,  "appendToStringPrefix", void.class, StringBuilder.class, Class.class);
+    }
 
-      // get the propertyFormatter for this property
-      visitLineNumber(37, propertyElement);
-      mv.visitFieldInsn(
-        GETSTATIC,
-        pojomatorInternalClassName,
-        propertyFormatterName(propertyElement),
-        classDesc(EnhancedPropertyFormatter.class));
+    int propertyIndex = 0;
+    for(PropertyElement propertyElement: classProperties.getToStringProperties()) {
+      if (isWide(propertyElement)) {
+        longOrDoubleStackAdjustment = 1; // having any double-wide values on our stack increases max stack depth by one
+      }
 
-      // The propertyFormatter will format the property value and append the results to our StringBuilder
-      varBuilder.acceptLoad(mv);
-      visitLineNumber(38, propertyElement);
-      visitAccessor(varPojo, propertyElement);
-      Class<?> appendType = appendFormattedType(propertyElement.getPropertyType());
-      if (isObjectPossiblyHoldingArray(propertyElement)) {
-        visitLineNumber(39, propertyElement);
+      // append the property prefix, which for a constant formatter includes the previous property's suffix
+      if (constantText == null) {
+        varPojoFormatter.acceptLoad(mv);
+        varBuilder.acceptLoad(mv);
+        visitLineNumber(35, propertyElement);
+        loadPropertyElementField(propertyElement);
+        visitLineNumber(36, propertyElement);
         invokeInterface(
-          EnhancedPropertyFormatter.class, "appendFormattedPossibleArray", void.class, StringBuilder.class, appendType);
+          EnhancedPojoFormatter.class, "appendPropertyPrefix", void.class, StringBuilder.class, PropertyElement.class);
       }
       else {
-        visitLineNumber(40, propertyElement);
-        invokeInterface(
-          EnhancedPropertyFormatter.class,  "appendFormatted", void.class, StringBuilder.class, appendType);
+        appendConstantText(varBuilder, constantText[propertyIndex++]);
       }
 
+      appendFormattedProperty(varPojo, varBuilder, propertyElement);
+
       // have any property suffix appended to the StringBuilder
+      if (constantText == null) {
+        varPojoFormatter.acceptLoad(mv);
+        varBuilder.acceptLoad(mv);
+        visitLineNumber(41, propertyElement);
+        loadPropertyElementField(propertyElement);
+        visitLineNumber(42, propertyElement);
+        invokeInterface(
+          EnhancedPojoFormatter.class,  "appendPropertySuffix", void.class, StringBuilder.class, PropertyElement.class);
+      }
+    }
+
+    // Have any toString suffix appended
+    if (constantText == null) {
       varPojoFormatter.acceptLoad(mv);
       varBuilder.acceptLoad(mv);
-      visitLineNumber(41, propertyElement);
-      loadPropertyElementField(propertyElement);
-      visitLineNumber(42, propertyElement);
+      loadPojoClass();
+      visitLineNumber(43, null);
       invokeInterface(
-        EnhancedPojoFormatter.class,  "appendPropertySuffix", void.class, StringBuilder.class, PropertyElement.class);
+        EnhancedPojoFormatter.class,  "appendToStringSuffix", void.class, StringBuilder.class, Class.class);
+    }
+    else {
+      appendConstantText(varBuilder, constantText[propertyIndex]);
     }
+    mv.visitInsn(RETURN);
 
-    // Have any toString suffix appended
-    varPojoFormatter.acceptLoad(mv);
-    varBuilder.acceptLoad(mv);
-    loadPojoClass();
-    visitLineNumber(43, null);
-    invokeInterface(EnhancedPojoFormatter.class,  "appendToStringSuffix", void.class, StringBuilder.class, Class.class);
+    Label end = visitNewLabel();
+    varThis.withScope(start, end).acceptLocalVariable(mv);
+    varPojo.withScope(start, end).acceptLocalVariable(mv);
+    varBuilder.withScope(start, end).acceptLocalVariable(mv);
+    if (constantText == null) {
+      varPojoFormatter.withScope(start, end).acceptLocalVariable(mv);
+    }
+    mv.visitMaxs(3 + longOrDoubleStackAdjustment, 4);
+    mv.visitEnd();
+  }
 
-    // invoke toString and return the result
+  /**
+   * Have the propertyFormatter for a property format the property value, and append the results to a builder. This
+   * will contribute 3 or 4 to the max stack depth, depending on whether the property is a long or double.
+   * @param varPojo the pojo
+   * @param varBuilder the builder to append to
+   * @param propertyElement the property
+   */
+  private void appendFormattedProperty(
+    LocalVariable varPojo, LocalVariable varBuilder, PropertyElement propertyElement) {
+    // get the propertyFormatter for this property
+    visitLineNumber(37, propertyElement);
+    mv.visitFieldInsn(
+      GETSTATIC,
+      pojomatorInternalClassName,
+      propertyFormatterName(propertyElement),
+      classDesc(EnhancedPropertyFormatter.class));
+
+    // The propertyFormatter will format the property value and append the results to our StringBuilder
     varBuilder.acceptLoad(mv);
-    visitLineNumber(44, null);
-    invokeVirtual(StringBuilder.class, "toString", String.class);
-    mv.visitInsn(ARETURN);
+    visitLineNumber(38, propertyElement);
+    visitAccessor(varPojo, propertyElement);
+    Class<?> appendType = appendFormattedType(propertyElement.getPropertyType());
+    if (isObjectPossiblyHoldingArray(propertyElement)) {
+      visitLineNumber(39, propertyElement);
+      invokeInterface(
+        EnhancedPropertyFormatter.class, "appendFormattedPossibleArray", void.class, StringBuilder.class, appendType);
+    }
+    else {
+      visitLineNumber(40, propertyElement);
+      invokeInterface(
+        EnhancedPropertyFormatter.class,  "appendFormatted", void.class, StringBuilder.class, appendType);
+    }
+  }
+
+  /**
+   * Generate {@link Pojomator#doWriteJson(Object, Appendable)}
+   * @param cw
+   */
+  private void makeDoWriteJson(ClassVisitor cw) {
+    LocalVariable varThis = new LocalVariable("this", pojomatorInternalClassDesc, null, 0);
+    LocalVariable varPojo = new LocalVariable("pojo", pojoClass, null, 1);
+    LocalVariable varOut = new LocalVariable("out", classDesc(Appendable.class), null, 2);
+    LocalVariable varFormatted = new LocalVariable("formatted", classDesc(StringBuilder.class), null, 3);
+
+    mv = cw.visitMethod(
+      ACC_PUBLIC,
+      "doWriteJson",
+      methodDesc(void.class, Object.class, Appendable.class),
+      null,
+      new String[] { internalName(IOException.class) });
+    mv.visitCode();
+    Label start = visitNewLabel();
+    visitLineNumber(80, null);
+    varPojo.acceptLoad(mv);
+    checkNotNullPop();
+    varOut.acceptLoad(mv);
+    checkNotNullPop();
+
+    // property values with a PropertyFormat are formatted into a builder which is shared between them
+    boolean hasFormattedProperties = false;
+    for (PropertyElement propertyElement: classProperties.getToStringProperties()) {
+      hasFormattedProperties |= hasPropertyFormat(propertyElement);
+    }
+    if (hasFormattedProperties) {
+      mv.visitTypeInsn(NEW, internalName(StringBuilder.class));
+      mv.visitInsn(DUP);
+      construct(StringBuilder.class);
+      varFormatted.acceptStore(mv);
+    }
+
+    String separator = "{";
+    for (PropertyElement propertyElement: classProperties.getToStringProperties()) {
+      writeJsonText(varOut, separator + jsonString(propertyElement.getName()) + ":");
+      separator = ",";
+      Class<?> propertyType = propertyElement.getPropertyType();
+      if (hasPropertyFormat(propertyElement)) {
+        varFormatted.acceptLoad(mv);
+        mv.visitInsn(ICONST_0);
+        visitLineNumber(81, propertyElement);
+        invokeVirtual(StringBuilder.class, "setLength", void.class, int.class);
+        appendFormattedProperty(varPojo, varFormatted, propertyElement);
+        varFormatted.acceptLoad(mv);
+        varOut.acceptLoad(mv);
+        visitLineNumber(82, propertyElement);
+        invokeStatic(BasePojomator.class, "writeJsonString", void.class, CharSequence.class, Appendable.class);
+      }
+      else {
+        visitAccessor(varPojo, propertyElement);
+        varOut.acceptLoad(mv);
+        visitLineNumber(83, propertyElement);
+        if (propertyType.isPrimitive()) {
+          Class<?> jsonType =
+            propertyType == byte.class || propertyType == short.class ? int.class : propertyType;
+          invokeStatic(BasePojomator.class, "writeJson", void.class, jsonType, Appendable.class);
+        }
+        else {
+          invokeStatic(BasePojomator.class, "writeJsonValue", void.class, Object.class, Appendable.class);
+        }
+      }
+    }
+    writeJsonText(varOut, separator.equals("{") ? "{}" : "}");
+    mv.visitInsn(RETURN);
 
     Label end = visitNewLabel();
     varThis.withScope(start, end).acceptLocalVariable(mv);
     varPojo.withScope(start, end).acceptLocalVariable(mv);
-    varPojoFormatter.withScope(start, end).acceptLocalVariable(mv);
-    varBuilder.withScope(start, end).acceptLocalVariable(mv);
-    mv.visitMaxs(3 + longOrDoubleStackAdjustment, 4);
+    varOut.withScope(start, end).acceptLocalVariable(mv);
+    if (hasFormattedProperties) {
+      varFormatted.withScope(start, end).acceptLocalVariable(mv);
+    }
+    mv.visitMaxs(4, 4);
     mv.visitEnd();
   }
 
+  /**
+   * Write constant text to an {@link Appendable}.
+   * @param varOut the appendable to write to
+   * @param text the text to write
+   */
+  private void writeJsonText(LocalVariable varOut, String text) {
+    varOut.acceptLoad(mv);
+    mv.visitLdcInsn(text);
+    visitLineNumber(84, null);
+    invokeInterface(Appendable.class, "append", Appendable.class, CharSequence.class);
+    mv.visitInsn(POP);
+  }
+
+  private static String jsonString(String string) {
+    StringBuilder builder = new StringBuilder();
+    try {
+      BasePojomator.writeJsonString(string, builder);
+    }
+    catch (IOException e) {
+      throw new IllegalStateException(e); // StringBuilder does not throw IOException
+    }
+    return builder.toString();
+  }
+
+  private static boolean hasPropertyFormat(PropertyElement propertyElement) {
+    return propertyElement.getElement().isAnnotationPresent(PropertyFormat.class);
+  }
+
+  /**
+   * Append constant text to the builder, unless it is empty.
+   * @param varBuilder the builder to append to
+   * @param text the text to append
+   */
+  private void appendConstantText(LocalVariable varBuilder, String text) {
+    if (!text.isEmpty()) {
+      varBuilder.acceptLoad(mv);
+      mv.visitLdcInsn(text);
+      visitLineNumber(79, null);
+      invokeVirtual(StringBuilder.class, "append", StringBuilder.class, String.class);
+      mv.visitInsn(POP);
+    }
+  }
+
   private static Class<?> appendFormattedType(Class<?> propertyType) {
     if (propertyType.isPrimitive()) {
       return propertyType;
@@ -651,13 +1166,19 @@ class PojomatorByteCodeGenerator {
   }
 
   /**
-   * Construct the pojoFormatter to use. This method will contribute 2 or 4 to the max stack depth,
-   * depending on whether the pojoFormatter implements {@link EnhancedPojoFormatter} or not.
+   * Load the pojoFormatter to use, either from the static field holding the shared instance, or by constructing a new
+   * one. This method will contribute 1, 2 or 4 to the max stack depth, depending on whether the pojoFormatter is
+   * shared, and if not, whether it implements {@link EnhancedPojoFormatter} or not.
    */
   @SuppressWarnings("deprecation")
-  private void constructEnhancedPojoFormatter() {
+  private void loadEnhancedPojoFormatter() {
     PojoFormat format = pojoClass.getAnnotation(PojoFormat.class);
-    if (format == null) {
+    if (sharesPojoFormatter(pojoClass)) {
+      visitLineNumber(45, null);
+      mv.visitFieldInsn(
+        GETSTATIC, pojomatorInternalClassName, POJO_FORMATTER_FIELD_NAME, classDesc(EnhancedPojoFormatter.class));
+    }
+    else if (format == null) {
       mv.visitTypeInsn(NEW, internalName(DefaultEnhancedPojoFormatter.class));
       mv.visitInsn(DUP);
       visitLineNumber(45, null);
@@ -685,6 +1206,108 @@ class PojomatorByteCodeGenerator {
     }
   }
 
+  /**
+   * Whether a single instance of the pojoFormatter for {@code pojoClass} is shared by all calls to
+   * {@link Pojomator#doAppendTo(Object, StringBuilder)}, rather than a new instance being constructed for each call.
+   * This is the case if {@code pojoClass} specifies a formatter which is
+   * {@link #isStatelessFormatter(Class) stateless}, but whose text is not {@link #hasConstantFormatterText(Class)
+   * constant}; constant text is appended without calling the formatter at all.
+   * @param pojoClass the class being generated for
+   * @return {@code true} if the pojoFormatter is held in a static field of the Pojomator class
+   */
+  static boolean sharesPojoFormatter(Class<?> pojoClass) {
+    PojoFormat format = pojoClass.getAnnotation(PojoFormat.class);
+    return format != null && !hasConstantFormatterText(pojoClass) && isStatelessFormatter(format.value());
+  }
+
+  /**
+   * Whether the text the pojoFormatter for {@code pojoClass} appends around property values is always the same, so
+   * that it can be computed once, when generating the Pojomator class, and appended as constant strings. This is the
+   * case if {@code pojoClass} does not specify a formatter, or specifies {@link DefaultEnhancedPojoFormatter}, or
+   * specifies one annotated with {@link StatelessFormatter#constant() @StatelessFormatter(constant = true)}.
+   * @param pojoClass the class being generated for
+   * @return {@code true} if the pojoFormatter text is constant
+   */
+  static boolean hasConstantFormatterText(Class<?> pojoClass) {
+    PojoFormat format = pojoClass.getAnnotation(PojoFormat.class);
+    if (format == null || format.value() == DefaultEnhancedPojoFormatter.class) {
+      return true;
+    }
+    StatelessFormatter statelessFormatter = format.value().getAnnotation(StatelessFormatter.class);
+    return statelessFormatter != null && statelessFormatter.constant();
+  }
+
+  /**
+   * Compute the constant text the pojoFormatter for {@code pojoClass} appends around property values, by having a new
+   * instance of it format a POJO whose property values are all empty.
+   * @param pojoClass the class being generated for
+   * @param classProperties the properties of {@code pojoClass}
+   * @return {@code null} if the text is not {@link #hasConstantFormatterText(Class) constant}, or if the formatter
+   * fails to produce it, in which case it is left to fail when formatting; otherwise, an array whose element {@code i}
+   * is the text to append before the value of the {@code i}th {@code toString} property, and whose last element is the
+   * text to append after the last value.
+   */
+  @SuppressWarnings("deprecation")
+  static String[] constantFormatterText(Class<?> pojoClass, ClassProperties classProperties) {
+    if (!hasConstantFormatterText(pojoClass)) {
+      return null;
+    }
+    PojoFormat format = pojoClass.getAnnotation(PojoFormat.class);
+    EnhancedPojoFormatter pojoFormatter;
+    if (format == null) {
+      pojoFormatter = new DefaultEnhancedPojoFormatter();
+    }
+    else {
+      try {
+        pojoFormatter = PojomatorFactory.newPojoFormatter(format.value());
+      }
+      catch (ReflectiveOperationException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    Collection<PropertyElement> properties = classProperties.getToStringProperties();
+    String[] text = new String[properties.size() + 1];
+    StringBuilder builder = new StringBuilder();
+    try {
+      pojoFormatter.appendToStringPrefix(builder, pojoClass);
+      int textStart = 0;
+      int propertyIndex = 0;
+      for (PropertyElement property: properties) {
+        pojoFormatter.appendPropertyPrefix(builder, property);
+        text[propertyIndex++] = builder.substring(textStart);
+        textStart = builder.length();
+        pojoFormatter.appendPropertySuffix(builder, property);
+      }
+      pojoFormatter.appendToStringSuffix(builder, pojoClass);
+      text[propertyIndex] = builder.substring(textStart);
+    }
+    catch (RuntimeException | LinkageError e) {
+      // for example, Class.getSimpleName fails for a nested class loaded without its enclosing class
+      return null;
+    }
+    return text;
+  }
+
+  /**
+   * Whether instances of a formatter class can be shared; this is the case if it is annotated with
+   * {@link StatelessFormatter}, or if neither it nor any of its superclasses declare an instance field.
+   * @param formatterClass the formatter class
+   * @return {@code true} if instances of {@code formatterClass} can be shared
+   */
+  static boolean isStatelessFormatter(Class<?> formatterClass) {
+    if (formatterClass.isAnnotationPresent(StatelessFormatter.class)) {
+      return true;
+    }
+    for (Class<?> clazz = formatterClass; clazz != Object.class; clazz = clazz.getSuperclass()) {
+      for (Field field: clazz.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
   /**
    * Load a reference to the pojo class. We cannot refer to this directly, since the class may not be visible to us,
    * so instead, we store a reference in a static field which is populated by {@link PojomatorFactory}
@@ -740,7 +1363,7 @@ class PojomatorByteCodeGenerator {
 
     List<LocalVariable> propertyVariables = new ArrayList<>(); // these will occur in a block scope
     // compare properties
-    for(PropertyElement propertyElement: classProperties.getHashCodeProperties()) {
+    for(PropertyElement propertyElement: classProperties.getEqualsProperties()) {
       int width = isWide(propertyElement) ? 2 : 1;
       Class<?> propertyType = propertyElement.getPropertyType();
       LocalVariable varProp1 = new LocalVariable(
@@ -852,6 +1475,70 @@ class PojomatorByteCodeGenerator {
     invokeVirtual(BasePojomator.class, "checkCompatibleForEquality", void.class, Object.class, String.class);
   }
 
+  /**
+   * Whether a property should be hashed with {@link ArrayStrategy#VECTOR}.
+   * @param propertyElement the property
+   * @return {@code true} if the property is a one-dimensional primitive array, annotated to use
+   * {@link ArrayStrategy#VECTOR}
+   */
+  private static boolean usesVectorHashCode(PropertyElement propertyElement) {
+    Class<?> propertyType = propertyElement.getPropertyType();
+    Property property = propertyElement.getElement().getAnnotation(Property.class);
+    return propertyType.isArray() && propertyType.getComponentType().isPrimitive()
+      && property != null && property.arrayStrategy() == ArrayStrategy.VECTOR;
+  }
+
+  /**
+   * Whether values of a property should be compared for equality by calling the Pojomator for the property's type
+   * directly. This is the case if the type is a final class whose {@code equals} method just delegates to Pojomatic.
+   * @param propertyElement the property
+   * @return {@code true} if values of the property should be compared by the Pojomator for its type
+   * @see PojomaticDelegation
+   */
+  private static boolean linksNestedEquals(PropertyElement propertyElement) {
+    Class<?> propertyType = propertyElement.getPropertyType();
+    return isNestedPojoCandidate(propertyType) && PojomaticDelegation.forClass(propertyType).delegatesEquals();
+  }
+
+  /**
+   * Whether values of a property should be hashed by calling the Pojomator for the property's type directly. This is
+   * the case if the type is a final class whose {@code hashCode} method just delegates to Pojomatic.
+   * @param propertyElement the property
+   * @return {@code true} if values of the property should be hashed by the Pojomator for its type
+   * @see PojomaticDelegation
+   */
+  private static boolean linksNestedHashCode(PropertyElement propertyElement) {
+    Class<?> propertyType = propertyElement.getPropertyType();
+    return isNestedPojoCandidate(propertyType) && PojomaticDelegation.forClass(propertyType).delegatesHashCode();
+  }
+
+  private static boolean isNestedPojoCandidate(Class<?> type) {
+    return !type.isPrimitive() && !type.isArray() && !type.isInterface() && Modifier.isFinal(type.getModifiers());
+  }
+
+  /**
+   * The strategy for combining the hash codes of the properties of a class.
+   * @param pojoClass the class
+   * @return the strategy specified by {@link PojoHash}, or {@link HashStrategy#STANDARD} if there is none
+   */
+  private static HashStrategy hashStrategy(Class<?> pojoClass) {
+    PojoHash pojoHash = pojoClass.getAnnotation(PojoHash.class);
+    return pojoHash == null ? HashStrategy.STANDARD : pojoHash.value();
+  }
+
+  /**
+   * Whether every non-null value of a type has exactly that type as its runtime class. This is the case for primitive
+   * types, final classes, and arrays of such types.
+   * @param type the type to check
+   * @return {@code true} if every non-null value of type {@code type} has {@code type} as its class
+   */
+  private static boolean hasExactRuntimeType(Class<?> type) {
+    while (type.isArray()) {
+      type = type.getComponentType();
+    }
+    return type.isPrimitive() || Modifier.isFinal(type.getModifiers());
+  }
+
   /**
    * Determine if the given propertyElement should be treated as possibly containing a multi-level array.
    * This will be the case if it is:
@@ -1048,6 +1735,71 @@ class PojomatorByteCodeGenerator {
     return "get_" + qualifiedPropertyName(property);
   }
 
+  /**
+   * Compute a signature describing everything which influences the generated byte code:
+   * <ul>
+   * <li>the {@link PojomatorClassCache#generatorVersion() Pojomatic version and generator}</li>
+   * <li>the pojo formatter in use, whether a single instance of it is shared, and, if the text it produces around
+   * property values is constant, that text</li>
+   * <li>the {@code equals} properties, in the order in which {@code equals} compares them</li>
+   * <li>the {@code hashCode} properties, whether hash codes are
+   * {@link org.pojomatic.annotations.CacheHashCode cached}, and if so, whether in a field, and the {@link HashStrategy}
+   * used to combine property hash codes</li>
+   * <li>the {@code toString} properties</li>
+   * <li>the {@code equals} properties, in the order in which {@code doCompare} compares them</li>
+   * </ul>
+   * Each property is described by its name, declaring class and type, followed by {@code "!"} if it is annotated with
+   * {@link SkipArrayCheck}, {@code "~"} if it is hashed with {@link ArrayStrategy#VECTOR}, {@code "%"} if it has a
+   * {@link PropertyFormat}, and {@code "^e"} or {@code "^h"} if its {@code equals} or {@code hashCode} calls the
+   * Pojomator for a nested Pojomatic class directly.
+   * A Pojomator class generated ahead of time can only be used if its signature matches the one computed for the class
+   * as currently loaded.
+   * @param pojoClass the class the Pojomator is generated for
+   * @param classProperties the properties of {@code pojoClass}
+   * @return the signature
+   */
+  static String propertiesSignature(Class<?> pojoClass, ClassProperties classProperties) {
+    StringBuilder signature = new StringBuilder();
+    signature.append(PojomatorClassCache.generatorVersion()).append(';');
+    PojoFormat format = pojoClass.getAnnotation(PojoFormat.class);
+    signature.append(format == null ? "" : format.value().getName());
+    signature.append(sharesPojoFormatter(pojoClass) ? ";sharedFormatter" : "");
+    String[] constantText = constantFormatterText(pojoClass, classProperties);
+    if (constantText != null) {
+      signature.append(";constantText:");
+      for (String text: constantText) {
+        signature.append(text.length()).append('=').append(text);
+      }
+    }
+    appendPropertiesSignature(signature, "equals", EqualsPlanner.plan(classProperties.getEqualsProperties()));
+    appendPropertiesSignature(signature, "hashCode", classProperties.getHashCodeProperties());
+    signature.append(classProperties.isHashCodeCached() ? ";cachedHashCode" : "");
+    signature.append(classProperties.getHashCodeCacheField() != null ? "InField" : "");
+    HashStrategy hashStrategy = hashStrategy(pojoClass);
+    signature.append(hashStrategy == HashStrategy.STANDARD ? "" : ";hash=" + hashStrategy.name());
+    appendPropertiesSignature(signature, "toString", classProperties.getToStringProperties());
+    appendPropertiesSignature(
+      signature, "compare", EqualsPlanner.planCompare(classProperties.getEqualsProperties()));
+    return signature.toString();
+  }
+
+  private static void appendPropertiesSignature(
+    StringBuilder signature, String role, Iterable<PropertyElement> properties) {
+    signature.append(';').append(role).append(':');
+    for (PropertyElement property: properties) {
+      signature
+        .append(qualifiedPropertyName(property))
+        .append('=')
+        .append(classDesc(property.getPropertyType()))
+        .append(property.getElement().isAnnotationPresent(SkipArrayCheck.class) ? "!" : "")
+        .append(usesVectorHashCode(property) ? "~" : "")
+        .append(hasPropertyFormat(property) ? "%" : "")
+        .append(linksNestedEquals(property) ? "^e" : "")
+        .append(linksNestedHashCode(property) ? "^h" : "")
+        .append(',');
+    }
+  }
+
   static String propertyElementName(PropertyElement property) {
     return "element_" + qualifiedPropertyName(property);
   }
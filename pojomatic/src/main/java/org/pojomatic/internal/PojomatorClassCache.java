@@ -0,0 +1,220 @@
+package org.pojomatic.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * An optional cache of generated Pojomator class bytes, kept in a directory so that it survives JVM restarts. Each
+ * entry is keyed by a digest of the class files of the POJO class and its superclasses, together with the Pojomatic
+ * version and a digest of the byte code generator itself and of {@link BasePojomator}, so a change to either the POJO
+ * class hierarchy or to Pojomatic results in a new entry rather than a stale one.
+ * <p>
+ * Entries are written to a temporary file in the cache directory, and then atomically moved into place, so that any
+ * number of JVMs may share a cache directory; a reader will only ever see a complete entry. Failures to read or write
+ * the cache are ignored, and simply result in byte code being generated.
+ */
+public class PojomatorClassCache {
+  private static final String ENTRY_SUFFIX = ".class";
+  private static final byte[] NO_DIGEST = new byte[0];
+  private static final byte[] GENERATOR_DIGEST =
+    digestClasses(PojomatorByteCodeGenerator.class, BasePojomator.class);
+  private static final String VERSION =
+    String.valueOf(PojomatorClassCache.class.getPackage().getImplementationVersion());
+
+  /**
+   * Digests of class files, or {@link #NO_DIGEST} for classes whose bytes are unavailable.
+   */
+  private static final SelfPopulatingClassMap<byte[]> CLASS_DIGESTS = new SelfPopulatingClassMap<byte[]>() {
+    @Override
+    protected byte[] create(Class<?> key) {
+      byte[] digest = digestClassBytes(key);
+      return digest == null ? NO_DIGEST : digest;
+    }
+  };
+
+  private static volatile Path directory = null;
+
+  private PojomatorClassCache() {}
+
+  /**
+   * Set the directory to cache Pojomator classes in.
+   * @param directory the directory to use, or {@code null} to disable caching
+   * @throws IOException if the directory does not exist and cannot be created
+   */
+  public static void setDirectory(Path directory) throws IOException {
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    PojomatorClassCache.directory = directory;
+  }
+
+  /**
+   * Compute the key under which the Pojomator class for {@code pojoClass} is cached.
+   * @param pojoClass the POJO class
+   * @param variant distinguishes between different Pojomator classes generated for the same POJO class, for example
+   * because they are given different names
+   * @return the key, or {@code null} if caching is disabled, or if the Pojomator class for {@code pojoClass} cannot be
+   * cached because the class files for its hierarchy are not available
+   */
+  static String key(Class<?> pojoClass, String variant) {
+    if (directory == null || GENERATOR_DIGEST == null) {
+      return null;
+    }
+    MessageDigest messageDigest = newMessageDigest();
+    messageDigest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+    messageDigest.update(GENERATOR_DIGEST);
+    messageDigest.update(variant.getBytes(StandardCharsets.UTF_8));
+    for (Class<?> clazz = pojoClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+      byte[] classDigest = CLASS_DIGESTS.get(clazz);
+      if (classDigest == NO_DIGEST) {
+        return null;
+      }
+      messageDigest.update(clazz.getName().getBytes(StandardCharsets.UTF_8));
+      messageDigest.update(classDigest);
+    }
+    return toHex(messageDigest.digest());
+  }
+
+  /**
+   * Identify the Pojomatic version and byte code generator in use, so that byte code generated by one can be recognized
+   * by another.
+   * @return the Pojomatic version, followed by a digest of the byte code generator and of {@link BasePojomator}, which
+   * generated code calls into
+   */
+  static String generatorVersion() {
+    return VERSION + ":" + (GENERATOR_DIGEST == null ? "" : toHex(GENERATOR_DIGEST));
+  }
+
+  /**
+   * Load a cached entry.
+   * @param key the key returned by {@link #key(Class, String)}
+   * @return the cached class bytes, or {@code null} if there are none
+   */
+  static byte[] load(String key) {
+    Path cacheDirectory = directory;
+    if (cacheDirectory == null) {
+      return null;
+    }
+    Path entry = cacheDirectory.resolve(key + ENTRY_SUFFIX);
+    if (!Files.isRegularFile(entry)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      byte[] classBytes = new byte[buffer.remaining()];
+      buffer.get(classBytes);
+      return isClassFile(classBytes) ? classBytes : null;
+    }
+    catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Store an entry.
+   * @param key the key returned by {@link #key(Class, String)}
+   * @param classBytes the class bytes to cache
+   */
+  static void store(String key, byte[] classBytes) {
+    Path cacheDirectory = directory;
+    if (cacheDirectory == null) {
+      return;
+    }
+    Path temporaryFile = null;
+    try {
+      temporaryFile = Files.createTempFile(cacheDirectory, key, ".tmp");
+      try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+        ByteBuffer buffer = ByteBuffer.wrap(classBytes);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      Files.move(
+        temporaryFile,
+        cacheDirectory.resolve(key + ENTRY_SUFFIX),
+        StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+      temporaryFile = null;
+    }
+    catch (IOException | UnsupportedOperationException e) {
+      // The cache is an optimization only; the class bytes will simply be generated again next time.
+    }
+    finally {
+      if (temporaryFile != null) {
+        try {
+          Files.deleteIfExists(temporaryFile);
+        }
+        catch (IOException e) {
+          // nothing more we can do
+        }
+      }
+    }
+  }
+
+  private static boolean isClassFile(byte[] classBytes) {
+    return classBytes.length > 4
+      && (classBytes[0] & 0xFF) == 0xCA && (classBytes[1] & 0xFF) == 0xFE
+      && (classBytes[2] & 0xFF) == 0xBA && (classBytes[3] & 0xFF) == 0xBE;
+  }
+
+  private static byte[] digestClasses(Class<?>... classes) {
+    MessageDigest messageDigest = newMessageDigest();
+    for (Class<?> clazz: classes) {
+      byte[] classDigest = digestClassBytes(clazz);
+      if (classDigest == null) {
+        return null;
+      }
+      messageDigest.update(classDigest);
+    }
+    return messageDigest.digest();
+  }
+
+  private static byte[] digestClassBytes(Class<?> clazz) {
+    ClassLoader classLoader = clazz.getClassLoader();
+    if (classLoader == null) {
+      return null;
+    }
+    try (InputStream stream = classLoader.getResourceAsStream(clazz.getName().replace('.', '/') + ".class")) {
+      if (stream == null) {
+        return null;
+      }
+      MessageDigest messageDigest = newMessageDigest();
+      byte[] buffer = new byte[4096];
+      int count;
+      while ((count = stream.read(buffer)) != -1) {
+        messageDigest.update(buffer, 0, count);
+      }
+      return messageDigest.digest();
+    }
+    catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static MessageDigest newMessageDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e); // every JVM is required to support SHA-256
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b: bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+}
@@ -1,21 +1,40 @@
 package org.pojomatic.internal;
 
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.security.AccessController;
-import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 
+import org.pojomatic.NoPojomaticPropertiesException;
 import org.pojomatic.Pojomator;
 import org.pojomatic.PropertyElement;
+import org.pojomatic.annotations.PojoFormat;
 import org.pojomatic.annotations.PropertyFormat;
+import org.pojomatic.diagnostics.PojomatorCreationPhase;
 import org.pojomatic.formatter.DefaultEnhancedPropertyFormatter;
+import org.pojomatic.formatter.EnhancedPojoFormatter;
 import org.pojomatic.formatter.EnhancedPropertyFormatter;
 
 public class PojomatorFactory {
 
+  /**
+   * The suffix appended to the name of a POJO class to form the name of a Pojomator class generated for it ahead of
+   * time.
+   */
+  private static final String PREBUILT_POJOMATOR_SUFFIX = "$$Pojomator";
+
+  /**
+   * The {@link PojomatorClassCache} variant for Pojomator classes defined in their own class loader. The names of these
+   * classes vary from run to run, but each such class is alone in its class loader, so it can keep whatever name it was
+   * given when it was cached.
+   */
+  private static final String DYNAMIC_CLASS_LOADER_CACHE_VARIANT = "PojomatorStub";
+
   private static final class DynamicClassLoader extends ClassLoader {
     private DynamicClassLoader(ClassLoader parent) {
       super(parent);
@@ -26,27 +45,16 @@ public class PojomatorFactory {
     }
   }
 
-  private static volatile DynamicClassLoader CLASS_LOADER = null;
-  private final static Object CLASS_LOADER_MUTEX = new Object();
+  /**
+   * {@code MethodHandles.privateLookupIn(Class, Lookup)}, or {@code null} if running on a JVM prior to Java 9.
+   */
+  private static final Method PRIVATE_LOOKUP_IN =
+    findMethod(MethodHandles.class, "privateLookupIn", Class.class, MethodHandles.Lookup.class);
 
-  // We don't initialize CLASS_LOADER at classLoad time because permission issues could cause an exception; we don't
-  // want that exception to be masked with a ClassNotFoundException
-  private static DynamicClassLoader getClassLoader() {
-    if (CLASS_LOADER == null) {
-      synchronized (CLASS_LOADER_MUTEX) {
-        if (CLASS_LOADER == null) {
-          CLASS_LOADER =
-            AccessController.doPrivileged(new PrivilegedAction<DynamicClassLoader>() {
-              @Override
-              public DynamicClassLoader run() {
-                return new DynamicClassLoader(PojomatorFactory.class.getClassLoader());
-              }
-            });
-        }
-      }
-    }
-    return CLASS_LOADER;
-  }
+  /**
+   * {@code MethodHandles.Lookup.defineClass(byte[])}, or {@code null} if running on a JVM prior to Java 9.
+   */
+  private static final Method LOOKUP_DEFINE_CLASS = findMethod(MethodHandles.Lookup.class, "defineClass", byte[].class);
 
   public static <T> Pojomator<T> makePojomator(final Class<T> pojoClass) {
     try {
@@ -61,13 +69,59 @@ public class PojomatorFactory {
     }
   }
 
+  /**
+   * Get the name of the Pojomator class which may be generated ahead of time for {@code pojoClass}. If a class by this
+   * name can be loaded by the class loader of {@code pojoClass}, and it was generated for the same set of properties
+   * as {@code pojoClass} currently has, it will be used instead of generating a new Pojomator class at runtime.
+   * @param pojoClass the class to get the prebuilt Pojomator class name for
+   * @return the name of the prebuilt Pojomator class for {@code pojoClass}
+   */
+  public static String prebuiltPojomatorClassName(Class<?> pojoClass) {
+    return pojoClass.getName() + PREBUILT_POJOMATOR_SUFFIX;
+  }
+
+  /**
+   * Generate the byte code for a Pojomator class for {@code pojoClass} which can be saved alongside the class file for
+   * {@code pojoClass}, under the name given by {@link #prebuiltPojomatorClassName(Class)}.
+   * @param pojoClass the class to generate a Pojomator class for
+   * @return the class bytes of the Pojomator class
+   * @throws NoPojomaticPropertiesException if {@code pojoClass} has no properties annotated for use with Pojomatic
+   */
+  public static byte[] makePrebuiltPojomatorClassBytes(Class<?> pojoClass) throws NoPojomaticPropertiesException {
+    return new PojomatorByteCodeGenerator(
+      prebuiltPojomatorClassName(pojoClass), pojoClass, ClassProperties.forClass(pojoClass)).makeClassBytes();
+  }
+
   private static <T> Pojomator<T> makePojomatorChecked(Class<T> pojoClass)
-      throws IllegalAccessException, NoSuchFieldException, SecurityException, InstantiationException,
-      InvocationTargetException, NoSuchMethodException {
+      throws ReflectiveOperationException, SecurityException {
+    long startTime = CreationListeners.startTime();
     ClassProperties classProperties = ClassProperties.forClass(pojoClass);
-    PojomatorByteCodeGenerator generator = new PojomatorByteCodeGenerator(pojoClass, classProperties);
-    Class<?> pojomatorClass = getClassLoader().loadClass(generator.pojomatorClassName, generator.makeClassBytes());
+    CreationListeners.phaseCompleted(pojoClass, PojomatorCreationPhase.CLASS_PROPERTIES, startTime);
+
+    startTime = CreationListeners.startTime();
+    Class<?> pojomatorClass = findPrebuiltPojomatorClass(pojoClass, classProperties);
+    CreationListeners.phaseCompleted(pojoClass, PojomatorCreationPhase.CLASS_DEFINITION, startTime);
+    if (pojomatorClass == null) {
+      pojomatorClass = defineInPojoPackage(pojoClass, classProperties);
+    }
+    if (pojomatorClass == null) {
+      // Each Pojomator gets its own class loader, so that it can be unloaded once it is no longer referenced.
+      byte[] classBytes = makeClassBytes(
+        pojoClass,
+        new PojomatorByteCodeGenerator(pojoClass, classProperties),
+        DYNAMIC_CLASS_LOADER_CACHE_VARIANT);
+      startTime = CreationListeners.startTime();
+      // The class name is taken from the class bytes, which may have come from the cache.
+      pojomatorClass = new DynamicClassLoader(PojomatorFactory.class.getClassLoader()).loadClass(null, classBytes);
+      CreationListeners.phaseCompleted(pojoClass, PojomatorCreationPhase.CLASS_DEFINITION, startTime);
+    }
+
+    startTime = CreationListeners.startTime();
     setStaticField(pojomatorClass, PojomatorByteCodeGenerator.POJO_CLASS_FIELD_NAME, pojoClass);
+    if (PojomatorByteCodeGenerator.sharesPojoFormatter(pojoClass)) {
+      setStaticField(
+        pojomatorClass, PojomatorByteCodeGenerator.POJO_FORMATTER_FIELD_NAME, createSharedPojoFormatter(pojoClass));
+    }
     @SuppressWarnings("unchecked")
     Pojomator<T> pojomator = (Pojomator<T>) pojomatorClass.getConstructor(Class.class, ClassProperties.class)
       .newInstance(pojoClass, classProperties);
@@ -80,9 +134,134 @@ public class PojomatorFactory {
     for (PropertyElement propertyElement: classProperties.getAllProperties()) {
       setStaticField(pojomatorClass, PojomatorByteCodeGenerator.propertyElementName(propertyElement), propertyElement);
     }
+    CreationListeners.phaseCompleted(pojoClass, PojomatorCreationPhase.CLASS_DEFINITION, startTime);
     return pojomator;
   }
 
+  /**
+   * Get the class bytes for a Pojomator class, either from the {@link PojomatorClassCache}, or by generating them.
+   * @param pojoClass the class to get a Pojomator class for
+   * @param generator the generator to use if the class bytes are not cached
+   * @param cacheVariant the variant to cache the class bytes under
+   * @return the class bytes
+   */
+  private static byte[] makeClassBytes(
+      Class<?> pojoClass, PojomatorByteCodeGenerator generator, String cacheVariant) {
+    long startTime = CreationListeners.startTime();
+    // The generated byte code also depends on classes other than pojoClass and its superclasses, such as formatters and
+    // the types of properties; anything about them which matters is included in the properties signature.
+    String cacheKey = PojomatorClassCache.key(pojoClass, cacheVariant + ";" + generator.propertiesSignature());
+    byte[] classBytes = cacheKey == null ? null : PojomatorClassCache.load(cacheKey);
+    if (classBytes == null) {
+      classBytes = generator.makeClassBytes();
+      if (cacheKey != null) {
+        PojomatorClassCache.store(cacheKey, classBytes);
+      }
+      CreationListeners.pojomatorClassGenerated(pojoClass, classBytes.length);
+    }
+    CreationListeners.phaseCompleted(pojoClass, PojomatorCreationPhase.BYTE_CODE_GENERATION, startTime);
+    return classBytes;
+  }
+
+  /**
+   * Look for a Pojomator class generated ahead of time for {@code pojoClass}.
+   * @param pojoClass the class to find a prebuilt Pojomator class for
+   * @param classProperties the properties of {@code pojoClass}
+   * @return the prebuilt Pojomator class, or {@code null} if there is none, or if it was generated for a different
+   * version of {@code pojoClass}.
+   */
+  private static Class<?> findPrebuiltPojomatorClass(Class<?> pojoClass, ClassProperties classProperties) {
+    ClassLoader classLoader = pojoClass.getClassLoader();
+    if (classLoader == null) {
+      return null;
+    }
+    try {
+      Class<?> pojomatorClass = Class.forName(prebuiltPojomatorClassName(pojoClass), false, classLoader);
+      // A Pojomator class found via a parent class loader would have been built for a different class of the same name
+      if (pojomatorClass.getClassLoader() == classLoader
+        && Pojomator.class.isAssignableFrom(pojomatorClass)
+        && PojomatorByteCodeGenerator.propertiesSignature(pojoClass, classProperties).equals(
+          getStaticField(pojomatorClass, PojomatorByteCodeGenerator.PROPERTIES_SIGNATURE_FIELD_NAME))) {
+        return pojomatorClass;
+      }
+      else {
+        return null;
+      }
+    }
+    catch (ClassNotFoundException | LinkageError | NoSuchFieldException | IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Define a Pojomator class for {@code pojoClass} in the same package and class loader as {@code pojoClass}, using
+   * {@code MethodHandles.Lookup.defineClass}. Doing so means that the Pojomator class will be unloaded along with
+   * {@code pojoClass}, rather than being pinned by a class loader shared between all Pojomators. The class is given the
+   * same name as a prebuilt Pojomator class would have, so a subsequent lookup via
+   * {@link #findPrebuiltPojomatorClass(Class, ClassProperties)} will find it.
+   * @param pojoClass the class to define a Pojomator class for
+   * @param classProperties the properties of {@code pojoClass}
+   * @return the Pojomator class, or {@code null} if running on a JVM prior to Java 9, if the class loader of
+   * {@code pojoClass} does not see the same Pojomatic classes that we do, or if the package of {@code pojoClass} is not
+   * open to us.
+   */
+  private static Class<?> defineInPojoPackage(Class<?> pojoClass, ClassProperties classProperties) {
+    if (LOOKUP_DEFINE_CLASS == null || !seesPojomatic(pojoClass.getClassLoader())) {
+      return null;
+    }
+    String pojomatorClassName = prebuiltPojomatorClassName(pojoClass);
+    byte[] classBytes = makeClassBytes(
+      pojoClass,
+      new PojomatorByteCodeGenerator(pojomatorClassName, pojoClass, classProperties),
+      pojomatorClassName);
+    long startTime = CreationListeners.startTime();
+    try {
+      Object lookup = PRIVATE_LOOKUP_IN.invoke(null, pojoClass, MethodHandles.lookup());
+      return (Class<?>) LOOKUP_DEFINE_CLASS.invoke(lookup, classBytes);
+    }
+    catch (InvocationTargetException e) {
+      if (e.getCause() instanceof IllegalAccessException || e.getCause() instanceof LinkageError
+        || e.getCause() instanceof SecurityException) {
+        return null;
+      }
+      throw new RuntimeException(e.getCause());
+    }
+    catch (IllegalAccessException e) {
+      return null;
+    }
+    finally {
+      CreationListeners.phaseCompleted(pojoClass, PojomatorCreationPhase.CLASS_DEFINITION, startTime);
+    }
+  }
+
+  private static boolean seesPojomatic(ClassLoader classLoader) {
+    if (classLoader == null) {
+      return false;
+    }
+    try {
+      return Class.forName(BasePojomator.class.getName(), false, classLoader) == BasePojomator.class;
+    }
+    catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  private static Method findMethod(Class<?> clazz, String name, Class<?>... parameterTypes) {
+    try {
+      return clazz.getMethod(name, parameterTypes);
+    }
+    catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  private static Object getStaticField(Class<?> clazz, String fieldName)
+      throws NoSuchFieldException, SecurityException, IllegalAccessException {
+    Field field = clazz.getDeclaredField(fieldName);
+    field.setAccessible(true);
+    return field.get(null);
+  }
+
   private static void setStaticField(Class<?> clazz, String fieldName, Object value)
       throws NoSuchFieldException, SecurityException, IllegalAccessException {
     Field field = clazz.getDeclaredField(fieldName);
@@ -90,6 +269,33 @@ public class PojomatorFactory {
     field.set(null, value);
   }
 
+  @SuppressWarnings("deprecation")
+  private static EnhancedPojoFormatter createSharedPojoFormatter(Class<?> pojoClass)
+    throws ReflectiveOperationException {
+    return newPojoFormatter(pojoClass.getAnnotation(PojoFormat.class).value());
+  }
+
+  /**
+   * Construct a pojo formatter, wrapping it if it is not an {@link EnhancedPojoFormatter}.
+   * @param pojoFormatterClass the class of the formatter
+   * @return a new instance of {@code pojoFormatterClass}
+   * @throws ReflectiveOperationException if {@code pojoFormatterClass} cannot be instantiated
+   */
+  @SuppressWarnings("deprecation")
+  static EnhancedPojoFormatter newPojoFormatter(
+    Class<? extends org.pojomatic.formatter.PojoFormatter> pojoFormatterClass) throws ReflectiveOperationException {
+    Constructor<? extends org.pojomatic.formatter.PojoFormatter> constructor =
+      pojoFormatterClass.getDeclaredConstructor();
+    constructor.setAccessible(true);
+    org.pojomatic.formatter.PojoFormatter pojoFormatter = constructor.newInstance();
+    if (pojoFormatter instanceof EnhancedPojoFormatter) {
+      return (EnhancedPojoFormatter) pojoFormatter;
+    }
+    else {
+      return new EnhancedPojoFormatterWrapper(pojoFormatter);
+    }
+  }
+
   private static EnhancedPropertyFormatter createPropertyFormatter(AnnotatedElement annotatedElement)
     throws InstantiationException, IllegalAccessException {
     PropertyFormat propertyFormat = annotatedElement.getAnnotation(PropertyFormat.class);
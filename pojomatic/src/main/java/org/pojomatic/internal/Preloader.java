@@ -0,0 +1,103 @@
+package org.pojomatic.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Populates a {@link SelfPopulatingClassMap} for many classes at once, creating values in parallel on a fork-join
+ * pool.
+ */
+public class Preloader {
+  private Preloader() {}
+
+  /**
+   * Create the values in {@code map} for each of {@code classes}, in parallel.
+   * @param map the map to populate
+   * @param classes the classes to create values for
+   * @return for each class, in the order given, the number of nanoseconds it took to get its value from {@code map}.
+   * @throws RuntimeException the first exception (in the order of {@code classes}) thrown while creating a value.
+   * Values for the other classes will still have been created.
+   */
+  public static Map<Class<?>, Long> preload(SelfPopulatingClassMap<?> map, Collection<? extends Class<?>> classes) {
+    List<Class<?>> classList = new ArrayList<Class<?>>(new LinkedHashSet<Class<?>>(classes));
+    long[] nanos = new long[classList.size()];
+    RuntimeException[] failures = new RuntimeException[classList.size()];
+    ForkJoinPool pool = new ForkJoinPool();
+    try {
+      pool.invoke(new PreloadAction(map, classList, nanos, failures, 0, classList.size()));
+    }
+    finally {
+      pool.shutdown();
+    }
+
+    for (RuntimeException failure: failures) {
+      if (failure != null) {
+        throw failure;
+      }
+    }
+    Map<Class<?>, Long> timings = new LinkedHashMap<>();
+    for (int i = 0; i < classList.size(); i++) {
+      timings.put(classList.get(i), nanos[i]);
+    }
+    return Collections.unmodifiableMap(timings);
+  }
+
+  /**
+   * Creates values for a range of classes, splitting the range in half until it holds a single class, since creating
+   * each value is expensive enough to warrant a task of its own.
+   */
+  private static class PreloadAction extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final SelfPopulatingClassMap<?> map;
+    private final List<Class<?>> classes;
+    private final long[] nanos;
+    private final RuntimeException[] failures;
+    private final int start;
+    private final int end;
+
+    PreloadAction(
+      SelfPopulatingClassMap<?> map, List<Class<?>> classes, long[] nanos, RuntimeException[] failures,
+      int start, int end) {
+      this.map = map;
+      this.classes = classes;
+      this.nanos = nanos;
+      this.failures = failures;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start <= 1) {
+        if (start < end) {
+          load(start);
+        }
+      }
+      else {
+        int middle = (start + end) >>> 1;
+        invokeAll(
+          new PreloadAction(map, classes, nanos, failures, start, middle),
+          new PreloadAction(map, classes, nanos, failures, middle, end));
+      }
+    }
+
+    private void load(int index) {
+      long startTime = System.nanoTime();
+      try {
+        map.get(classes.get(index));
+      }
+      catch (RuntimeException e) {
+        failures[index] = e;
+      }
+      nanos[index] = System.nanoTime() - startTime;
+    }
+  }
+}
@@ -25,6 +25,10 @@ class Primitives {
     return WRAPPER_CLASSES.get(primitiveClass);
   }
 
+  static boolean isWrapperClass(Class<?> clazz) {
+    return WRAPPER_CLASSES.containsValue(clazz);
+  }
+
   static Integer getOpcode(Class<?> primitiveClass) {
     Integer retval = OPCODES.get(primitiveClass);
     if (retval == null) {
@@ -0,0 +1,99 @@
+package org.pojomatic.internal;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.pojomatic.PropertyElement;
+
+/**
+ * Sorts the properties declared by a class into the order in which they are declared, using {@link ClassMemberOrder}.
+ * Fields come before methods, regardless of declaration order.
+ */
+class PropertyOrder {
+  private PropertyOrder() {}
+
+  /**
+   * Sort the properties declared by a class into declaration order.
+   * @param clazz the class declaring the properties
+   * @param fieldsMap the field properties of {@code clazz} for each role, keyed by field name
+   * @param methodsMap the method properties of {@code clazz} for each role, keyed by method name
+   * @return the properties for each role, fields first, each in the order in which {@code clazz} declares them
+   * @throws IllegalStateException if a property is not declared in the class file of {@code clazz}
+   */
+  static Map<PropertyRole, List<PropertyElement>> sort(
+      Class<?> clazz,
+      Map<PropertyRole, Map<String, PropertyElement>> fieldsMap,
+      Map<PropertyRole, Map<String, PropertyElement>> methodsMap) {
+    ClassMemberOrder memberOrder = ClassMemberOrder.forClass(clazz);
+    Map<PropertyRole, List<PropertyElement>> sortedProperties = makeProperties();
+    addInOrder(sortedProperties, memberOrder.getFieldNames(), fieldsMap);
+    addInOrder(sortedProperties, memberOrder.getMethodNames(), methodsMap);
+    verifyAllPropertiesFound(clazz, fieldsMap, methodsMap, sortedProperties);
+    return sortedProperties;
+  }
+
+  private static void verifyAllPropertiesFound(Class<?> clazz,
+      Map<PropertyRole, Map<String, PropertyElement>> fieldsMap,
+      Map<PropertyRole, Map<String, PropertyElement>> methodsMap,
+      Map<PropertyRole, List<PropertyElement>> sortedPropertiesMap) {
+    for (PropertyRole role: PropertyRole.values()) {
+      List<PropertyElement> sortedProperties = sortedPropertiesMap.get(role);
+      Map<String, PropertyElement> fields = fieldsMap.get(role);
+      Map<String, PropertyElement> methods = methodsMap.get(role);
+      if (fields.size() + methods.size() != sortedProperties.size()) {
+        throwReflectionMissmatch(clazz, fields, methods, sortedProperties);
+      }
+    }
+  }
+
+  private static void throwReflectionMissmatch(
+      Class<?> clazz,
+      Map<String, PropertyElement> fields,
+      Map<String, PropertyElement> methods,
+      List<PropertyElement> sortedProperties) {
+    Set<PropertyElement> expectedProperties = new LinkedHashSet<>();
+    expectedProperties.addAll(fields.values());
+    expectedProperties.addAll(methods.values());
+    for (PropertyElement property: sortedProperties) {
+      expectedProperties.remove(property);
+    }
+    StringBuilder message = new StringBuilder("In class ").append(clazz.getName()).append(", properties ");
+    boolean seenOne = false;
+    for (PropertyElement property: expectedProperties) {
+      if (seenOne) {
+        message.append(", ");
+      }
+      seenOne = true;
+      message.append(property);
+    }
+    message.append(" were found in reflection, but not in the class file");
+    throw new IllegalStateException(message.toString());
+  }
+
+  private static void addInOrder(
+      Map<PropertyRole, List<PropertyElement>> sortedProperties,
+      List<String> memberNames,
+      Map<PropertyRole, Map<String, PropertyElement>> membersMap) {
+    for (String name: memberNames) {
+      for (PropertyRole role: PropertyRole.values()) {
+        PropertyElement propertyElement = membersMap.get(role).get(name);
+        if (propertyElement != null) {
+          sortedProperties.get(role).add(propertyElement);
+        }
+      }
+    }
+  }
+
+  private static Map<PropertyRole, List<PropertyElement>> makeProperties() {
+    Map<PropertyRole, List<PropertyElement>> properties =
+        new EnumMap<>(PropertyRole.class);
+    for (PropertyRole role : PropertyRole.values()) {
+      properties.put(role, new ArrayList<PropertyElement>());
+    }
+    return properties;
+  }
+}
@@ -0,0 +1,138 @@
+package org.pojomatic.internal;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A thread-safe "map" keyed by class which generates values on demand, with the guarantee that no more than one
+ * value will be auto-created for a given class. Values are held via a {@link ClassValue}, so they do not prevent a
+ * class (or its class loader) from being garbage collected. Looking up a class whose value has already been created is
+ * a single {@link ClassValue#get(Class)} call, and no monitors are held while a value is created; a thread wanting a
+ * value which another thread is in the middle of creating waits on a {@link Future} for it. If creating a value fails,
+ * the failed attempt is forgotten, and the next request for that class will try again.
+ * Classes extending this class should override {@link #create(Class)}.
+ */
+public abstract class SelfPopulatingClassMap<V> {
+
+  /**
+   * Get the value for a class, creating it if need be.
+   * @param key the class to get the value for
+   * @return the value for {@code key}
+   * @throws IllegalStateException if called from within {@link #create(Class)} for the same class
+   */
+  public V get(Class<?> key) {
+    return values.get(key);
+  }
+
+  /**
+   * Create a value for a class.  This will be called by {@link #get(Class)} when there is not
+   * already an existing value, and no other thread is already creating a value for that class.
+   * The value returned must not be null.
+   * @param key the class to create the value for
+   * @return the value
+   */
+  protected abstract V create(Class<?> key);
+
+  /**
+   * The creation of a value, which remembers the thread creating it, so that a request from that thread for the same
+   * value can be refused rather than waiting forever on itself.
+   */
+  private final class Creation extends FutureTask<V> {
+    private final Thread creator = Thread.currentThread();
+
+    Creation(final Class<?> type) {
+      super(new Callable<V>() {
+        @Override
+        public V call() {
+          return create(type);
+        }
+      });
+    }
+  }
+
+  /**
+   * The values held by this map. {@link ClassValue} may compute a value for the same class concurrently in more than
+   * one thread, so computation goes through a per-class future held in {@link #creations}, to ensure that
+   * {@link #create(Class)} is called at most once. Other threads wait on that future rather than on a monitor.
+   */
+  private final ClassValue<V> values = new ClassValue<V>() {
+    @Override
+    protected V computeValue(Class<?> type) {
+      AtomicReference<Creation> creation = creations.get(type);
+      while (true) {
+        Creation future = creation.get();
+        boolean creator = false;
+        if (future == null) {
+          Creation newFuture = new Creation(type);
+          if (creation.compareAndSet(null, newFuture)) {
+            future = newFuture;
+            creator = true;
+            newFuture.run();
+          }
+          else {
+            continue;
+          }
+        }
+        else if (future.creator == Thread.currentThread() && !future.isDone()) {
+          throw new IllegalStateException("Recursive request for the value for " + type + " while creating it");
+        }
+        try {
+          return getUninterruptibly(future);
+        }
+        catch (ExecutionException e) {
+          creation.compareAndSet(future, null);
+          // if a previous attempt to create a value failed, we'll give it a shot.
+          if (creator) {
+            throw propagate(e.getCause());
+          }
+        }
+      }
+    }
+  };
+
+  /**
+   * The value creations, one per class. These are only consulted when a class is not yet present in {@link #values}.
+   */
+  private final ClassValue<AtomicReference<Creation>> creations = new ClassValue<AtomicReference<Creation>>() {
+    @Override
+    protected AtomicReference<Creation> computeValue(Class<?> type) {
+      return new AtomicReference<>();
+    }
+  };
+
+  /**
+   * Wait for a future to complete, ignoring (but preserving) interrupts, since abandoning the wait would leave the
+   * caller without a value.
+   */
+  private static <V> V getUninterruptibly(Future<V> future) throws ExecutionException {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return future.get();
+        }
+        catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static RuntimeException propagate(Throwable t) {
+    if (t instanceof RuntimeException) {
+      return (RuntimeException) t;
+    }
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+    return new RuntimeException(t);
+  }
+}
@@ -2,10 +2,19 @@ package org.pojomatic;
 
 import static org.testng.Assert.*;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
 import org.testng.annotations.Test;
 import org.pojomatic.annotations.Property;
 import org.pojomatic.diff.NoDifferences;
 import org.pojomatic.internal.PojomatorFactory;
+import org.pojomatic.internal.scan.AutoPropertyPojo;
+import org.pojomatic.internal.scan.sub.PropertyPojo;
+
+import com.google.common.collect.ImmutableSet;
 
 public class PojomaticTest {
   public static class Bean {
@@ -28,6 +37,13 @@ public class PojomaticTest {
     assertEquals(Pojomatic.toString(BEAN), BEAN_POJOMATOR.doToString(BEAN));
   }
 
+  @Test
+  public void testAppendTo() {
+    StringBuilder builder = new StringBuilder();
+    Pojomatic.appendTo(BEAN, builder);
+    assertEquals(builder.toString(), BEAN_POJOMATOR.doToString(BEAN));
+  }
+
   @Test
   public void testDiffNoDifferences() {
     assertEquals(Pojomatic.diff(BEAN, BEAN), NoDifferences.getInstance());
@@ -53,6 +69,17 @@ public class PojomaticTest {
     assertEquals(Pojomatic.hashCode(BEAN), BEAN_POJOMATOR.doHashCode(BEAN));
   }
 
+  @Test
+  public void testHashCode64() {
+    assertEquals(Pojomatic.hashCode64(BEAN), BEAN_POJOMATOR.doHashCode64(BEAN));
+  }
+
+  @Test
+  public void testComparator() {
+    assertTrue(Pojomatic.comparator(Bean.class).compare(new Bean(3), new Bean(4)) < 0);
+    assertEquals(Pojomatic.comparator(Bean.class).compare(new Bean(3), new Bean(3)), 0);
+  }
+
   @Test
   public void testEquals() {
     assertTrue(Pojomatic.equals(new Bean(3), new Bean(3)));
@@ -70,4 +97,37 @@ public class PojomaticTest {
     assertFalse(Pojomatic.areCompatibleForEquals(Bean.class, BeanWithExtraData.class));
     assertFalse(Pojomatic.areCompatibleForEquals(BeanWithExtraData.class, Bean.class));
   }
+
+  @Test
+  public void testPreload() {
+    class OtherBean {
+      @Property int y;
+    }
+    Map<Class<?>, Long> timings = Pojomatic.preload(Arrays.asList(OtherBean.class, Bean.class, OtherBean.class));
+    assertEquals(new ArrayList<>(timings.keySet()), Arrays.<Class<?>>asList(OtherBean.class, Bean.class));
+    for (long nanos: timings.values()) {
+      assertTrue(nanos >= 0);
+    }
+    assertEquals(Pojomatic.toString(new OtherBean()), "OtherBean{y: {0}}");
+  }
+
+  @Test
+  public void testPreloadNoProperties() {
+    class NotABean {}
+    try {
+      Pojomatic.preload(Arrays.asList(NotABean.class, Bean.class));
+      fail("Exception expected");
+    }
+    catch (NoPojomaticPropertiesException e) {
+      assertEquals(e.getMessage(), "Class " + NotABean.class.getName() + " has no Pojomatic properties");
+    }
+    assertNotNull(Pojomatic.pojomator(Bean.class));
+  }
+
+  @Test
+  public void testPreloadPackage() throws IOException {
+    Map<Class<?>, Long> timings = Pojomatic.preload("org.pojomatic.internal.scan", getClass().getClassLoader());
+    assertEquals(
+      timings.keySet(), ImmutableSet.of(AutoPropertyPojo.class, PropertyPojo.class));
+  }
 }
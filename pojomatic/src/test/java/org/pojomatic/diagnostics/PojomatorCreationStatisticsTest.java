@@ -0,0 +1,57 @@
+package org.pojomatic.diagnostics;
+
+import static org.testng.Assert.*;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.annotations.Property;
+import org.testng.annotations.Test;
+
+public class PojomatorCreationStatisticsTest {
+  @Test
+  public void testStatistics() {
+    class Pojo {
+      @Property int x;
+      @Property String y;
+    }
+
+    PojomatorCreationStatistics statistics = new PojomatorCreationStatistics();
+    Pojomatic.addPojomatorCreationListener(statistics);
+    try {
+      Pojomatic.hashCode(new Pojo());
+    }
+    finally {
+      Pojomatic.removePojomatorCreationListener(statistics);
+    }
+
+    String className = Pojo.class.getName();
+    for (PojomatorCreationPhase phase: PojomatorCreationPhase.values()) {
+      assertTrue(statistics.getNanos(className, phase) > 0, phase.toString());
+      assertTrue(statistics.getTotalNanos(phase) >= statistics.getNanos(className, phase));
+    }
+    assertTrue(statistics.getClassSize(className) > 0);
+
+    String[] lines = statistics.summary().split("\n");
+    assertEquals(lines.length, 3);
+    assertEquals(
+      lines[0],
+      "class\tCLASS_PROPERTIES\tCLASS_SCAN\tBYTE_CODE_GENERATION\tCLASS_DEFINITION\tCALL_SITE_LINKING\tTOTAL\tCLASS_SIZE");
+    assertTrue(lines[1].startsWith(className + "\t"));
+    assertTrue(lines[2].startsWith("TOTAL\t"));
+
+    statistics.reset();
+    assertEquals(statistics.getClassSize(className), 0);
+  }
+
+  @Test
+  public void testNoTimingsOnceRemoved() {
+    class Pojo {
+      @Property int x;
+    }
+
+    PojomatorCreationStatistics statistics = new PojomatorCreationStatistics();
+    Pojomatic.addPojomatorCreationListener(statistics);
+    Pojomatic.removePojomatorCreationListener(statistics);
+    Pojomatic.hashCode(new Pojo());
+    assertEquals(statistics.getTotalNanos(PojomatorCreationPhase.CLASS_PROPERTIES), 0);
+  }
+}
@@ -0,0 +1,49 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.testng.annotations.Test;
+
+public class ClassMemberOrderTest {
+  @SuppressWarnings("unused")
+  static class Members {
+    static int staticField;
+    long b;
+    String a;
+    double c = 1.0d; // Double constants take two constant pool entries
+    long d = 1L << 40; // as do long constants
+
+    int getZ() { return 0; }
+    static int staticMethod() { return 0; }
+    void withArgument(int x) {}
+    boolean isY() { return false; }
+    String été() { return ""; }
+  }
+
+  @Test
+  public void testFromClassBytes() {
+    ClassMemberOrder memberOrder = ClassMemberOrder.forClass(Members.class);
+    assertTrue(memberOrder.isFromClassBytes());
+    assertEquals(memberOrder.getFieldNames(), Arrays.asList("b", "a", "c", "d"));
+    assertEquals(memberOrder.getMethodNames(), Arrays.asList("<init>", "getZ", "isY", "été"));
+  }
+
+  @Test
+  public void testCached() {
+    assertSame(ClassMemberOrder.forClass(Members.class), ClassMemberOrder.forClass(Members.class));
+  }
+
+  @Test
+  public void testFromReflection() throws Exception {
+    ClassOnlyClassLoader classLoader = new ClassOnlyClassLoader(Members.class.getClassLoader());
+    Class<?> membersClass = classLoader.loadClass(Members.class.getName());
+    ClassMemberOrder memberOrder = ClassMemberOrder.forClass(membersClass);
+    assertFalse(memberOrder.isFromClassBytes());
+    assertEquals(new HashSet<>(memberOrder.getFieldNames()), new HashSet<>(Arrays.asList("a", "b", "c", "d")));
+    assertEquals(
+      new HashSet<>(memberOrder.getMethodNames()), new HashSet<>(Arrays.asList("getZ", "isY", "été")));
+  }
+}
@@ -0,0 +1,148 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.PojomaticPolicy;
+import org.pojomatic.annotations.Property;
+import org.testng.annotations.Test;
+
+public class CompareTest {
+  @AutoProperty
+  private static class Primitives {
+    Primitives(boolean z, byte b, char c, short s, int i, long l, float f, double d) {
+      this.z = z;
+      this.b = b;
+      this.c = c;
+      this.s = s;
+      this.i = i;
+      this.l = l;
+      this.f = f;
+      this.d = d;
+    }
+
+    final boolean z;
+    final byte b;
+    final char c;
+    final short s;
+    final int i;
+    final long l;
+    final float f;
+    final double d;
+  }
+
+  private static class Objects {
+    Objects(String string, int[] ints, Object object) {
+      this.string = string;
+      this.ints = ints;
+      this.object = object;
+    }
+
+    @Property final String string;
+    @Property final int[] ints;
+    @Property final Object object;
+    @Property(policy = PojomaticPolicy.TO_STRING) final int notCompared = 0;
+  }
+
+  private static class Ordered {
+    Ordered(String last, String first, int middle) {
+      this.last = last;
+      this.first = first;
+      this.middle = middle;
+    }
+
+    @Property final String last;
+    @Property(compareOrder = -1) final String first;
+    @Property final int middle;
+  }
+
+  private static final Pojomator<Primitives> PRIMITIVES = PojomatorFactory.makePojomator(Primitives.class);
+  private static final Pojomator<Objects> OBJECTS = PojomatorFactory.makePojomator(Objects.class);
+  private static final Pojomator<Ordered> ORDERED = PojomatorFactory.makePojomator(Ordered.class);
+
+  @Test
+  public void testPrimitives() {
+    Primitives base = new Primitives(false, (byte) 0, 'a', (short) 0, 0, 0, 0, 0);
+    assertEquals(PRIMITIVES.doCompare(base, new Primitives(false, (byte) 0, 'a', (short) 0, 0, 0, 0, 0)), 0);
+    assertLess(PRIMITIVES, base, new Primitives(true, (byte) -1, 'a', (short) 0, 0, 0, 0, 0));
+    assertLess(PRIMITIVES, new Primitives(false, (byte) -1, 'z', (short) 0, 0, 0, 0, 0), base);
+    assertLess(PRIMITIVES, base, new Primitives(false, (byte) 0, 'b', (short) -1, 0, 0, 0, 0));
+    assertLess(PRIMITIVES, new Primitives(false, (byte) 0, 'a', Short.MIN_VALUE, 1, 0, 0, 0), base);
+    assertLess(PRIMITIVES, base, new Primitives(false, (byte) 0, 'a', (short) 0, Integer.MAX_VALUE, -1, 0, 0));
+    assertLess(PRIMITIVES, new Primitives(false, (byte) 0, 'a', (short) 0, 0, Long.MIN_VALUE, 1, 0), base);
+    assertLess(PRIMITIVES, new Primitives(false, (byte) 0, 'a', (short) 0, 0, 0, -0.0f, 1), base);
+    assertLess(PRIMITIVES, base, new Primitives(false, (byte) 0, 'a', (short) 0, 0, 0, 0, Double.NaN));
+  }
+
+  @Test
+  public void testObjects() {
+    Objects base = new Objects("b", new int[] { 1, 2 }, 5);
+    assertEquals(OBJECTS.doCompare(base, new Objects("b", new int[] { 1, 2 }, 5)), 0);
+    assertLess(OBJECTS, new Objects(null, null, null), base);
+    assertLess(OBJECTS, new Objects("a", new int[] { 3 }, 6), base);
+    assertLess(OBJECTS, new Objects("b", null, 6), base);
+    assertLess(OBJECTS, new Objects("b", new int[] { 1 }, 6), base);
+    assertLess(OBJECTS, base, new Objects("b", new int[] { 1, 3 }, 4));
+    assertLess(OBJECTS, base, new Objects("b", new int[] { 1, 2, 0 }, 4));
+    assertLess(OBJECTS, new Objects("b", new int[] { 1, 2 }, 4), base);
+  }
+
+  @Test
+  public void testNestedArrays() {
+    Objects base = new Objects("", null, new Object[] { new long[] { 1, 2 }, "x" });
+    assertEquals(OBJECTS.doCompare(base, new Objects("", null, new Object[] { new long[] { 1, 2 }, "x" })), 0);
+    assertLess(OBJECTS, new Objects("", null, new Object[] { new long[] { 1, 1 }, "y" }), base);
+    assertLess(OBJECTS, base, new Objects("", null, new Object[] { new long[] { 1, 2 }, "y" }));
+    assertLess(OBJECTS, new Objects("", null, new Object[] { null, "x" }), base);
+  }
+
+  @Test(expectedExceptions = ClassCastException.class)
+  public void testNotComparable() {
+    OBJECTS.doCompare(new Objects("", null, new Object()), new Objects("", null, new Object()));
+  }
+
+  @Test
+  public void testSameInstance() {
+    Objects notComparable = new Objects("", null, new Object());
+    assertEquals(OBJECTS.doCompare(notComparable, notComparable), 0);
+  }
+
+  @Test
+  public void testCompareOrder() {
+    Ordered aa1 = new Ordered("a", "a", 1);
+    Ordered ab0 = new Ordered("a", "b", 0);
+    Ordered ba0 = new Ordered("b", "a", 0);
+    Ordered ba1 = new Ordered("b", "a", 1);
+    List<Ordered> list = new ArrayList<>(Arrays.asList(ab0, ba1, aa1, ba0));
+    Collections.sort(list, new Comparator<Ordered>() {
+      @Override
+      public int compare(Ordered o1, Ordered o2) {
+        return ORDERED.doCompare(o1, o2);
+      }
+    });
+    // first, then last, then middle
+    assertEquals(list, Arrays.asList(aa1, ba0, ba1, ab0));
+  }
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void testNullFirst() {
+    ORDERED.doCompare(null, new Ordered("a", "a", 1));
+  }
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void testNullSecond() {
+    ORDERED.doCompare(new Ordered("a", "a", 1), null);
+  }
+
+  private static <T> void assertLess(Pojomator<T> pojomator, T lesser, T greater) {
+    assertTrue(pojomator.doCompare(lesser, greater) < 0);
+    assertTrue(pojomator.doCompare(greater, lesser) > 0);
+  }
+}
@@ -0,0 +1,62 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.pojomatic.PropertyElement;
+import org.pojomatic.annotations.Property;
+import org.pojomatic.internal.EqualsPlanner.Cost;
+import org.testng.annotations.Test;
+
+public class EqualsPlannerTest {
+  @SuppressWarnings("unused")
+  private static class Properties {
+    Object object;
+    int[] ints;
+    List<String> list;
+    Runnable runnable;
+    String string;
+    Long boxed;
+    TimeUnit unit;
+    Class<?> clazz;
+    double primitive;
+    @Property(equalsOrder=-1) String first;
+    @Property(equalsOrder=1) int last;
+  }
+
+  @Test
+  public void testCosts() throws Exception {
+    assertEquals(Cost.of(field("primitive")), Cost.PRIMITIVE);
+    assertEquals(Cost.of(field("unit")), Cost.IDENTITY);
+    assertEquals(Cost.of(field("clazz")), Cost.IDENTITY);
+    assertEquals(Cost.of(field("boxed")), Cost.BOXED);
+    assertEquals(Cost.of(field("string")), Cost.STRING);
+    assertEquals(Cost.of(field("runnable")), Cost.OBJECT);
+    assertEquals(Cost.of(field("list")), Cost.COLLECTION);
+    assertEquals(Cost.of(field("ints")), Cost.ARRAY);
+    assertEquals(Cost.of(field("object")), Cost.ARRAY);
+  }
+
+  @Test
+  public void testPlan() throws Exception {
+    List<PropertyElement> declared = new ArrayList<>();
+    for (String name: Arrays.asList(
+      "object", "ints", "list", "runnable", "string", "boxed", "unit", "clazz", "primitive", "first", "last")) {
+      declared.add(field(name));
+    }
+    List<String> planned = new ArrayList<>();
+    for (PropertyElement property: EqualsPlanner.plan(declared)) {
+      planned.add(property.getName());
+    }
+    assertEquals(planned, Arrays.asList(
+      "first", "primitive", "unit", "clazz", "boxed", "string", "runnable", "list", "object", "ints", "last"));
+  }
+
+  private static PropertyElement field(String name) throws Exception {
+    return new PropertyField(Properties.class.getDeclaredField(name), "");
+  }
+}
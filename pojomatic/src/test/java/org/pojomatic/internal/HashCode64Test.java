@@ -0,0 +1,224 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.PojomaticPolicy;
+import org.pojomatic.annotations.Property;
+import org.testng.annotations.Test;
+
+public class HashCode64Test {
+  private static final long PRIME64_1 = 0x9e3779b185ebca87L;
+  private static final long PRIME64_2 = 0xc2b2ae3d27d4eb4fL;
+  private static final long PRIME64_3 = 0x165667b19e3779f9L;
+  private static final long PRIME64_4 = 0x85ebca77c2b2ae63L;
+  private static final long PRIME64_5 = 0x27d4eb2f165667c5L;
+
+  private static enum Color { RED, GREEN }
+
+  @AutoProperty
+  private static class Primitives {
+    Primitives(boolean z, byte b, char c, short s, int i, long l, float f, double d) {
+      this.z = z;
+      this.b = b;
+      this.c = c;
+      this.s = s;
+      this.i = i;
+      this.l = l;
+      this.f = f;
+      this.d = d;
+    }
+
+    final boolean z;
+    final byte b;
+    final char c;
+    final short s;
+    final int i;
+    final long l;
+    final float f;
+    final double d;
+  }
+
+  @AutoProperty
+  private static class Objects {
+    Objects(Object z, Object b, Object c, Object s, Object i, Object l, Object f, Object d) {
+      this.z = z;
+      this.b = b;
+      this.c = c;
+      this.s = s;
+      this.i = i;
+      this.l = l;
+      this.f = f;
+      this.d = d;
+    }
+
+    final Object z;
+    final Object b;
+    final Object c;
+    final Object s;
+    final Object i;
+    final Object l;
+    final Object f;
+    final Object d;
+  }
+
+  private static class Mixed {
+    Mixed(String string, Color color, long[] longs, Object[][] nested, Object other) {
+      this.string = string;
+      this.color = color;
+      this.longs = longs;
+      this.nested = nested;
+      this.other = other;
+    }
+
+    @Property final String string;
+    @Property final Color color;
+    @Property final long[] longs;
+    @Property final Object[][] nested;
+    @Property final Object other;
+    @Property(policy = PojomaticPolicy.TO_STRING) final long ignored = 7;
+  }
+
+  private static class Key {
+    Key(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+
+    @Property final int x;
+    @Property final int y;
+  }
+
+  @Test
+  public void testPrimitives() {
+    Pojomator<Primitives> pojomator = PojomatorFactory.makePojomator(Primitives.class);
+    long expected = xxHash64(
+      1231, 3, 'c', -4, Integer.MIN_VALUE, Long.MAX_VALUE,
+      Float.floatToIntBits(1.5f), Double.doubleToLongBits(-2.5));
+    assertEquals(
+      pojomator.doHashCode64(
+        new Primitives(true, (byte) 3, 'c', (short) -4, Integer.MIN_VALUE, Long.MAX_VALUE, 1.5f, -2.5)),
+      expected);
+  }
+
+  @Test
+  public void testBoxedMatchPrimitives() {
+    Pojomator<Primitives> primitives = PojomatorFactory.makePojomator(Primitives.class);
+    Pojomator<Objects> objects = PojomatorFactory.makePojomator(Objects.class);
+    assertEquals(
+      objects.doHashCode64(new Objects(false, (byte) -1, 'x', (short) 9, 17, 1L << 50, -0.0f, Double.NaN)),
+      primitives.doHashCode64(new Primitives(false, (byte) -1, 'x', (short) 9, 17, 1L << 50, -0.0f, Double.NaN)));
+  }
+
+  @Test
+  public void testObjects() {
+    Pojomator<Mixed> pojomator = PojomatorFactory.makePojomator(Mixed.class);
+    Object other = new Object();
+    long expected = xxHash64(
+      polynomial('a', 'b'),
+      polynomial('G', 'R', 'E', 'E', 'N'),
+      polynomial(5L, -6L),
+      polynomial(polynomial(polynomial('x')), polynomial(1L << 40, 0)),
+      other.hashCode());
+    assertEquals(
+      pojomator.doHashCode64(
+        new Mixed("ab", Color.GREEN, new long[] { 5, -6 }, new Object[][] { { "x" }, { 1L << 40, null } }, other)),
+      expected);
+    assertEquals(pojomator.doHashCode64(new Mixed(null, null, null, null, null)), xxHash64(0, 0, 0, 0, 0));
+  }
+
+  @AutoProperty
+  private static class Nested {
+    Nested(Key key, List<Object> list, Set<String> set, Map<String, Long> map) {
+      this.key = key;
+      this.list = list;
+      this.set = set;
+      this.map = map;
+    }
+
+    final Key key;
+    final List<Object> list;
+    final Set<String> set;
+    final Map<String, Long> map;
+  }
+
+  @Test
+  public void testNestedValues() {
+    Pojomator<Nested> pojomator = PojomatorFactory.makePojomator(Nested.class);
+    long keyHashCode = PojomatorFactory.makePojomator(Key.class).doHashCode64(new Key(1, 2));
+    assertNotEquals(keyHashCode, (long) (int) keyHashCode);
+    Map<String, Long> map = new LinkedHashMap<>();
+    map.put("a", 1L << 40);
+    map.put("b", null);
+    long expected = xxHash64(
+      keyHashCode,
+      polynomial(keyHashCode, polynomial('x'), 5L),
+      polynomial('p') + polynomial('q'),
+      (polynomial('a') ^ (1L << 40)) + (polynomial('b') ^ 0));
+    assertEquals(
+      pojomator.doHashCode64(new Nested(
+        new Key(1, 2),
+        Arrays.<Object>asList(new Key(1, 2), "x", 5L),
+        new LinkedHashSet<>(Arrays.asList("p", "q")),
+        map)),
+      expected);
+    // Equal sets and maps give equal hash codes, whatever their iteration order
+    Map<String, Long> reversedMap = new LinkedHashMap<>();
+    reversedMap.put("b", null);
+    reversedMap.put("a", 1L << 40);
+    assertEquals(
+      pojomator.doHashCode64(new Nested(null, null, new LinkedHashSet<>(Arrays.asList("q", "p")), reversedMap)),
+      pojomator.doHashCode64(new Nested(null, null, new HashSet<>(Arrays.asList("p", "q")), map)));
+  }
+
+  @Test
+  public void testNoCollisions() {
+    Pojomator<Key> pojomator = PojomatorFactory.makePojomator(Key.class);
+    Set<Long> hashCodes = new HashSet<>();
+    for (int x = 0; x < 512; x++) {
+      for (int y = 0; y < 512; y++) {
+        hashCodes.add(pojomator.doHashCode64(new Key(x, y)));
+      }
+    }
+    assertEquals(hashCodes.size(), 512 * 512);
+  }
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void testNull() {
+    PojomatorFactory.makePojomator(Key.class).doHashCode64(null);
+  }
+
+  private static long polynomial(long... values) {
+    long hashCode = 1;
+    for (long value: values) {
+      hashCode = PRIME64_1 * hashCode + value;
+    }
+    return hashCode;
+  }
+
+  /**
+   * The round and avalanche steps of XXH64, applied to one eight byte lane per value.
+   */
+  private static long xxHash64(long... values) {
+    long h = PRIME64_5 + 8L * values.length;
+    for (long value: values) {
+      long k = Long.rotateLeft(value * PRIME64_2, 31) * PRIME64_1;
+      h = Long.rotateLeft(h ^ k, 27) * PRIME64_1 + PRIME64_4;
+    }
+    h ^= h >>> 33;
+    h *= PRIME64_2;
+    h ^= h >>> 29;
+    h *= PRIME64_3;
+    h ^= h >>> 32;
+    return h;
+  }
+}
@@ -0,0 +1,195 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.CacheHashCode;
+import org.pojomatic.annotations.Property;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+public class HashCodeCacheTest {
+  @AutoProperty
+  private static class FieldCached {
+    FieldCached(String s) {
+      this.s = s;
+    }
+
+    final String s;
+    @CacheHashCode int hashCode;
+  }
+
+  private static class SideTableCached {
+    SideTableCached(int i) {
+      this.i = i;
+    }
+
+    @Property int getI() {
+      getICalls++;
+      return i;
+    }
+
+    private final int i;
+    int getICalls;
+  }
+
+  @CacheHashCode
+  private static class CachedSideTableCached extends SideTableCached {
+    CachedSideTableCached(int i) {
+      super(i);
+    }
+  }
+
+  private static class CountingFieldCached {
+    CountingFieldCached(int i) {
+      this.i = i;
+    }
+
+    @Property int getI() {
+      getICalls++;
+      return i;
+    }
+
+    private final int i;
+    int getICalls;
+    @CacheHashCode private int hash;
+  }
+
+  @Test
+  public void testFieldCache() {
+    Pojomator<FieldCached> pojomator = PojomatorFactory.makePojomator(FieldCached.class);
+    FieldCached pojo = new FieldCached("x");
+    int expected = 31 + "x".hashCode();
+    assertEquals(pojomator.doHashCode(pojo), expected);
+    assertEquals(pojo.hashCode, expected);
+    assertEquals(pojomator.doHashCode(pojo), expected);
+  }
+
+  @Test
+  public void testCacheFieldIsNotAProperty() {
+    Pojomator<FieldCached> pojomator = PojomatorFactory.makePojomator(FieldCached.class);
+    FieldCached pojo = new FieldCached("x");
+    pojomator.doHashCode(pojo);
+    assertTrue(pojomator.doEquals(pojo, new FieldCached("x")));
+    assertEquals(pojomator.doToString(pojo), "FieldCached{s: {x}}");
+  }
+
+  @Test
+  public void testFieldCacheComputesOnce() {
+    Pojomator<CountingFieldCached> pojomator = PojomatorFactory.makePojomator(CountingFieldCached.class);
+    CountingFieldCached pojo = new CountingFieldCached(3);
+    assertEquals(pojomator.doHashCode(pojo), 31 + 3);
+    assertEquals(pojomator.doHashCode(pojo), 31 + 3);
+    assertEquals(pojo.getICalls, 1);
+  }
+
+  @Test
+  public void testZeroHashCodeRecomputed() {
+    Pojomator<CountingFieldCached> pojomator = PojomatorFactory.makePojomator(CountingFieldCached.class);
+    CountingFieldCached pojo = new CountingFieldCached(-31);
+    assertEquals(pojomator.doHashCode(pojo), 0);
+    assertEquals(pojomator.doHashCode(pojo), 0);
+    assertEquals(pojo.getICalls, 2);
+  }
+
+  @Test
+  public void testSideTableCache() {
+    Pojomator<CachedSideTableCached> pojomator = PojomatorFactory.makePojomator(CachedSideTableCached.class);
+    for (int i: Arrays.asList(-31, 7)) {
+      CachedSideTableCached pojo = new CachedSideTableCached(i);
+      CachedSideTableCached equalPojo = new CachedSideTableCached(i);
+      assertEquals(pojomator.doHashCode(pojo), 31 + i);
+      assertEquals(pojomator.doHashCode(pojo), 31 + i);
+      assertEquals(pojo.getICalls, 1);
+      assertEquals(pojomator.doHashCode(equalPojo), 31 + i);
+      assertEquals(equalPojo.getICalls, 1);
+    }
+  }
+
+  @Test
+  public void testNotCachedWithoutAnnotation() {
+    Pojomator<SideTableCached> pojomator = PojomatorFactory.makePojomator(SideTableCached.class);
+    SideTableCached pojo = new SideTableCached(1);
+    pojomator.doHashCode(pojo);
+    pojomator.doHashCode(pojo);
+    assertEquals(pojo.getICalls, 2);
+  }
+
+  @Test
+  public void testEqualsRejectsKnownDifferentHashCodes() {
+    Pojomator<CountingFieldCached> pojomator = PojomatorFactory.makePojomator(CountingFieldCached.class);
+    CountingFieldCached pojo1 = new CountingFieldCached(1);
+    CountingFieldCached pojo2 = new CountingFieldCached(2);
+    assertFalse(pojomator.doEquals(pojo1, pojo2));
+    assertEquals(pojo1.getICalls, 1);
+
+    pojomator.doHashCode(pojo1);
+    pojomator.doHashCode(pojo2);
+    assertFalse(pojomator.doEquals(pojo1, pojo2));
+    assertEquals(pojo1.getICalls, 2, "properties should not have been compared");
+
+    CountingFieldCached equalPojo = new CountingFieldCached(1);
+    pojomator.doHashCode(equalPojo);
+    assertTrue(pojomator.doEquals(pojo1, equalPojo));
+  }
+
+  @Test
+  public void testEqualsComparesPropertiesWithSideTable() {
+    Pojomator<CachedSideTableCached> pojomator = PojomatorFactory.makePojomator(CachedSideTableCached.class);
+    CachedSideTableCached pojo1 = new CachedSideTableCached(1);
+    CachedSideTableCached pojo2 = new CachedSideTableCached(2);
+    pojomator.doHashCode(pojo1);
+    pojomator.doHashCode(pojo2);
+    assertFalse(pojomator.doEquals(pojo1, pojo2));
+    assertEquals(pojo1.getICalls, 2, "properties should have been compared");
+    assertTrue(pojomator.doEquals(pojo1, new CachedSideTableCached(1)));
+  }
+
+  @Test
+  public void testSideTableLookupDoesNotAllocate() {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (!(threadBean instanceof com.sun.management.ThreadMXBean)
+      || !((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+      throw new SkipException("allocated memory cannot be measured");
+    }
+    com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+    Pojomator<CachedSideTableCached> pojomator = PojomatorFactory.makePojomator(CachedSideTableCached.class);
+    CachedSideTableCached pojo = new CachedSideTableCached(1);
+    int hashCode = pojomator.doHashCode(pojo);
+    long threadId = Thread.currentThread().getId();
+    long allocated = allocationBean.getThreadAllocatedBytes(threadId);
+    int sum = 0;
+    for (int i = 0; i < 10000; i++) {
+      sum += pojomator.doHashCode(pojo);
+    }
+    allocated = allocationBean.getThreadAllocatedBytes(threadId) - allocated;
+    assertEquals(sum, hashCode * 10000);
+    // Allocating a lookup key on each call would take several hundred thousand bytes
+    assertTrue(allocated < 10000, allocated + " bytes allocated");
+  }
+
+  @Test
+  public void testComputeHashCode() {
+    SideTableCached uncached = new SideTableCached(3);
+    BasePojomator<SideTableCached> uncachedPojomator =
+      (BasePojomator<SideTableCached>) PojomatorFactory.makePojomator(SideTableCached.class);
+    assertEquals(uncachedPojomator.computeHashCode(uncached), uncachedPojomator.doHashCode(uncached));
+
+    CachedSideTableCached cached = new CachedSideTableCached(3);
+    BasePojomator<CachedSideTableCached> cachedPojomator =
+      (BasePojomator<CachedSideTableCached>) PojomatorFactory.makePojomator(CachedSideTableCached.class);
+    assertEquals(cachedPojomator.computeHashCode(cached), cachedPojomator.doHashCode(cached));
+    assertEquals(cachedPojomator.computeHashCode(cached), cachedPojomator.doHashCode(cached));
+    assertEquals(cached.getICalls, 3, "computeHashCode should not consult the cache");
+  }
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void testNullHashCode() {
+    PojomatorFactory.makePojomator(FieldCached.class).doHashCode(null);
+  }
+}
@@ -0,0 +1,189 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.pojomatic.HashSink;
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.PojomaticPolicy;
+import org.pojomatic.annotations.Property;
+import org.testng.annotations.Test;
+
+public class HashSinkTest {
+  private static enum Color { RED }
+
+  /**
+   * Records each call made to it, as the name of the method followed by the argument.
+   */
+  private static class RecordingSink implements HashSink {
+    final List<String> calls = new ArrayList<>();
+
+    @Override
+    public void putBoolean(boolean value) {
+      calls.add("boolean " + value);
+    }
+
+    @Override
+    public void putByte(byte value) {
+      calls.add("byte " + value);
+    }
+
+    @Override
+    public void putChar(char value) {
+      calls.add("char " + value);
+    }
+
+    @Override
+    public void putShort(short value) {
+      calls.add("short " + value);
+    }
+
+    @Override
+    public void putInt(int value) {
+      calls.add("int " + value);
+    }
+
+    @Override
+    public void putLong(long value) {
+      calls.add("long " + value);
+    }
+
+    @Override
+    public void putFloat(float value) {
+      calls.add("float " + value);
+    }
+
+    @Override
+    public void putDouble(double value) {
+      calls.add("double " + value);
+    }
+
+    @Override
+    public void putBytes(byte[] bytes) {
+      calls.add("bytes " + Arrays.toString(bytes));
+    }
+
+    @Override
+    public void putString(String string) {
+      calls.add("string " + string);
+    }
+  }
+
+  @AutoProperty
+  private static class Primitives {
+    final boolean z = true;
+    final byte b = 1;
+    final char c = 'c';
+    final short s = 2;
+    final int i = 3;
+    final long l = 4;
+    final float f = 5.5f;
+    final double d = 6.5;
+  }
+
+  private static class Nested {
+    Nested(String name) {
+      this.name = name;
+    }
+
+    @Property final String name;
+  }
+
+  private static class Objects {
+    Objects(Object value) {
+      this.value = value;
+    }
+
+    @Property(policy = PojomaticPolicy.EQUALS_TO_STRING) final int notHashed = 7;
+    @Property final Object value;
+  }
+
+  @Test
+  public void testPrimitives() {
+    assertEquals(
+      hash(PojomatorFactory.makePojomator(Primitives.class), new Primitives()),
+      Arrays.asList(
+        "boolean true", "byte 1", "char c", "short 2", "int 3", "long 4", "float 5.5", "double 6.5"));
+  }
+
+  @Test
+  public void testNull() {
+    assertEquals(hash(new Objects(null)), Arrays.asList("boolean false"));
+  }
+
+  @Test
+  public void testBoxed() {
+    assertEquals(hash(new Objects(3)), Arrays.asList("boolean true", "int 3"));
+    assertEquals(hash(new Objects(3L)), Arrays.asList("boolean true", "long 3"));
+    assertEquals(hash(new Objects(false)), Arrays.asList("boolean true", "boolean false"));
+    assertEquals(hash(new Objects('x')), Arrays.asList("boolean true", "char x"));
+    assertEquals(hash(new Objects(1.5)), Arrays.asList("boolean true", "double 1.5"));
+  }
+
+  @Test
+  public void testStrings() {
+    assertEquals(hash(new Objects("abc")), Arrays.asList("boolean true", "int 3", "string abc"));
+    assertEquals(hash(new Objects(Color.RED)), Arrays.asList("boolean true", "int 3", "string RED"));
+  }
+
+  @Test
+  public void testArrays() {
+    assertEquals(
+      hash(new Objects(new byte[] { 1, 2 })),
+      Arrays.asList("boolean true", "int 2", "bytes [1, 2]"));
+    assertEquals(
+      hash(new Objects(new long[] { 1, 2 })),
+      Arrays.asList("boolean true", "int 2", "long 1", "long 2"));
+    assertEquals(
+      hash(new Objects(new Object[] { null, new int[] { 5 } })),
+      Arrays.asList("boolean true", "int 2", "boolean false", "boolean true", "int 1", "int 5"));
+  }
+
+  @Test
+  public void testList() {
+    assertEquals(
+      hash(new Objects(Arrays.asList("a", null))),
+      Arrays.asList("boolean true", "int 2", "boolean true", "int 1", "string a", "boolean false"));
+  }
+
+  @Test
+  public void testNestedPojo() {
+    assertEquals(
+      hash(new Objects(new Nested("n"))),
+      Arrays.asList("boolean true", "boolean true", "int 1", "string n"));
+  }
+
+  @Test
+  public void testOtherObject() {
+    BigDecimal value = new BigDecimal("1.50");
+    assertEquals(hash(new Objects(value)), Arrays.asList("boolean true", "int " + value.hashCode()));
+  }
+
+  @Test
+  public void testPojomatic() {
+    RecordingSink sink = new RecordingSink();
+    Pojomatic.hash(new Nested("n"), sink);
+    assertEquals(sink.calls, Arrays.asList("boolean true", "int 1", "string n"));
+  }
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void testNullSink() {
+    PojomatorFactory.makePojomator(Nested.class).doHash(new Nested("n"), null);
+  }
+
+  private static List<String> hash(Objects pojo) {
+    return hash(PojomatorFactory.makePojomator(Objects.class), pojo);
+  }
+
+  private static <T> List<String> hash(Pojomator<T> pojomator, T pojo) {
+    RecordingSink sink = new RecordingSink();
+    pojomator.doHash(pojo, sink);
+    return sink.calls;
+  }
+}
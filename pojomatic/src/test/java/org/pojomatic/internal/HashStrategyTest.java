@@ -0,0 +1,179 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.CacheHashCode;
+import org.pojomatic.annotations.HashStrategy;
+import org.pojomatic.annotations.PojoHash;
+import org.testng.annotations.Test;
+
+public class HashStrategyTest {
+  @AutoProperty
+  private static class StandardPojo {
+    StandardPojo(int x, int y, boolean flag) {
+      this.x = x;
+      this.y = y;
+      this.flag = flag;
+    }
+
+    final int x;
+    final int y;
+    final boolean flag;
+  }
+
+  @PojoHash(HashStrategy.MURMUR3)
+  private static class Murmur3Pojo extends StandardPojo {
+    Murmur3Pojo(int x, int y, boolean flag) {
+      super(x, y, flag);
+    }
+  }
+
+  @PojoHash(HashStrategy.XXHASH)
+  private static class XxHashPojo extends StandardPojo {
+    XxHashPojo(int x, int y, boolean flag) {
+      super(x, y, flag);
+    }
+  }
+
+  private static class InheritingPojo extends XxHashPojo {
+    InheritingPojo(int x, int y, boolean flag) {
+      super(x, y, flag);
+    }
+  }
+
+  @AutoProperty
+  @CacheHashCode
+  @PojoHash(HashStrategy.MURMUR3)
+  private static class CachedMurmur3Pojo {
+    CachedMurmur3Pojo(long l, String s, double[] doubles) {
+      this.l = l;
+      this.s = s;
+      this.doubles = doubles;
+    }
+
+    final long l;
+    final String s;
+    final double[] doubles;
+  }
+
+  @Test
+  public void testStandard() {
+    Pojomator<StandardPojo> pojomator = PojomatorFactory.makePojomator(StandardPojo.class);
+    assertEquals(pojomator.doHashCode(new StandardPojo(3, 4, true)), ((31 + 3) * 31 + 4) * 31 + 1231);
+  }
+
+  @Test
+  public void testMurmur3() {
+    Pojomator<Murmur3Pojo> pojomator = PojomatorFactory.makePojomator(Murmur3Pojo.class);
+    assertEquals(pojomator.doHashCode(new Murmur3Pojo(3, 4, true)), murmur3(3, 4, 1231));
+    assertEquals(pojomator.doHashCode(new Murmur3Pojo(-7, 0, false)), murmur3(-7, 0, 1237));
+  }
+
+  @Test
+  public void testXxHash() {
+    Pojomator<XxHashPojo> pojomator = PojomatorFactory.makePojomator(XxHashPojo.class);
+    assertEquals(pojomator.doHashCode(new XxHashPojo(3, 4, true)), xxHash(3, 4, 1231));
+    assertEquals(pojomator.doHashCode(new XxHashPojo(-7, 0, false)), xxHash(-7, 0, 1237));
+  }
+
+  @Test
+  public void testInherited() {
+    Pojomator<InheritingPojo> pojomator = PojomatorFactory.makePojomator(InheritingPojo.class);
+    assertEquals(pojomator.doHashCode(new InheritingPojo(3, 4, true)), xxHash(3, 4, 1231));
+  }
+
+  @Test
+  public void testCached() {
+    Pojomator<CachedMurmur3Pojo> pojomator = PojomatorFactory.makePojomator(CachedMurmur3Pojo.class);
+    CachedMurmur3Pojo pojo = new CachedMurmur3Pojo(1L << 40, "foo", new double[] { 1.5 });
+    int expected = murmur3(Long.valueOf(1L << 40).hashCode(), "foo".hashCode(), Arrays.hashCode(pojo.doubles));
+    assertEquals(pojomator.doHashCode(pojo), expected);
+    assertEquals(pojomator.doHashCode(pojo), expected);
+    assertEquals(pojomator.doHashCode(new CachedMurmur3Pojo(1L << 40, null, null)),
+      murmur3(Long.valueOf(1L << 40).hashCode(), 0, 0));
+  }
+
+  /**
+   * POJOs whose properties are small integers should not share hash codes.
+   */
+  @Test
+  public void testCollisions() {
+    Pojomator<StandardPojo> standard = PojomatorFactory.makePojomator(StandardPojo.class);
+    Pojomator<Murmur3Pojo> murmur3 = PojomatorFactory.makePojomator(Murmur3Pojo.class);
+    Pojomator<XxHashPojo> xxHash = PojomatorFactory.makePojomator(XxHashPojo.class);
+    Set<Integer> standardHashCodes = new HashSet<>();
+    Set<Integer> murmur3HashCodes = new HashSet<>();
+    Set<Integer> xxHashHashCodes = new HashSet<>();
+    for (int x = 0; x < 128; x++) {
+      for (int y = 0; y < 128; y++) {
+        for (boolean flag: new boolean[] { true, false }) {
+          standardHashCodes.add(standard.doHashCode(new StandardPojo(x, y, flag)));
+          murmur3HashCodes.add(murmur3.doHashCode(new Murmur3Pojo(x, y, flag)));
+          xxHashHashCodes.add(xxHash.doHashCode(new XxHashPojo(x, y, flag)));
+        }
+      }
+    }
+    // with the standard strategy, (x, y) and (x + 1, y - 31) collide
+    assertEquals(standardHashCodes.size(), 2 * (127 * 31 + 128));
+    // both mixing strategies are bijective on the last property hash code, and hence on the flag
+    assertTrue(murmur3HashCodes.size() > 32760, "murmur3: " + murmur3HashCodes.size());
+    assertTrue(xxHashHashCodes.size() > 32760, "xxHash: " + xxHashHashCodes.size());
+  }
+
+  private static ByteBuffer littleEndian(int... values) {
+    ByteBuffer bytes = ByteBuffer.allocate(4 * values.length).order(ByteOrder.LITTLE_ENDIAN);
+    for (int value: values) {
+      bytes.putInt(value);
+    }
+    bytes.flip();
+    return bytes;
+  }
+
+  /**
+   * MurmurHash3_x86_32, with a seed of 0, of the little-endian bytes of {@code values}.
+   */
+  private static int murmur3(int... values) {
+    ByteBuffer bytes = littleEndian(values);
+    int length = bytes.remaining();
+    int h = 0;
+    while (bytes.hasRemaining()) {
+      int k = bytes.getInt() * 0xcc9e2d51;
+      k = Integer.rotateLeft(k, 15) * 0x1b873593;
+      h ^= k;
+      h = Integer.rotateLeft(h, 13) * 5 + 0xe6546b64;
+    }
+    h ^= length;
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  /**
+   * XXH32, with a seed of 0, of the little-endian bytes of {@code values}, which must be fewer than 16 bytes.
+   */
+  private static int xxHash(int... values) {
+    ByteBuffer bytes = littleEndian(values);
+    int h = 0x165667b1 + bytes.remaining();
+    while (bytes.hasRemaining()) {
+      h += bytes.getInt() * 0xc2b2ae3d;
+      h = Integer.rotateLeft(h, 17) * 0x27d4eb2f;
+    }
+    h ^= h >>> 15;
+    h *= 0x85ebca77;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae3d;
+    h ^= h >>> 16;
+    return h;
+  }
+}
@@ -0,0 +1,227 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteStreams;
+
+public class NestedPojoTest {
+  @AutoProperty
+  static final class Node {
+    Node(int value, Node next) {
+      this.value = value;
+      this.next = next;
+    }
+
+    final int value;
+    final Node next;
+
+    @Override
+    public boolean equals(Object other) {
+      return Pojomatic.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this);
+    }
+  }
+
+  @AutoProperty
+  static class Delegating {
+    Delegating(int value) {
+      this.value = value;
+    }
+
+    final int value;
+
+    @Override
+    public boolean equals(Object other) {
+      return Pojomatic.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this);
+    }
+  }
+
+  /** Inherits equals and hashCode which delegate to Pojomatic */
+  static final class FinalDelegating extends Delegating {
+    FinalDelegating(int value) {
+      super(value);
+    }
+  }
+
+  @AutoProperty
+  static final class CustomEquals {
+    CustomEquals(int value) {
+      this.value = value;
+    }
+
+    final int value;
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof CustomEquals && Pojomatic.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+      return Pojomatic.hashCode(this) + 1;
+    }
+  }
+
+  @AutoProperty
+  static class Holder {
+    Holder(Node node, Delegating delegating, FinalDelegating finalDelegating, CustomEquals customEquals) {
+      this.node = node;
+      this.delegating = delegating;
+      this.finalDelegating = finalDelegating;
+      this.customEquals = customEquals;
+    }
+
+    final Node node;
+    final Delegating delegating;
+    final FinalDelegating finalDelegating;
+    final CustomEquals customEquals;
+  }
+
+  @Test
+  public void testDelegation() {
+    assertTrue(PojomaticDelegation.forClass(Node.class).delegatesEquals());
+    assertTrue(PojomaticDelegation.forClass(Node.class).delegatesHashCode());
+    assertTrue(PojomaticDelegation.forClass(FinalDelegating.class).delegatesEquals());
+    assertTrue(PojomaticDelegation.forClass(FinalDelegating.class).delegatesHashCode());
+    assertFalse(PojomaticDelegation.forClass(CustomEquals.class).delegatesEquals());
+    assertFalse(PojomaticDelegation.forClass(CustomEquals.class).delegatesHashCode());
+    assertFalse(PojomaticDelegation.forClass(Holder.class).delegatesEquals());
+    assertFalse(PojomaticDelegation.forClass(Holder.class).delegatesHashCode());
+    assertFalse(PojomaticDelegation.forClass(String.class).delegatesEquals());
+  }
+
+  /**
+   * Loads its own copies of the given classes, with their class file version raised to that of Java 9.
+   */
+  private static class LaterJavaClassLoader extends ClassLoader {
+    private final Set<String> classNames;
+
+    LaterJavaClassLoader(Class<?>... classes) {
+      super(NestedPojoTest.class.getClassLoader());
+      classNames = new HashSet<>();
+      for (Class<?> clazz: classes) {
+        classNames.add(clazz.getName());
+      }
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!classNames.contains(name)) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> clazz = findLoadedClass(name);
+        if (clazz == null) {
+          byte[] bytes = classBytes(name);
+          clazz = defineClass(name, bytes, 0, bytes.length);
+        }
+        return clazz;
+      }
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String name) {
+      String className = name.replace('/', '.').replaceAll("\\.class$", "");
+      return classNames.contains(className)
+        ? new ByteArrayInputStream(classBytes(className)) : super.getResourceAsStream(name);
+    }
+
+    private byte[] classBytes(String className) {
+      try (InputStream in = getParent().getResourceAsStream(className.replace('.', '/') + ".class")) {
+        byte[] bytes = ByteStreams.toByteArray(in);
+        bytes[6] = 0;
+        bytes[7] = 53;
+        return bytes;
+      }
+      catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  @Test
+  public void testDelegationCompiledForLaterJava() throws Exception {
+    ClassLoader classLoader = new LaterJavaClassLoader(Node.class, Delegating.class, FinalDelegating.class);
+    Class<?> nodeClass = classLoader.loadClass(Node.class.getName());
+    Class<?> finalDelegatingClass = classLoader.loadClass(FinalDelegating.class.getName());
+    assertNotSame(nodeClass, Node.class);
+    assertEquals(ClassMemberOrder.classBytes(nodeClass)[7], 53);
+    assertTrue(PojomaticDelegation.forClass(nodeClass).delegatesEquals());
+    assertTrue(PojomaticDelegation.forClass(nodeClass).delegatesHashCode());
+    assertTrue(PojomaticDelegation.forClass(finalDelegatingClass).delegatesEquals());
+    assertTrue(PojomaticDelegation.forClass(finalDelegatingClass).delegatesHashCode());
+  }
+
+  @Test
+  public void testLinkedProperties() {
+    String signature = PojomatorByteCodeGenerator.propertiesSignature(
+      Holder.class, ClassProperties.forClass(Holder.class));
+    assertTrue(signature.contains("_node=Lorg/pojomatic/internal/NestedPojoTest$Node;^e^h,"), signature);
+    assertTrue(signature.contains("_delegating=Lorg/pojomatic/internal/NestedPojoTest$Delegating;,"), signature);
+    assertTrue(
+      signature.contains("_finalDelegating=Lorg/pojomatic/internal/NestedPojoTest$FinalDelegating;^e^h,"), signature);
+    assertTrue(signature.contains("_customEquals=Lorg/pojomatic/internal/NestedPojoTest$CustomEquals;,"), signature);
+  }
+
+  @Test
+  public void testEquals() {
+    Pojomator<Holder> pojomator = PojomatorFactory.makePojomator(Holder.class);
+    Holder holder = holder(new Node(1, new Node(2, null)), 3);
+    assertTrue(pojomator.doEquals(holder, holder(new Node(1, new Node(2, null)), 3)));
+    assertFalse(pojomator.doEquals(holder, holder(new Node(1, new Node(3, null)), 3)));
+    assertFalse(pojomator.doEquals(holder, holder(new Node(1, null), 3)));
+    assertFalse(pojomator.doEquals(holder, holder(null, 3)));
+    assertFalse(pojomator.doEquals(holder(null, 3), holder));
+    assertTrue(pojomator.doEquals(holder(null, 3), holder(null, 3)));
+    assertFalse(pojomator.doEquals(holder, holder(new Node(1, new Node(2, null)), 4)));
+  }
+
+  @Test
+  public void testHashCode() {
+    Pojomator<Holder> pojomator = PojomatorFactory.makePojomator(Holder.class);
+    Node node = new Node(1, new Node(2, null));
+    Holder holder = holder(node, 3);
+    int expected = 31 * (31 * (31 * (31 + node.hashCode()) + holder.delegating.hashCode())
+      + holder.finalDelegating.hashCode()) + holder.customEquals.hashCode();
+    assertEquals(pojomator.doHashCode(holder), expected);
+    assertEquals(
+      pojomator.doHashCode(new Holder(null, null, null, null)), 31 * 31 * 31 * 31);
+  }
+
+  @Test
+  public void testDeepChain() {
+    Node first = null;
+    Node second = null;
+    for (int i = 0; i < 1000; i++) {
+      first = new Node(i, first);
+      second = new Node(i, second);
+    }
+    assertEquals(first, second);
+    assertEquals(first.hashCode(), second.hashCode());
+    assertFalse(first.equals(new Node(999, second.next.next)));
+  }
+
+  private static Holder holder(Node node, int value) {
+    return new Holder(node, new Delegating(value), new FinalDelegating(value), new CustomEquals(value));
+  }
+}
@@ -0,0 +1,119 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.pojomatic.internal.scan.AutoPropertyPojo;
+import org.pojomatic.internal.scan.NotAPojo;
+import org.pojomatic.internal.scan.sub.PropertyPojo;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+
+public class PojoClassScannerTest {
+  private static final String PACKAGE = "org.pojomatic.internal.scan";
+
+  @Test
+  public void testFindPojoClassesInDirectory() throws Exception {
+    assertEquals(
+      new HashSet<>(PojoClassScanner.findPojoClasses(PACKAGE, getClass().getClassLoader())),
+      ImmutableSet.of(AutoPropertyPojo.class, PropertyPojo.class));
+  }
+
+  @Test
+  public void testFindPojoClassesInSubpackage() throws Exception {
+    assertEquals(
+      PojoClassScanner.findPojoClasses(PACKAGE + ".sub", getClass().getClassLoader()),
+      ImmutableSet.of(PropertyPojo.class).asList());
+  }
+
+  @Test
+  public void testFindPojoClassesInJar() throws Exception {
+    File jar = File.createTempFile("pojos", ".jar");
+    jar.deleteOnExit();
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+      // directory entries, as a jar built by Maven would have
+      for (String directory: new String[] {
+        "org/", "org/pojomatic/", "org/pojomatic/internal/", "org/pojomatic/internal/scan/",
+        "org/pojomatic/internal/scan/sub/" }) {
+        out.putNextEntry(new JarEntry(directory));
+      }
+      for (Class<?> clazz: new Class<?>[] { AutoPropertyPojo.class, NotAPojo.class, PropertyPojo.class }) {
+        out.putNextEntry(new JarEntry(classFileName(clazz)));
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(classFileName(clazz))) {
+          ByteStreams.copy(in, out);
+        }
+      }
+    }
+
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] { jar.toURI().toURL() }, null)) {
+      List<String> classNames = new ArrayList<>();
+      for (Class<?> clazz: PojoClassScanner.findPojoClasses(PACKAGE, classLoader)) {
+        assertSame(clazz.getClassLoader(), classLoader);
+        classNames.add(clazz.getName());
+      }
+      assertEquals(
+        new HashSet<>(classNames), ImmutableSet.of(AutoPropertyPojo.class.getName(), PropertyPojo.class.getName()));
+    }
+  }
+
+  @Test
+  public void testFindPojoClassesCompiledForLaterJava() throws Exception {
+    File directory = Files.createTempDirectory("pojos").toFile();
+    for (Class<?> clazz: new Class<?>[] { AutoPropertyPojo.class, NotAPojo.class, PropertyPojo.class }) {
+      byte[] classBytes;
+      try (InputStream in = getClass().getClassLoader().getResourceAsStream(classFileName(clazz))) {
+        classBytes = ByteStreams.toByteArray(in);
+      }
+      // Claim a class file version of Java 9, which ASM 5 refuses to read
+      classBytes[6] = 0;
+      classBytes[7] = 53;
+      File classFile = new File(directory, classFileName(clazz));
+      assertTrue(classFile.getParentFile().isDirectory() || classFile.getParentFile().mkdirs());
+      Files.write(classFile.toPath(), classBytes);
+    }
+
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() }, null)) {
+      List<String> classNames = new ArrayList<>();
+      for (Class<?> clazz: PojoClassScanner.findPojoClasses(PACKAGE, classLoader)) {
+        classNames.add(clazz.getName());
+      }
+      assertEquals(
+        new HashSet<>(classNames), ImmutableSet.of(AutoPropertyPojo.class.getName(), PropertyPojo.class.getName()));
+    }
+  }
+
+  @Test
+  public void testUnparseableClassFileSkipped() throws Exception {
+    File directory = Files.createTempDirectory("pojos").toFile();
+    File classFile = new File(directory, PACKAGE.replace('.', '/') + "/Truncated.class");
+    assertTrue(classFile.getParentFile().mkdirs());
+    Files.write(classFile.toPath(), new byte[] { (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0 });
+
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() }, null)) {
+      assertEquals(PojoClassScanner.findPojoClasses(PACKAGE, classLoader).size(), 0);
+    }
+  }
+
+  @Test
+  public void testNoSuchPackage() throws IOException {
+    assertEquals(PojoClassScanner.findPojoClasses("no.such.pkg", getClass().getClassLoader()).size(), 0);
+  }
+
+  private static String classFileName(Class<?> clazz) {
+    return clazz.getName().replace('.', '/') + ".class";
+  }
+}
@@ -0,0 +1,149 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.diagnostics.PojomatorCreationStatistics;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteStreams;
+
+public class PojomatorClassCacheTest {
+  @AutoProperty
+  public static class Pojo {
+    public int x;
+  }
+
+  /**
+   * Loads its own copy of {@link Pojo}, so that each instance gets a freshly created Pojomator.
+   */
+  private static class PojoClassLoader extends ClassLoader {
+    PojoClassLoader() {
+      super(PojomatorClassCacheTest.class.getClassLoader());
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.equals(Pojo.class.getName())) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> clazz = findLoadedClass(name);
+        if (clazz == null) {
+          try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+            byte[] bytes = ByteStreams.toByteArray(in);
+            clazz = defineClass(name, bytes, 0, bytes.length);
+          }
+          catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+          }
+        }
+        return clazz;
+      }
+    }
+  }
+
+  private Path directory;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("pojomator-cache");
+    Pojomatic.setPojomatorCacheDirectory(directory.toFile());
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    Pojomatic.setPojomatorCacheDirectory(null);
+    for (Path file: listDirectory()) {
+      Files.delete(file);
+    }
+    Files.delete(directory);
+  }
+
+  @Test
+  public void testCachedClassReused() throws Exception {
+    PojomatorCreationStatistics statistics = new PojomatorCreationStatistics();
+    Pojomatic.addPojomatorCreationListener(statistics);
+    try {
+      Pojomator<?> first = PojomatorFactory.makePojomator(new PojoClassLoader().loadClass(Pojo.class.getName()));
+      assertTrue(statistics.getClassSize(Pojo.class.getName()) > 0);
+      List<Path> entries = listDirectory();
+      assertEquals(entries.size(), 1);
+
+      statistics.reset();
+      Class<?> pojoClass = new PojoClassLoader().loadClass(Pojo.class.getName());
+      @SuppressWarnings("unchecked")
+      Pojomator<Object> second = (Pojomator<Object>) PojomatorFactory.makePojomator(pojoClass);
+      assertEquals(statistics.getClassSize(Pojo.class.getName()), 0, "class should have come from the cache");
+      assertEquals(listDirectory(), entries);
+      assertNotSame(second.getClass(), first.getClass());
+
+      Object pojo = pojoClass.newInstance();
+      Object other = pojoClass.newInstance();
+      pojoClass.getField("x").setInt(other, 1);
+      assertTrue(second.doEquals(pojo, pojoClass.newInstance()));
+      assertFalse(second.doEquals(pojo, other));
+    }
+    finally {
+      Pojomatic.removePojomatorCreationListener(statistics);
+    }
+  }
+
+  @Test
+  public void testNoKeyWhenDisabled() throws Exception {
+    assertNotNull(PojomatorClassCache.key(Pojo.class, "variant"));
+    Pojomatic.setPojomatorCacheDirectory(null);
+    assertNull(PojomatorClassCache.key(Pojo.class, "variant"));
+  }
+
+  @Test
+  public void testKeyDependsOnVariantAndClass() throws Exception {
+    String key = PojomatorClassCache.key(Pojo.class, "variant");
+    assertEquals(PojomatorClassCache.key(Pojo.class, "variant"), key);
+    assertFalse(key.equals(PojomatorClassCache.key(Pojo.class, "other")));
+    assertFalse(key.equals(PojomatorClassCache.key(PojoClassLoader.class, "variant")));
+  }
+
+  @Test
+  public void testNoKeyWithoutClassBytes() throws Exception {
+    Class<?> pojoClass = new ClassOnlyClassLoader(Pojo.class.getClassLoader()).loadClass(Pojo.class.getName());
+    assertNull(PojomatorClassCache.key(pojoClass, "variant"));
+  }
+
+  @Test
+  public void testStoreAndLoad() throws Exception {
+    byte[] classBytes = { (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 52 };
+    assertNull(PojomatorClassCache.load("key"));
+    PojomatorClassCache.store("key", classBytes);
+    assertEquals(PojomatorClassCache.load("key"), classBytes);
+    assertEquals(listDirectory().size(), 1, "no temporary files should remain");
+  }
+
+  @Test
+  public void testCorruptEntryIgnored() throws Exception {
+    Files.write(directory.resolve("key.class"), new byte[] { 1, 2, 3, 4, 5 });
+    assertNull(PojomatorClassCache.load("key"));
+  }
+
+  private List<Path> listDirectory() throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path file: stream) {
+        files.add(file);
+      }
+    }
+    return files;
+  }
+}
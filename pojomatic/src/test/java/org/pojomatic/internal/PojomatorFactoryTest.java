@@ -3,11 +3,14 @@ package org.pojomatic.internal;
 import static org.testng.Assert.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import org.testng.SkipException;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.AnnotatedElement;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import org.mockito.Mockito;
@@ -15,8 +18,11 @@ import org.pojomatic.Pojomatic;
 import org.pojomatic.Pojomator;
 import org.pojomatic.PropertyElement;
 import org.pojomatic.annotations.PojoFormat;
+import org.pojomatic.annotations.PojomaticPolicy;
 import org.pojomatic.annotations.Property;
 import org.pojomatic.annotations.PropertyFormat;
+import org.pojomatic.annotations.StatelessFormatter;
+import org.pojomatic.formatter.DefaultEnhancedPojoFormatter;
 import org.pojomatic.formatter.DefaultEnhancedPropertyFormatter;
 
 import com.google.common.io.ByteStreams;
@@ -202,6 +208,136 @@ public class PojomatorFactoryTest {
     assertEquals(PojomatorFactory.makePojomator(Pojo.class).doToString(new Pojo()), "pojopre-Pojo:proppre-x:0proppost-x:pojopost-Pojo:");
   }
 
+  public static class CountingPojoFormatter extends DefaultEnhancedPojoFormatter {
+    static final AtomicInteger instances = new AtomicInteger();
+
+    public CountingPojoFormatter() {
+      instances.incrementAndGet();
+    }
+  }
+
+  @StatelessFormatter
+  public static class CountingStatelessPojoFormatter extends CountingPojoFormatter {
+    private final String separator = "; ";
+
+    @Override
+    public void appendPropertyPrefix(StringBuilder builder, PropertyElement property) {
+      if (builder.charAt(builder.length() - 1) != '{') {
+        builder.append(separator);
+      }
+      builder.append(property.getName()).append(": {");
+    }
+  }
+
+  @Test
+  public void testIsStatelessFormatter() {
+    assertTrue(PojomatorByteCodeGenerator.isStatelessFormatter(DummyPojoFormatter.class));
+    assertTrue(PojomatorByteCodeGenerator.isStatelessFormatter(CountingStatelessPojoFormatter.class));
+    assertFalse(PojomatorByteCodeGenerator.isStatelessFormatter(DefaultEnhancedPojoFormatter.class));
+    assertFalse(PojomatorByteCodeGenerator.isStatelessFormatter(CountingPojoFormatter.class));
+  }
+
+  @Test
+  public void testDefaultPojoFormatterConstantText() {
+    class Pojo {
+      @Property int x = 1;
+      @Property String y = "{";
+      @Property int[] z = { 3 };
+    }
+    Pojomator<Pojo> pojomator = PojomatorFactory.makePojomator(Pojo.class);
+    assertFalse(PojomatorByteCodeGenerator.sharesPojoFormatter(Pojo.class));
+    assertEquals(
+      PojomatorByteCodeGenerator.constantFormatterText(Pojo.class, ClassProperties.forClass(Pojo.class)),
+      new String[] { "Pojo{x: {", "}, y: {", "}, z: {", "}}" });
+    assertEquals(pojomator.doToString(new Pojo()), "Pojo{x: {1}, y: {{}, z: {[3]}}");
+    assertEquals(pojomator.doToString(new Pojo()), "Pojo{x: {1}, y: {{}, z: {[3]}}");
+    StringBuilder builder = new StringBuilder("{");
+    pojomator.doAppendTo(new Pojo(), builder);
+    assertEquals(builder.toString(), "{Pojo{x: {1}, y: {{}, z: {[3]}}");
+  }
+
+  @Test
+  public void testExplicitDefaultPojoFormatterConstantText() {
+    @PojoFormat(DefaultEnhancedPojoFormatter.class)
+    class Pojo {
+      @Property int x = 1;
+      @Property long y = 2;
+    }
+    assertTrue(PojomatorByteCodeGenerator.hasConstantFormatterText(Pojo.class));
+    assertEquals(PojomatorFactory.makePojomator(Pojo.class).doToString(new Pojo()), "Pojo{x: {1}, y: {2}}");
+  }
+
+  @Test
+  public void testNoToStringPropertiesConstantText() {
+    class Pojo {
+      @Property(policy = PojomaticPolicy.EQUALS) int x = 1;
+    }
+    assertEquals(
+      PojomatorByteCodeGenerator.constantFormatterText(Pojo.class, ClassProperties.forClass(Pojo.class)),
+      new String[] { "Pojo{}" });
+    assertEquals(PojomatorFactory.makePojomator(Pojo.class).doToString(new Pojo()), "Pojo{}");
+  }
+
+  @StatelessFormatter(constant = true)
+  public static class CountingConstantPojoFormatter extends CountingPojoFormatter {
+    @Override
+    public void appendToStringPrefix(StringBuilder builder, Class<?> pojoClass) {
+      builder.append('<');
+    }
+
+    @Override
+    public void appendToStringSuffix(StringBuilder builder, Class<?> pojoClass) {
+      builder.append('>');
+    }
+
+    @Override
+    public void appendPropertySuffix(StringBuilder builder, PropertyElement property) {}
+  }
+
+  @Test
+  public void testConstantPojoFormatterNotCalled() {
+    @PojoFormat(CountingConstantPojoFormatter.class)
+    class Pojo {
+      @Property int x = 1;
+      @Property String y = "two";
+    }
+    Pojomator<Pojo> pojomator = PojomatorFactory.makePojomator(Pojo.class);
+    assertFalse(PojomatorByteCodeGenerator.sharesPojoFormatter(Pojo.class));
+    int instances = CountingPojoFormatter.instances.get();
+    assertEquals(pojomator.doToString(new Pojo()), "<x: {1, y: {two>");
+    assertEquals(pojomator.doToString(new Pojo()), "<x: {1, y: {two>");
+    assertEquals(CountingPojoFormatter.instances.get(), instances);
+  }
+
+  @Test
+  public void testStatelessPojoFormatterShared() {
+    @PojoFormat(CountingStatelessPojoFormatter.class)
+    class Pojo {
+      @Property int x = 1;
+      @Property int y = 2;
+    }
+    int instances = CountingPojoFormatter.instances.get();
+    Pojomator<Pojo> pojomator = PojomatorFactory.makePojomator(Pojo.class);
+    assertEquals(pojomator.doToString(new Pojo()), "Pojo{x: {1}; y: {2}}");
+    assertEquals(pojomator.doToString(new Pojo()), "Pojo{x: {1}; y: {2}}");
+    assertEquals(CountingPojoFormatter.instances.get(), instances + 1);
+  }
+
+  @Test
+  public void testStatefulPojoFormatterNotShared() {
+    @PojoFormat(CountingPojoFormatter.class)
+    class Pojo {
+      @Property int x = 1;
+      @Property int y = 2;
+    }
+    int instances = CountingPojoFormatter.instances.get();
+    Pojomator<Pojo> pojomator = PojomatorFactory.makePojomator(Pojo.class);
+    assertFalse(PojomatorByteCodeGenerator.sharesPojoFormatter(Pojo.class));
+    assertEquals(pojomator.doToString(new Pojo()), "Pojo{x: {1}, y: {2}}");
+    assertEquals(pojomator.doToString(new Pojo()), "Pojo{x: {1}, y: {2}}");
+    assertEquals(CountingPojoFormatter.instances.get(), instances + 2);
+  }
+
   @SuppressWarnings("deprecation")
   public static class DummyPropertyFormatter implements org.pojomatic.formatter.PropertyFormatter {
     static AnnotatedElement initializedElement;
@@ -237,7 +373,8 @@ public class PojomatorFactoryTest {
     Pojomator<Pojo> pojomator = PojomatorFactory.makePojomator(Pojo.class);
     assertThat(
       pojomator.getClass().getName(),
-      RegexMatcher.matches(Pattern.quote(PojomatorStub.class.getName()+ "$") + "\\d+"));
+      RegexMatcher.matches(Pattern.quote(PojomatorFactory.prebuiltPojomatorClassName(Pojo.class))
+        + "|" + Pattern.quote(PojomatorStub.class.getName()+ "$") + "\\d+"));
 
     Pojo pojo = new Pojo();
     try {
@@ -263,6 +400,41 @@ public class PojomatorFactoryTest {
     assertEquals(element.getLineNumber(), lineNumber);
   }
 
+  @Test
+  public void testPojomatorDefinedAlongsidePojo() throws Exception {
+    if (!hasMethod(MethodHandles.Lookup.class, "defineClass", byte[].class)) {
+      throw new SkipException("Lookup.defineClass requires Java 9 or later");
+    }
+    Pojomator<ToBeDuplicated> pojomator = PojomatorFactory.makePojomator(ToBeDuplicated.class);
+    assertEquals(
+      pojomator.getClass().getName(), PojomatorFactory.prebuiltPojomatorClassName(ToBeDuplicated.class));
+    assertSame(pojomator.getClass().getClassLoader(), ToBeDuplicated.class.getClassLoader());
+    assertSame(PojomatorFactory.makePojomator(ToBeDuplicated.class).getClass(), pojomator.getClass());
+  }
+
+  @Test
+  public void testPropertiesSignatureIdentifiesGenerator() {
+    class Pojo {
+      @Property int x;
+    }
+    // A Pojomator class prebuilt by another version of Pojomatic may lack methods which Pojomator has since gained
+    String generatorVersion = PojomatorClassCache.generatorVersion();
+    assertTrue(generatorVersion.matches(".*:[0-9a-f]{64}"), generatorVersion);
+    assertTrue(
+      PojomatorByteCodeGenerator.propertiesSignature(Pojo.class, ClassProperties.forClass(Pojo.class))
+        .startsWith(generatorVersion + ";"));
+  }
+
+  private static boolean hasMethod(Class<?> clazz, String name, Class<?>... parameterTypes) {
+    try {
+      clazz.getMethod(name, parameterTypes);
+      return true;
+    }
+    catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
   @Test
   public void testProxiedClass() {
     class Pojo {
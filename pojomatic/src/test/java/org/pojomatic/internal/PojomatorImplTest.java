@@ -2,11 +2,14 @@ package org.pojomatic.internal;
 
 import static org.testng.Assert.*;
 
+import java.util.Arrays;
+
 import org.pojomatic.NoPojomaticPropertiesException;
 import org.pojomatic.Pojomator;
 import org.pojomatic.annotations.AutoDetectPolicy;
 import org.pojomatic.annotations.AutoProperty;
 import org.pojomatic.annotations.PojoFormat;
+import org.pojomatic.annotations.PojomaticPolicy;
 import org.pojomatic.annotations.Property;
 import org.pojomatic.annotations.PropertyFormat;
 import org.pojomatic.diff.Differences;
@@ -39,6 +42,14 @@ public class PojomatorImplTest {
     OBJECT_PROPERTY_POJOMATOR.doToString(null);
   }
 
+  @Test(expectedExceptions=NullPointerException.class) public void testAppendToOnNull() {
+    OBJECT_PROPERTY_POJOMATOR.doAppendTo(null, new StringBuilder());
+  }
+
+  @Test(expectedExceptions=NullPointerException.class) public void testAppendToNullBuilder() {
+    OBJECT_PROPERTY_POJOMATOR.doAppendTo(new ObjectProperty("e"), null);
+  }
+
   @Test(expectedExceptions=NullPointerException.class) public void testNullInstanceEquals() {
     OBJECT_PROPERTY_POJOMATOR.doEquals(null, new ObjectProperty("e"));
   }
@@ -87,6 +98,57 @@ public class PojomatorImplTest {
     assertTrue(left.getBCalled);
   }
 
+  @Test public void testEqualsOnlyProperty() {
+    Pojomator<EqualsOnlyProperty> pojomator = makePojomator(EqualsOnlyProperty.class);
+    assertFalse(pojomator.doEquals(new EqualsOnlyProperty(1, 2), new EqualsOnlyProperty(1, 3)));
+    assertTrue(pojomator.doEquals(new EqualsOnlyProperty(1, 2), new EqualsOnlyProperty(1, 2)));
+    assertEquals(
+      pojomator.doDiff(new EqualsOnlyProperty(1, 2), new EqualsOnlyProperty(1, 3)).differences(),
+      Arrays.asList(new ValueDifference("onlyForEquals", 2, 3)));
+  }
+
+  @Test public void testCheapPropertiesComparedFirst() {
+    CostOrderedProperties left = new CostOrderedProperties("s", Thread.State.NEW, 1);
+    CostOrderedProperties right = new CostOrderedProperties("s", Thread.State.NEW, 2);
+    Pojomator<CostOrderedProperties> pojomator = makePojomator(CostOrderedProperties.class);
+    assertFalse(pojomator.doEquals(left, right));
+    assertFalse(left.getStringCalled);
+    assertFalse(left.getStateCalled);
+
+    assertFalse(pojomator.doEquals(left, new CostOrderedProperties("s", Thread.State.RUNNABLE, 1)));
+    assertFalse(left.getStringCalled);
+    assertTrue(left.getStateCalled);
+
+    assertTrue(pojomator.doEquals(left, new CostOrderedProperties("s", Thread.State.NEW, 1)));
+    assertTrue(left.getStringCalled);
+  }
+
+  @Test public void testEqualsOrderHint() {
+    HintedProperties left = new HintedProperties(1, "a");
+    Pojomator<HintedProperties> pojomator = makePojomator(HintedProperties.class);
+    assertFalse(pojomator.doEquals(left, new HintedProperties(2, "b")));
+    assertFalse(left.getNumberCalled);
+    assertTrue(pojomator.doEquals(left, new HintedProperties(1, "a")));
+    assertTrue(left.getNumberCalled);
+  }
+
+  @Test public void testArraysEquals() {
+    Pojomator<ArrayProperties> pojomator = makePojomator(ArrayProperties.class);
+    ArrayProperties pojo = new ArrayProperties(
+      new String[] { "a", null }, new int[][] { { 1 }, null }, new Object[] { new String[] { "a" } });
+    assertTrue(pojomator.doEquals(pojo, new ArrayProperties(
+      new String[] { "a", null }, new int[][] { { 1 }, null }, new Object[] { new String[] { "a" } })));
+    assertFalse(pojomator.doEquals(pojo, new ArrayProperties(
+      new String[] { "a", "b" }, new int[][] { { 1 }, null }, new Object[] { new String[] { "a" } })));
+    assertFalse(pojomator.doEquals(pojo, new ArrayProperties(
+      new String[] { "a", null }, new int[][] { { 2 }, null }, new Object[] { new String[] { "a" } })));
+    // arrays of different classes are never equal
+    assertFalse(pojomator.doEquals(pojo, new ArrayProperties(
+      new String[] { "a", null }, new int[][] { { 1 }, null }, new Object[] { new Object[] { "a" } })));
+    assertFalse(pojomator.doEquals(pojo, new ArrayProperties(
+      new String[] { "a", null }, new int[][] { { 1 }, null }, new String[] { "a" })));
+  }
+
   @Test public void testPropertyPairHashCode() {
     assertEquals(OBJECT_PAIR_PROPERTY_POJOMATOR.doHashCode(new ObjectPairProperty("foo", "bar")), HASH_CODE_MULTIPLIER * (HASH_CODE_MULTIPLIER * HASH_CODE_SEED + "foo".hashCode())
     + "bar".hashCode());
@@ -100,6 +162,37 @@ public class PojomatorImplTest {
     assertEquals(makePojomator(FormattedObject.class).doToString(new FormattedObject("x")), "PREFIXFormattedObject{s: {BEFOREx}}");
   }
 
+  @Test public void testToStringCapacity() {
+    BasePojomator<ObjectProperty> pojomator =
+      (BasePojomator<ObjectProperty>) makePojomator(ObjectProperty.class);
+    assertEquals(pojomator.toStringCapacity(), BasePojomator.INITIAL_TO_STRING_CAPACITY);
+
+    String longString = pojomator.doToString(new ObjectProperty(new String(new char[1000])));
+    assertEquals(pojomator.toStringCapacity(), longString.length());
+
+    // shorter representations make the capacity decay gradually
+    String shortString = pojomator.doToString(new ObjectProperty("x"));
+    int capacity = pojomator.toStringCapacity();
+    assertTrue(capacity < longString.length() && capacity > longString.length() / 2, "capacity: " + capacity);
+    for (int i = 0; i < 100; i++) {
+      pojomator.doToString(new ObjectProperty("x"));
+    }
+    capacity = pojomator.toStringCapacity();
+    assertTrue(capacity >= shortString.length() && capacity < 2 * shortString.length(), "capacity: " + capacity);
+
+    pojomator.doToString(new ObjectProperty(new String(new char[100000])));
+    assertEquals(pojomator.toStringCapacity(), BasePojomator.MAX_TO_STRING_CAPACITY);
+  }
+
+  @Test public void testAppendTo() {
+    StringBuilder builder = new StringBuilder("before ");
+    ACCESS_CHECKED_PROPERTIES_POJOMATOR.doAppendTo(new AccessCheckedProperties(1, 2), builder);
+    makePojomator(FormattedObject.class).doAppendTo(new FormattedObject("x"), builder.append(", "));
+    assertEquals(
+      builder.toString(),
+      "before AccessCheckedProperties{a: {1}, b: {2}}, PREFIXFormattedObject{s: {BEFOREx}}");
+  }
+
   @Test(expectedExceptions=NullPointerException.class)
   public void testDiffNullInstance() {
     ObjectPairProperty other = new ObjectPairProperty("this", "that");
@@ -264,6 +357,75 @@ public class PojomatorImplTest {
     private boolean getBCalled;
   }
 
+  private static class ArrayProperties {
+    ArrayProperties(String[] strings, int[][] ints, Object[] objects) {
+      this.strings = strings;
+      this.ints = ints;
+      this.objects = objects;
+    }
+
+    @Property final String[] strings;
+    @Property final int[][] ints;
+    @Property final Object[] objects;
+  }
+
+  private static class EqualsOnlyProperty {
+    EqualsOnlyProperty(int both, int onlyForEquals) {
+      this.both = both;
+      this.onlyForEquals = onlyForEquals;
+    }
+
+    @Property final int both;
+    @Property(policy=PojomaticPolicy.EQUALS) final int onlyForEquals;
+  }
+
+  private static class CostOrderedProperties {
+    public CostOrderedProperties(String string, Thread.State state, int number) {
+      this.string = string;
+      this.state = state;
+      this.number = number;
+    }
+
+    @Property public String getString() {
+      getStringCalled = true;
+      return string;
+    }
+
+    @Property public Thread.State getState() {
+      getStateCalled = true;
+      return state;
+    }
+
+    @Property public int getNumber() {
+      return number;
+    }
+
+    private final String string;
+    private final Thread.State state;
+    private final int number;
+    private boolean getStringCalled, getStateCalled;
+  }
+
+  private static class HintedProperties {
+    public HintedProperties(int number, String string) {
+      this.number = number;
+      this.string = string;
+    }
+
+    @Property public int getNumber() {
+      getNumberCalled = true;
+      return number;
+    }
+
+    @Property(equalsOrder=-1) public String getString() {
+      return string;
+    }
+
+    private final int number;
+    private final String string;
+    private boolean getNumberCalled;
+  }
+
   @AutoProperty
   private static class PrivateClass {
     @SuppressWarnings("unused")
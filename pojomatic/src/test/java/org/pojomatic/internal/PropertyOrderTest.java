@@ -18,7 +18,7 @@ import org.pojomatic.PropertyElement;
 import com.google.common.base.Function;
 import com.google.common.collect.Maps;
 
-public class PropertyClassVisitorTest {
+public class PropertyOrderTest {
   static class FieldsAndGetters {
     int field1;
     long getter1() { return 0L; }
@@ -58,7 +58,7 @@ public class PropertyClassVisitorTest {
 
   @BeforeMethod
   public void setup() throws Exception {
-    // Note that fields will be visited before methods, regardless of declaration order.
+    // Note that fields will be sorted before methods, regardless of declaration order.
     f1 = new PropertyField(FieldsAndGetters.class.getDeclaredField("field1"), "");
     f2 = new PropertyField(FieldsAndGetters.class.getDeclaredField("field2"), "");
     f3 = new PropertyField(Other.class.getDeclaredField("n"), "");
@@ -70,41 +70,42 @@ public class PropertyClassVisitorTest {
 
   @Test
   public void testReflectionOrdering() {
-    PropertyClassVisitor visitor = PropertyClassVisitor.visitClass(
+    Map<PropertyRole, List<PropertyElement>> sortedProperties = PropertyOrder.sort(
         FieldsAndGetters.class,
         makeRoleMaps(Arrays.asList(f1, f2), Arrays.asList(f2, f1), NO_PROPERTIES),
         makeRoleMaps(Arrays.asList(m2, m1), Arrays.asList(m1), Arrays.asList(m2)));
-    assertNotNull(visitor);
-    assertEquals(visitor.getSortedProperties(), makeRoleLists(Arrays.asList(f1, f2, m1, m2), Arrays.asList(f1, f2, m1), Arrays.asList(m2)));
+    assertEquals(sortedProperties, makeRoleLists(Arrays.asList(f1, f2, m1, m2), Arrays.asList(f1, f2, m1), Arrays.asList(m2)));
   }
 
   @Test
-  public void testMissingCodeSource() {
-    Map<PropertyRole, Map<String, PropertyElement>> roleMaps =
-        makeRoleMaps(NO_PROPERTIES, NO_PROPERTIES, NO_PROPERTIES);
-    PropertyClassVisitor visitor = PropertyClassVisitor.visitClass(String.class, roleMaps, roleMaps);
-    assertNull(visitor);
+  public void testMissingCodeSource() throws Exception {
+    PropertyElement hash = new PropertyField(String.class.getDeclaredField("hash"), "");
+    Map<PropertyRole, List<PropertyElement>> sortedProperties = PropertyOrder.sort(
+      String.class,
+      makeRoleMaps(Arrays.asList(hash), NO_PROPERTIES, NO_PROPERTIES),
+      makeRoleMaps(NO_PROPERTIES, NO_PROPERTIES, NO_PROPERTIES));
+    assertEquals(sortedProperties, makeRoleLists(Arrays.asList(hash), NO_PROPERTIES, NO_PROPERTIES));
   }
 
   @Test
   public void testMissingClassBytes() throws Exception {
-    class Bean {}
-
-    ClassOnlyClassLoader classLoader = new ClassOnlyClassLoader(Bean.class.getClassLoader());
-    Class<?> beanClass = classLoader.loadClass(Bean.class.getName());
-    assertNotSame(Bean.class, beanClass);
-    assertNotNull(beanClass.getProtectionDomain().getCodeSource().getLocation());
-    Map<PropertyRole, Map<String, PropertyElement>> roleMaps =
-        makeRoleMaps(NO_PROPERTIES, NO_PROPERTIES, NO_PROPERTIES);
-    PropertyClassVisitor visitor = PropertyClassVisitor.visitClass(String.class, roleMaps, roleMaps);
-    assertNull(visitor);
+    ClassOnlyClassLoader classLoader = new ClassOnlyClassLoader(Other.class.getClassLoader());
+    Class<?> otherClass = classLoader.loadClass(Other.class.getName());
+    assertNotSame(Other.class, otherClass);
+    PropertyElement n = new PropertyField(otherClass.getDeclaredField("n"), "");
+    Map<PropertyRole, List<PropertyElement>> sortedProperties = PropertyOrder.sort(
+      otherClass,
+      makeRoleMaps(Arrays.asList(n), Arrays.asList(n), NO_PROPERTIES),
+      makeRoleMaps(NO_PROPERTIES, NO_PROPERTIES, NO_PROPERTIES));
+    assertEquals(
+      sortedProperties, makeRoleLists(Arrays.asList(n), Arrays.asList(n), NO_PROPERTIES));
   }
 
   @Test
   public void testThrowReflectionMissmatch() throws Exception {
     try {
 
-      PropertyClassVisitor.visitClass(
+      PropertyOrder.sort(
         FieldsAndGetters.class,
         makeRoleMaps(Arrays.asList(f3), NO_PROPERTIES, NO_PROPERTIES),
         makeRoleMaps(Arrays.asList(m3, m4), NO_PROPERTIES, NO_PROPERTIES));
@@ -113,7 +114,7 @@ public class PropertyClassVisitorTest {
     catch (IllegalStateException e) {
       assertEquals(e.getMessage(), "In class " + FieldsAndGetters.class.getName() + ", properties "
       + f3.getElement().toString() + ", " + m3.getElement().toString() + ", " + m4.getElement().toString()
-      + " were found in reflection, but not when visiting the bytecode");
+      + " were found in reflection, but not in the class file");
     }
   }
 
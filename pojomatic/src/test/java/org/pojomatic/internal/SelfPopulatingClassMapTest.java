@@ -0,0 +1,154 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.annotations.Property;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteStreams;
+
+public class SelfPopulatingClassMapTest {
+  public static class Unloadable {
+    @Property int x = 3;
+  }
+
+  /**
+   * A class loader which loads this test class and its nested classes itself, rather than delegating to its parent.
+   */
+  private static class ChildFirstClassLoader extends ClassLoader {
+    ChildFirstClassLoader() {
+      super(SelfPopulatingClassMapTest.class.getClassLoader());
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.startsWith(SelfPopulatingClassMapTest.class.getName())) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> clazz = findLoadedClass(name);
+        if (clazz == null) {
+          try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+            if (in == null) {
+              throw new ClassNotFoundException(name);
+            }
+            byte[] bytes = ByteStreams.toByteArray(in);
+            clazz = defineClass(name, bytes, 0, bytes.length);
+          }
+          catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+          }
+        }
+        return clazz;
+      }
+    }
+  }
+
+  @Test public void testThreading() throws Exception {
+    final AtomicInteger creations = new AtomicInteger();
+    final SelfPopulatingClassMap<String> selfPopulatingMap = new SelfPopulatingClassMap<String>() {
+      @Override protected String create(Class<?> key) {
+        creations.incrementAndGet();
+        try {
+          Thread.sleep(10); // ensure that two threads have time to collide.
+        }
+        catch (InterruptedException e) {}
+        return new String(key.getName());
+      }
+    };
+
+    int numThreads = 2;
+    Thread[] threads = new Thread[numThreads];
+    final String[] results = new String[numThreads];
+    for (int i = 0; i < threads.length; i++) {
+      final int threadNumber = i;
+      threads[i] = new Thread() {
+        @Override public void run() {
+          results[threadNumber] = selfPopulatingMap.get(Unloadable.class);
+        }
+      };
+    }
+    for (Thread t: threads) {
+      t.start();
+    }
+    for (Thread t: threads) {
+      t.join();
+    }
+    assertSame(results[1], results[0]);
+    assertEquals(creations.get(), 1);
+  }
+
+  @Test
+  public void testBadConstructionFirstTime() {
+    final AtomicBoolean firstTime = new AtomicBoolean(false);
+    final SelfPopulatingClassMap<String> selfPopulatingMap = new SelfPopulatingClassMap<String>() {
+      @Override protected String create(Class<?> key) {
+        if (firstTime.getAndSet(true)) {
+          return key.getSimpleName();
+        }
+        else {
+          throw new RuntimeException("first");
+        }
+      }
+    };
+
+    try {
+      selfPopulatingMap.get(Unloadable.class);
+      fail("Exception expected");
+    }
+    catch(RuntimeException e) {
+      assertEquals(e.getMessage(), "first");
+    }
+
+    assertEquals(selfPopulatingMap.get(Unloadable.class), "Unloadable");
+  }
+
+  @Test
+  public void testRecursiveCreation() {
+    final AtomicInteger creations = new AtomicInteger();
+    final AtomicReference<SelfPopulatingClassMap<String>> map = new AtomicReference<>();
+    map.set(new SelfPopulatingClassMap<String>() {
+      @Override protected String create(Class<?> key) {
+        if (creations.getAndIncrement() == 0) {
+          try {
+            map.get().get(key);
+            fail("Exception expected");
+          }
+          catch (IllegalStateException e) {
+            return "caught";
+          }
+        }
+        return key.getSimpleName();
+      }
+    });
+
+    assertEquals(map.get().get(Unloadable.class), "caught");
+    assertEquals(creations.get(), 1);
+  }
+
+  @Test
+  public void testClassLoaderCanBeCollected() throws Exception {
+    WeakReference<ClassLoader> classLoaderReference = pojomateInNewClassLoader();
+    for (int i = 0; i < 100 && classLoaderReference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(classLoaderReference.get(), "class loader was not collected");
+  }
+
+  private static WeakReference<ClassLoader> pojomateInNewClassLoader() throws Exception {
+    ClassLoader classLoader = new ChildFirstClassLoader();
+    Class<?> pojoClass = classLoader.loadClass(Unloadable.class.getName());
+    assertNotSame(pojoClass, Unloadable.class);
+    assertEquals(Pojomatic.toString(pojoClass.newInstance()), "Unloadable{x: {3}}");
+    return new WeakReference<>(classLoader);
+  }
+}
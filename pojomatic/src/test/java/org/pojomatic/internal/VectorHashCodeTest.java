@@ -0,0 +1,83 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.ArrayStrategy;
+import org.pojomatic.annotations.Property;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class VectorHashCodeTest {
+  private static final Random RANDOM = new Random(1);
+
+  private static class VectorPojo {
+    VectorPojo(double[] doubles, long[] longs) {
+      this.doubles = doubles;
+      this.longs = longs;
+    }
+
+    @Property(arrayStrategy = ArrayStrategy.VECTOR) final double[] doubles;
+    @Property final long[] longs;
+  }
+
+  @DataProvider(name = "arrays")
+  public static Object[][] arrays() {
+    Object[][] arrays = new Object[10 * 8][];
+    int index = 0;
+    for (int length = 0; length < 10; length++) {
+      boolean[] booleans = new boolean[length];
+      byte[] bytes = new byte[length];
+      char[] chars = new char[length];
+      short[] shorts = new short[length];
+      int[] ints = new int[length];
+      long[] longs = new long[length];
+      float[] floats = new float[length];
+      double[] doubles = new double[length];
+      for (int i = 0; i < length; i++) {
+        booleans[i] = RANDOM.nextBoolean();
+        bytes[i] = (byte) RANDOM.nextInt();
+        chars[i] = (char) RANDOM.nextInt();
+        shorts[i] = (short) RANDOM.nextInt();
+        ints[i] = RANDOM.nextInt();
+        longs[i] = RANDOM.nextLong();
+        floats[i] = RANDOM.nextFloat();
+        doubles[i] = RANDOM.nextDouble();
+      }
+      for (Object array: new Object[] { booleans, bytes, chars, shorts, ints, longs, floats, doubles }) {
+        arrays[index++] = new Object[] { array };
+      }
+    }
+    return arrays;
+  }
+
+  @Test(dataProvider = "arrays")
+  public void testContract(Object array) throws Exception {
+    int hashCode = (Integer) BasePojomator.class
+      .getDeclaredMethod("vectorHashCode", array.getClass())
+      .invoke(null, array);
+    assertEquals(hashCode, contractHashCode(array));
+  }
+
+  @Test
+  public void testPojomatorUsesVectorHashCode() {
+    Pojomator<VectorPojo> pojomator = PojomatorFactory.makePojomator(VectorPojo.class);
+    double[] doubles = { 1.0, 2.0, 3.0, 4.0, 5.0 };
+    long[] longs = { 6L, 7L };
+    int expected = 31 * (31 + contractHashCode(doubles)) + Arrays.hashCode(longs);
+    assertEquals(pojomator.doHashCode(new VectorPojo(doubles, longs)), expected);
+    assertEquals(pojomator.doHashCode(new VectorPojo(null, longs)), 31 * 31 + Arrays.hashCode(longs));
+  }
+
+  private static int contractHashCode(Object array) {
+    try {
+      return (Integer) Arrays.class.getMethod("hashCode", array.getClass()).invoke(null, array);
+    }
+    catch (ReflectiveOperationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package org.pojomatic.internal;
+
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pojomatic.Pojomatic;
+import org.pojomatic.Pojomator;
+import org.pojomatic.annotations.AutoProperty;
+import org.pojomatic.annotations.PojomaticPolicy;
+import org.pojomatic.annotations.Property;
+import org.pojomatic.annotations.PropertyFormat;
+import org.pojomatic.formatter.AccountNumberFormatter;
+import org.testng.annotations.Test;
+
+public class WriteJsonTest {
+  private static enum Color { RED }
+
+  @AutoProperty
+  private static class Primitives {
+    boolean z = true;
+    byte b = -1;
+    short s = 2;
+    char c = '"';
+    int i = 3;
+    long l = 1L << 40;
+    float f = 1.5f;
+    double d = -0.25;
+  }
+
+  @AutoProperty
+  private static class ObjectValues {
+    Object nullValue = null;
+    String string = "a \"quoted\"\\\n\u0001 string";
+    Integer integer = 4;
+    Double nan = Double.NaN;
+    Float infinity = Float.NEGATIVE_INFINITY;
+    BigDecimal bigDecimal = new BigDecimal("1.10");
+    BigInteger bigInteger = BigInteger.TEN.pow(20);
+    Boolean bool = false;
+    Character character = '\t';
+    Color color = Color.RED;
+    Object other = new StringBuilder("other");
+  }
+
+  @AutoProperty
+  private static class Containers {
+    int[] ints = { 1, 2 };
+    double[] doubles = { Double.POSITIVE_INFINITY };
+    char[] chars = { 'x' };
+    byte[] bytes = {};
+    Object[] objects = { "s", null, new long[] { 5 } };
+    Object list = Arrays.asList(Color.RED, 6);
+    Map<Object, Object> map = new LinkedHashMap<>();
+  }
+
+  @AutoProperty
+  private static class Nested {
+    Nested(Primitives primitives) {
+      this.primitives = primitives;
+    }
+
+    final Primitives primitives;
+    final Object[] nested = { new Primitives() };
+  }
+
+  private static class Masked {
+    @Property
+    @PropertyFormat(AccountNumberFormatter.class)
+    String accountNumber = "12345678";
+
+    @Property
+    @PropertyFormat(AccountNumberFormatter.class)
+    long otherAccountNumber = 987654321;
+
+    @Property
+    int visible = 7;
+  }
+
+  private static class NoToStringProperties {
+    @Property(policy = PojomaticPolicy.EQUALS)
+    int x;
+  }
+
+  private static final String PRIMITIVES_JSON =
+    "{\"z\":true,\"b\":-1,\"s\":2,\"c\":\"\\\"\",\"i\":3,\"l\":1099511627776,\"f\":1.5,\"d\":-0.25}";
+
+  @Test
+  public void testPrimitives() throws IOException {
+    assertEquals(writeJson(new Primitives()), PRIMITIVES_JSON);
+  }
+
+  @Test
+  public void testObjects() throws IOException {
+    assertEquals(
+      writeJson(new ObjectValues()),
+      "{\"nullValue\":null,\"string\":\"a \\\"quoted\\\"\\\\\\n\\u0001 string\",\"integer\":4,\"nan\":\"NaN\","
+        + "\"infinity\":\"-Infinity\",\"bigDecimal\":1.10,\"bigInteger\":100000000000000000000,\"bool\":false,"
+        + "\"character\":\"\\t\",\"color\":\"RED\",\"other\":\"other\"}");
+  }
+
+  @Test
+  public void testContainers() throws IOException {
+    Containers containers = new Containers();
+    containers.map.put(1, "one");
+    containers.map.put(null, new int[] { 2 });
+    assertEquals(
+      writeJson(containers),
+      "{\"ints\":[1,2],\"doubles\":[\"Infinity\"],\"chars\":[\"x\"],\"bytes\":[],\"objects\":[\"s\",null,[5]],"
+        + "\"list\":[\"RED\",6],\"map\":{\"1\":\"one\",\"null\":[2]}}");
+  }
+
+  @Test
+  public void testNested() throws IOException {
+    assertEquals(
+      writeJson(new Nested(new Primitives())),
+      "{\"primitives\":" + PRIMITIVES_JSON + ",\"nested\":[" + PRIMITIVES_JSON + "]}");
+    assertEquals(writeJson(new Nested(null)), "{\"primitives\":null,\"nested\":[" + PRIMITIVES_JSON + "]}");
+  }
+
+  @Test
+  public void testPropertyFormat() throws IOException {
+    assertEquals(
+      writeJson(new Masked()), "{\"accountNumber\":\"****5678\",\"otherAccountNumber\":\"*****4321\",\"visible\":7}");
+  }
+
+  @Test
+  public void testNoToStringProperties() throws IOException {
+    assertEquals(writeJson(new NoToStringProperties()), "{}");
+  }
+
+  @Test
+  public void testAppendable() throws IOException {
+    StringWriter writer = new StringWriter();
+    PojomatorFactory.makePojomator(ObjectValues.class).doWriteJson(new ObjectValues(), writer);
+    assertEquals(writer.toString(), writeJson(new ObjectValues()));
+
+    writer = new StringWriter();
+    Pojomatic.writeJson(new Primitives(), writer);
+    assertEquals(writer.toString(), PRIMITIVES_JSON);
+  }
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void testNullInstance() throws IOException {
+    PojomatorFactory.makePojomator(Primitives.class).doWriteJson(null, new StringBuilder());
+  }
+
+  @Test(expectedExceptions = NullPointerException.class)
+  public void testNullAppendable() throws IOException {
+    PojomatorFactory.makePojomator(Primitives.class).doWriteJson(new Primitives(), null);
+  }
+
+  private static <T> String writeJson(T pojo) throws IOException {
+    @SuppressWarnings("unchecked")
+    Pojomator<T> pojomator = (Pojomator<T>) PojomatorFactory.makePojomator(pojo.getClass());
+    StringBuilder builder = new StringBuilder();
+    pojomator.doWriteJson(pojo, builder);
+    return builder.toString();
+  }
+}
@@ -0,0 +1,8 @@
+package org.pojomatic.internal.scan;
+
+import org.pojomatic.annotations.AutoProperty;
+
+@AutoProperty
+public class AutoPropertyPojo {
+  int x;
+}
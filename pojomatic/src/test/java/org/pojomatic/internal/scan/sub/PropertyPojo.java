@@ -0,0 +1,8 @@
+package org.pojomatic.internal.scan.sub;
+
+import org.pojomatic.annotations.Property;
+
+public class PropertyPojo {
+  @Property
+  public int getX() { return 0; }
+}